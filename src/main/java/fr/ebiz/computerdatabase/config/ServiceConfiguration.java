@@ -2,19 +2,29 @@ package fr.ebiz.computerdatabase.config;
 
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
+import fr.ebiz.computerdatabase.persistence.routing.AsyncReadRoutingDataSource;
+import fr.ebiz.computerdatabase.persistence.routing.ReplicaRoutingDataSource;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.beans.factory.config.PropertyPlaceholderConfigurer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.EnableMBeanExport;
+import org.springframework.context.annotation.Primary;
 import org.springframework.context.annotation.PropertySource;
 import org.springframework.context.support.PropertySourcesPlaceholderConfigurer;
 import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jmx.support.RegistrationPolicy;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
 import org.springframework.transaction.annotation.TransactionManagementConfigurer;
 
 import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadPoolExecutor;
 
 @Configuration
 // Enable component scan on repository and services
@@ -24,6 +34,7 @@ import javax.sql.DataSource;
         "fr.ebiz.computerdatabase.mapper"
 })
 @EnableTransactionManagement // Enable transactions
+@EnableMBeanExport(registration = RegistrationPolicy.REPLACE_EXISTING) // Expose the @ManagedResource metrics over JMX
 @PropertySource("classpath:db.properties")
 public class ServiceConfiguration implements TransactionManagementConfigurer {
 
@@ -41,6 +52,24 @@ public class ServiceConfiguration implements TransactionManagementConfigurer {
     private int maximumPoolSize;
     @Value("${idleTimeout}")
     private int idleTimeout;
+    @Value("${prepStmtCacheSize:500}")
+    private int prepStmtCacheSize;
+    @Value("${prepStmtCacheSqlLimit:4096}")
+    private int prepStmtCacheSqlLimit;
+    @Value("${replica.urls:}")
+    private String replicaUrls;
+    @Value("${replica.readYourWritesWindow:5000}")
+    private long readYourWritesWindow;
+    @Value("${replica.healthCheckInterval:5000}")
+    private long healthCheckInterval;
+    @Value("${daoExecutor.poolSize:2}")
+    private int daoExecutorPoolSize;
+    @Value("${daoExecutor.queueCapacity:100}")
+    private int daoExecutorQueueCapacity;
+    @Value("${jobs.poolSize:2}")
+    private int jobsPoolSize;
+    @Value("${jobs.queueCapacity:1000}")
+    private int jobsQueueCapacity;
 
     /**
      * Create the property placeholder with the properties configured in the @PropertySource annotation.
@@ -54,19 +83,118 @@ public class ServiceConfiguration implements TransactionManagementConfigurer {
 
     /**
      * Create the DataSource bean.
+     * The connection is only fetched at the first statement, once the transaction is known, so that it can be routed.
      *
      * @return The created datasource
      */
+    @Primary
     @Bean
     public DataSource dataSource() {
+        return new LazyConnectionDataSourceProxy(asyncReadRoutingDataSource());
+    }
+
+    /**
+     * Create the DataSource giving the asynchronous reads of the DAO executor their own pools, sized to the executor.
+     *
+     * @return The created datasource
+     */
+    @Bean(destroyMethod = "close")
+    public AsyncReadRoutingDataSource asyncReadRoutingDataSource() {
+        return new AsyncReadRoutingDataSource(routingDataSource(), createRoutingDataSource(poolName + "-dao", daoExecutorPoolSize));
+    }
+
+    /**
+     * Create the DataSource routing the read-only transactions to the replicas and the other ones to the primary.
+     * Every connection goes to the primary when no replica is configured.
+     *
+     * @return The created datasource
+     */
+    @Bean(destroyMethod = "close")
+    public ReplicaRoutingDataSource routingDataSource() {
+        // Each job thread holds at most two connections on top of the request threads: one for its work,
+        // one for the job rows, which are written outside of the transaction of the work
+        return createRoutingDataSource(poolName, maximumPoolSize + 2 * jobsPoolSize);
+    }
+
+    /**
+     * Create the executor running the asynchronous reads of the DAOs.
+     * A saturated executor runs the reads on the calling thread instead of failing them.
+     *
+     * @return The created executor
+     */
+    @Bean
+    public ThreadPoolTaskExecutor daoExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("dao-");
+        executor.setCorePoolSize(daoExecutorPoolSize);
+        executor.setMaxPoolSize(daoExecutorPoolSize);
+        executor.setQueueCapacity(daoExecutorQueueCapacity);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        return executor;
+    }
+
+    /**
+     * Create the executor running the background jobs.
+     * A saturated executor rejects the jobs rather than running them on the submitting request thread.
+     *
+     * @return The created executor
+     */
+    @Bean
+    public ThreadPoolTaskExecutor jobExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("job-");
+        executor.setCorePoolSize(jobsPoolSize);
+        executor.setMaxPoolSize(jobsPoolSize);
+        executor.setQueueCapacity(jobsQueueCapacity);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        return executor;
+    }
+
+    /**
+     * Create a DataSource routing between a pool of the primary and a pool of each replica.
+     *
+     * @param name The name of the pools
+     * @param size The maximum number of connections of each pool
+     * @return The created datasource
+     */
+    private ReplicaRoutingDataSource createRoutingDataSource(String name, int size) {
+        List<DataSource> replicas = new ArrayList<>();
+        for (String replicaUrl : replicaUrls.split(",")) {
+            if (!replicaUrl.trim().isEmpty()) {
+                replicas.add(createPool(name + "-replica-" + replicas.size(), replicaUrl.trim(), true, size));
+            }
+        }
+        return new ReplicaRoutingDataSource(createPool(name, jdbcUrl, false, size), replicas, readYourWritesWindow, healthCheckInterval);
+    }
+
+    /**
+     * Create a connection pool.
+     *
+     * @param name     The name of the pool
+     * @param url      The JDBC URL of the database
+     * @param readOnly Whether the connections are read-only
+     * @param size     The maximum number of connections
+     * @return The created pool
+     */
+    private HikariDataSource createPool(String name, String url, boolean readOnly, int size) {
         HikariConfig config = new HikariConfig();
-        config.setPoolName(poolName);
-        config.setJdbcUrl(jdbcUrl);
+        config.setPoolName(name);
+        config.setJdbcUrl(url);
         config.setUsername(username);
         config.setPassword(password);
         config.setDriverClassName(driver);
-        config.setMaximumPoolSize(maximumPoolSize);
+        config.setMaximumPoolSize(size);
         config.setIdleTimeout(idleTimeout);
+        config.setReadOnly(readOnly);
+        if (readOnly) {
+            // A replica down at boot must not stop the application, the health checks put it in the rotation once up
+            config.setInitializationFailTimeout(-1);
+        }
+        // Prepare each statement text once per connection on the server and reuse it
+        config.addDataSourceProperty("useServerPrepStmts", true);
+        config.addDataSourceProperty("cachePrepStmts", true);
+        config.addDataSourceProperty("prepStmtCacheSize", prepStmtCacheSize);
+        config.addDataSourceProperty("prepStmtCacheSqlLimit", prepStmtCacheSqlLimit);
         return new HikariDataSource(config);
     }
 
@@ -75,6 +203,7 @@ public class ServiceConfiguration implements TransactionManagementConfigurer {
      *
      * @return The created datasource
      */
+    @Bean
     @Override
     public PlatformTransactionManager annotationDrivenTransactionManager() {
         return new DataSourceTransactionManager(dataSource());
@@ -0,0 +1,37 @@
+package fr.ebiz.computerdatabase.dto;
+
+import fr.ebiz.computerdatabase.model.Company;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable list of every company sorted by name, as of a version of the company table.
+ * A snapshot is shared by every reader until the companies change.
+ */
+public final class CompanySnapshot implements Serializable {
+
+    private final long version;
+    private final List<Company> companies;
+
+    /**
+     * Constructor.
+     *
+     * @param version   The version of the company table the list was read at
+     * @param companies The companies sorted by name
+     */
+    public CompanySnapshot(long version, List<Company> companies) {
+        this.version = version;
+        this.companies = Collections.unmodifiableList(new ArrayList<>(companies));
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public List<Company> getCompanies() {
+        return companies;
+    }
+}
@@ -17,6 +17,9 @@ public class GetAllComputersRequest implements Serializable {
     private int pageSize = DEFAULT_PAGE_SIZE;
     private SortColumn column = SortColumn.NAME;
     private SortOrder order = SortOrder.ASC;
+    private String after;
+    private String before;
+    private boolean exactCount;
 
     /**
      * Create a builder.
@@ -67,6 +70,39 @@ public class GetAllComputersRequest implements Serializable {
         this.order = order;
     }
 
+    public String getAfter() {
+        return after;
+    }
+
+    public void setAfter(String after) {
+        this.after = after;
+    }
+
+    public String getBefore() {
+        return before;
+    }
+
+    public void setBefore(String before) {
+        this.before = before;
+    }
+
+    public boolean isExactCount() {
+        return exactCount;
+    }
+
+    public void setExactCount(boolean exactCount) {
+        this.exactCount = exactCount;
+    }
+
+    /**
+     * Check whether the page must be fetched with a keyset cursor instead of an offset.
+     *
+     * @return true if an after or before cursor is set
+     */
+    public boolean isKeyset() {
+        return !StringUtils.isBlank(after) || !StringUtils.isBlank(before);
+    }
+
     public int getOffset() {
         return page * pageSize;
     }
@@ -82,14 +118,17 @@ public class GetAllComputersRequest implements Serializable {
         GetAllComputersRequest that = (GetAllComputersRequest) o;
         return getPage() == that.getPage() &&
                 getPageSize() == that.getPageSize() &&
+                isExactCount() == that.isExactCount() &&
                 Objects.equals(getQuery(), that.getQuery()) &&
                 getColumn() == that.getColumn() &&
-                getOrder() == that.getOrder();
+                getOrder() == that.getOrder() &&
+                Objects.equals(getAfter(), that.getAfter()) &&
+                Objects.equals(getBefore(), that.getBefore());
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(getQuery(), getPage(), getPageSize(), getColumn(), getOrder());
+        return Objects.hash(getQuery(), getPage(), getPageSize(), getColumn(), getOrder(), getAfter(), getBefore(), isExactCount());
     }
 
     public static class GetAllComputersRequestBuilder {
@@ -157,6 +196,39 @@ public class GetAllComputersRequest implements Serializable {
             return this;
         }
 
+        /**
+         * Set the cursor of the row to start after.
+         *
+         * @param after The cursor to set
+         * @return The builder
+         */
+        public GetAllComputersRequestBuilder after(String after) {
+            request.after = after;
+            return this;
+        }
+
+        /**
+         * Set the cursor of the row to end before.
+         *
+         * @param before The cursor to set
+         * @return The builder
+         */
+        public GetAllComputersRequestBuilder before(String before) {
+            request.before = before;
+            return this;
+        }
+
+        /**
+         * Require the exact number of computers even when approximate counts are enabled.
+         *
+         * @param exactCount true to count every matching computer
+         * @return The builder
+         */
+        public GetAllComputersRequestBuilder exactCount(boolean exactCount) {
+            request.exactCount = exactCount;
+            return this;
+        }
+
 
         /**
          * Return the request.
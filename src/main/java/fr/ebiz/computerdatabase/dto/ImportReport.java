@@ -0,0 +1,104 @@
+package fr.ebiz.computerdatabase.dto;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Outcome of a bulk import: counters and the first errors met.
+ */
+public class ImportReport implements Serializable {
+
+    private static final int MAX_ERRORS = 100;
+
+    private int read;
+    private int inserted;
+    private int rejected;
+    private final List<ImportError> errors = new ArrayList<>();
+
+    /**
+     * Count a parsed record.
+     */
+    public void recordRead() {
+        read++;
+    }
+
+    /**
+     * Count inserted records.
+     *
+     * @param count The number of inserted records
+     */
+    public void recordInserted(int count) {
+        inserted += count;
+    }
+
+    /**
+     * Count rejected records and keep the error if less than {@link #MAX_ERRORS} are kept.
+     *
+     * @param count   The number of rejected records
+     * @param line    The line of the (first) rejected record
+     * @param message The reason of the rejection
+     */
+    public void recordRejected(int count, long line, String message) {
+        rejected += count;
+        if (errors.size() < MAX_ERRORS) {
+            errors.add(new ImportError(line, message));
+        }
+    }
+
+    public int getRead() {
+        return read;
+    }
+
+    public int getInserted() {
+        return inserted;
+    }
+
+    public int getRejected() {
+        return rejected;
+    }
+
+    public List<ImportError> getErrors() {
+        return Collections.unmodifiableList(errors);
+    }
+
+    @Override
+    public String toString() {
+        return "ImportReport{"
+                + "read=" + read
+                + ", inserted=" + inserted
+                + ", rejected=" + rejected
+                + '}';
+    }
+
+    public static class ImportError implements Serializable {
+
+        private final long line;
+        private final String message;
+
+        /**
+         * Constructor.
+         *
+         * @param line    The line of the rejected record
+         * @param message The reason of the rejection
+         */
+        public ImportError(long line, String message) {
+            this.line = line;
+            this.message = message;
+        }
+
+        public long getLine() {
+            return line;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        @Override
+        public String toString() {
+            return "line " + line + ": " + message;
+        }
+    }
+}
@@ -9,7 +9,10 @@ public class Page<T> implements Serializable {
     private final List<T> elements;
     private int totalPages;
     private int totalElements;
+    private boolean approximate;
     private int currentPage;
+    private String nextCursor;
+    private String previousCursor;
 
     /**
      * Constructor.
@@ -44,6 +47,18 @@ public class Page<T> implements Serializable {
         return totalElements;
     }
 
+    public boolean isApproximate() {
+        return approximate;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public String getPreviousCursor() {
+        return previousCursor;
+    }
+
     public static class PageBuilder<U> {
         private final Page<U> page;
 
@@ -87,6 +102,17 @@ public class Page<T> implements Serializable {
             return this;
         }
 
+        /**
+         * Set whether the total numbers of elements and pages are estimates.
+         *
+         * @param approximate true if the totals are estimates
+         * @return The page builder instance
+         */
+        public PageBuilder approximate(boolean approximate) {
+            page.approximate = approximate;
+            return this;
+        }
+
         /**
          * Set the current page.
          *
@@ -98,6 +124,28 @@ public class Page<T> implements Serializable {
             return this;
         }
 
+        /**
+         * Set the cursor used to get the next page.
+         *
+         * @param nextCursor The cursor of the last element or null if there is no next page
+         * @return The page builder instance
+         */
+        public PageBuilder nextCursor(String nextCursor) {
+            page.nextCursor = nextCursor;
+            return this;
+        }
+
+        /**
+         * Set the cursor used to get the previous page.
+         *
+         * @param previousCursor The cursor of the first element or null if there is no previous page
+         * @return The page builder instance
+         */
+        public PageBuilder previousCursor(String previousCursor) {
+            page.previousCursor = previousCursor;
+            return this;
+        }
+
         /**
          * Build the page instance.
          *
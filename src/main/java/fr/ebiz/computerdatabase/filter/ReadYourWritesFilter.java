@@ -0,0 +1,60 @@
+package fr.ebiz.computerdatabase.filter;
+
+import fr.ebiz.computerdatabase.persistence.routing.RoutingContext;
+
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.annotation.WebFilter;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpSession;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Servlet filter carrying the time of the last write of a user from a request to the next ones,
+ * so that the reads following a write are routed to the primary database.
+ */
+@WebFilter("/*")
+public class ReadYourWritesFilter implements Filter {
+
+    private static final String LAST_WRITE_ATTR = ReadYourWritesFilter.class.getName() + ".lastWrite";
+    private static final Set<String> READ_METHODS = new HashSet<>(Arrays.asList("GET", "HEAD", "OPTIONS"));
+
+    /**
+     * @see Filter#doFilter(ServletRequest, ServletResponse, FilterChain)
+     */
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain) throws IOException, ServletException {
+        HttpServletRequest httpRequest = (HttpServletRequest) request;
+        // The session can't be created once a redirection has committed the response
+        HttpSession session = httpRequest.getSession(!READ_METHODS.contains(httpRequest.getMethod()));
+        Long lastWrite = session != null ? (Long) session.getAttribute(LAST_WRITE_ATTR) : null;
+        RoutingContext.setLastWrite(lastWrite);
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            Long written = RoutingContext.getLastWrite();
+            RoutingContext.clear();
+            if (session != null && !Objects.equals(written, lastWrite)) {
+                session.setAttribute(LAST_WRITE_ATTR, written);
+            }
+        }
+    }
+
+    @Override
+    public void destroy() {
+        // Nothing to do here
+    }
+
+    @Override
+    public void init(FilterConfig arg0) throws ServletException {
+        // Nothing to do here
+    }
+}
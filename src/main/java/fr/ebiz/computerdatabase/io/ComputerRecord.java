@@ -0,0 +1,61 @@
+package fr.ebiz.computerdatabase.io;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+import java.io.Serializable;
+
+/**
+ * Raw computer read from an imported file, before any validation, or written to an exported file.
+ * Dates are ISO formatted and the company is referenced by its name.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class ComputerRecord implements Serializable {
+
+    private long line;
+    private String name;
+    private String introduced;
+    private String discontinued;
+    private String company;
+
+    @JsonIgnore
+    public long getLine() {
+        return line;
+    }
+
+    public void setLine(long line) {
+        this.line = line;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getIntroduced() {
+        return introduced;
+    }
+
+    public void setIntroduced(String introduced) {
+        this.introduced = introduced;
+    }
+
+    public String getDiscontinued() {
+        return discontinued;
+    }
+
+    public void setDiscontinued(String discontinued) {
+        this.discontinued = discontinued;
+    }
+
+    public String getCompany() {
+        return company;
+    }
+
+    public void setCompany(String company) {
+        this.company = company;
+    }
+}
@@ -0,0 +1,17 @@
+package fr.ebiz.computerdatabase.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+public interface ComputerRecordReader extends Closeable {
+
+    /**
+     * Read the next record.
+     * Only the current record is held in memory.
+     * A malformed record throws a {@link RecordFormatException}, the reader can then read the next record.
+     *
+     * @return The record or null at the end of the input
+     * @throws IOException if the input can't be read
+     */
+    ComputerRecord next() throws IOException;
+}
@@ -0,0 +1,16 @@
+package fr.ebiz.computerdatabase.io;
+
+import java.io.Flushable;
+import java.io.IOException;
+
+public interface ComputerRecordWriter extends Flushable {
+
+    /**
+     * Write a record.
+     * Records are buffered and written to the underlying stream in chunks.
+     *
+     * @param record The record to write
+     * @throws IOException if the output can't be written
+     */
+    void write(ComputerRecord record) throws IOException;
+}
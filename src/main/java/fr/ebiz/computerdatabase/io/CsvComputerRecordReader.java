@@ -0,0 +1,185 @@
+package fr.ebiz.computerdatabase.io;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Read computer records from RFC 4180 CSV.
+ * <p>
+ * The first row is a header naming the columns: name (mandatory), introduced, discontinued and company,
+ * in any order. Fields may be quoted, quotes being escaped by doubling them.
+ * Fields and rows are limited in length, so that an unterminated quote can't buffer the rest of the input.
+ */
+class CsvComputerRecordReader implements ComputerRecordReader {
+
+    private static final char SEPARATOR = ',';
+    private static final char QUOTE = '"';
+    private static final int MISSING = -1;
+    private static final int MAX_FIELD_LENGTH = 4096;
+    private static final int MAX_ROW_LENGTH = 16 * 1024;
+
+    private final BufferedReader reader;
+    private int nameColumn = MISSING;
+    private int introducedColumn = MISSING;
+    private int discontinuedColumn = MISSING;
+    private int companyColumn = MISSING;
+    private long line = 1;
+
+    /**
+     * Constructor, reading the header.
+     *
+     * @param reader The reader to parse
+     * @throws IOException if the input can't be read
+     */
+    CsvComputerRecordReader(BufferedReader reader) throws IOException {
+        this.reader = reader;
+        List<String> header = readRow();
+        for (int i = 0; header != null && i < header.size(); i++) {
+            switch (header.get(i).trim().toLowerCase()) {
+                case "name":
+                    nameColumn = i;
+                    break;
+                case "introduced":
+                    introducedColumn = i;
+                    break;
+                case "discontinued":
+                    discontinuedColumn = i;
+                    break;
+                case "company":
+                    companyColumn = i;
+                    break;
+                default:
+                    // Other columns are ignored
+                    break;
+            }
+        }
+        if (header != null && nameColumn == MISSING) {
+            throw new IllegalArgumentException("The CSV header must have a name column");
+        }
+    }
+
+    @Override
+    public ComputerRecord next() throws IOException {
+        List<String> row;
+        long start;
+        do {
+            start = line;
+            row = readRow();
+            if (row == null) {
+                return null;
+            }
+        } while (row.size() == 1 && row.get(0).trim().isEmpty());
+
+        ComputerRecord record = new ComputerRecord();
+        record.setLine(start);
+        record.setName(field(row, nameColumn));
+        record.setIntroduced(field(row, introducedColumn));
+        record.setDiscontinued(field(row, discontinuedColumn));
+        record.setCompany(field(row, companyColumn));
+        return record;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    /**
+     * Get a field of a row.
+     *
+     * @param row    The row
+     * @param column The column index
+     * @return The trimmed field or null if it is missing or empty
+     */
+    private static String field(List<String> row, int column) {
+        if (column == MISSING || column >= row.size() || row.get(column).trim().isEmpty()) {
+            return null;
+        }
+        return row.get(column).trim();
+    }
+
+    /**
+     * Read the fields of the next row, which may span several lines when a quoted field has line breaks.
+     * A row or a field too long is rejected and the reading resumes at the next line.
+     *
+     * @return The fields or null at the end of the input
+     * @throws IOException if the input can't be read
+     */
+    private List<String> readRow() throws IOException {
+        long start = line;
+        int c = reader.read();
+        if (c == -1) {
+            return null;
+        }
+
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        int length = 0;
+        while (true) {
+            if (c == -1) {
+                if (quoted) {
+                    throw new RecordFormatException(start, "Unterminated quoted field");
+                }
+                fields.add(field.toString());
+                return fields;
+            }
+            char ch = (char) c;
+            if (quoted) {
+                if (ch == QUOTE) {
+                    c = reader.read();
+                    if (c != QUOTE) {
+                        // Closing quote, the read character is handled as unquoted
+                        quoted = false;
+                        continue;
+                    }
+                } else if (ch == '\n') {
+                    line++;
+                }
+                field.append(ch);
+            } else if (ch == QUOTE && field.length() == 0) {
+                quoted = true;
+            } else if (ch == SEPARATOR) {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (ch == '\n') {
+                line++;
+                fields.add(field.toString());
+                return fields;
+            } else if (ch != '\r') {
+                field.append(ch);
+            }
+            if (field.length() > MAX_FIELD_LENGTH) {
+                throw tooLong(start, ch, "Field longer than " + MAX_FIELD_LENGTH + " characters");
+            }
+            if (++length > MAX_ROW_LENGTH) {
+                throw tooLong(start, ch, "Row longer than " + MAX_ROW_LENGTH + " characters");
+            }
+            c = reader.read();
+        }
+    }
+
+    /**
+     * Skip the rest of the current line, then create the error of a row too long.
+     *
+     * @param start   The line the row starts at
+     * @param last    The last character read
+     * @param message The error message
+     * @return The error to throw
+     * @throws IOException if the input can't be read
+     */
+    private RecordFormatException tooLong(long start, char last, String message) throws IOException {
+        if (last != '\n') {
+            int c = reader.read();
+            while (c != -1 && c != '\n') {
+                c = reader.read();
+            }
+            if (c == '\n') {
+                line++;
+            }
+        }
+        return new RecordFormatException(start, message);
+    }
+}
@@ -0,0 +1,79 @@
+package fr.ebiz.computerdatabase.io;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Write computer records as RFC 4180 CSV, with the header read by {@link CsvComputerRecordReader}.
+ */
+class CsvComputerRecordWriter implements ComputerRecordWriter {
+
+    private static final String HEADER = "name,introduced,discontinued,company";
+    private static final String LINE_SEPARATOR = "\r\n";
+    private static final char SEPARATOR = ',';
+    private static final char QUOTE = '"';
+
+    private final Writer writer;
+    private boolean headerWritten;
+
+    /**
+     * Constructor.
+     *
+     * @param writer The writer to write to
+     */
+    CsvComputerRecordWriter(Writer writer) {
+        this.writer = writer;
+    }
+
+    @Override
+    public void write(ComputerRecord record) throws IOException {
+        if (!headerWritten) {
+            writer.write(HEADER);
+            writer.write(LINE_SEPARATOR);
+            headerWritten = true;
+        }
+        writeField(record.getName());
+        writer.write(SEPARATOR);
+        writeField(record.getIntroduced());
+        writer.write(SEPARATOR);
+        writeField(record.getDiscontinued());
+        writer.write(SEPARATOR);
+        writeField(record.getCompany());
+        writer.write(LINE_SEPARATOR);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        writer.flush();
+    }
+
+    /**
+     * Write a field, quoted if it holds a separator, a quote or a line break.
+     *
+     * @param field The field or null
+     * @throws IOException if the output can't be written
+     */
+    private void writeField(String field) throws IOException {
+        if (field == null) {
+            return;
+        }
+        boolean quoted = false;
+        for (int i = 0; i < field.length() && !quoted; i++) {
+            char c = field.charAt(i);
+            quoted = c == SEPARATOR || c == QUOTE || c == '\n' || c == '\r';
+        }
+        if (!quoted) {
+            writer.write(field);
+            return;
+        }
+        writer.write(QUOTE);
+        for (int i = 0; i < field.length(); i++) {
+            char c = field.charAt(i);
+            if (c == QUOTE) {
+                writer.write(QUOTE);
+            }
+            writer.write(c);
+        }
+        writer.write(QUOTE);
+    }
+}
@@ -0,0 +1,93 @@
+package fr.ebiz.computerdatabase.io;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+
+public enum DataFormat {
+    CSV("text/csv", "csv"), NDJSON("application/x-ndjson", "ndjson");
+
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
+    private final String contentType;
+    private final String extension;
+
+    /**
+     * Constructor.
+     *
+     * @param contentType The MIME type of the format
+     * @param extension   The file extension of the format
+     */
+    DataFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * Get the format matching a MIME type.
+     *
+     * @param contentType The MIME type, parameters such as the charset are ignored
+     * @return The matching format
+     */
+    public static DataFormat fromContentType(String contentType) {
+        String mimeType = contentType == null ? "" : contentType.split(";")[0].trim();
+        for (DataFormat format : values()) {
+            if (format.contentType.equalsIgnoreCase(mimeType)) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported content type " + contentType);
+    }
+
+    /**
+     * Get the format matching a file name.
+     *
+     * @param fileName The file name
+     * @return The matching format
+     */
+    public static DataFormat fromFileName(String fileName) {
+        for (DataFormat format : values()) {
+            if (fileName.toLowerCase().endsWith("." + format.extension)) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported file " + fileName);
+    }
+
+    /**
+     * Create a reader parsing UTF-8 computer records of this format incrementally.
+     *
+     * @param input The input stream
+     * @return The record reader
+     * @throws IOException if the input can't be read
+     */
+    public ComputerRecordReader reader(InputStream input) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        return this == CSV ? new CsvComputerRecordReader(reader) : new NdjsonComputerRecordReader(reader);
+    }
+
+    /**
+     * Create a writer of UTF-8 computer records of this format.
+     * The output is written in chunks of the buffer size and is not closed by the writer.
+     *
+     * @param output The output stream
+     * @return The record writer
+     */
+    public ComputerRecordWriter writer(OutputStream output) {
+        BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8), WRITE_BUFFER_SIZE);
+        return this == CSV ? new CsvComputerRecordWriter(writer) : new NdjsonComputerRecordWriter(writer);
+    }
+}
@@ -0,0 +1,81 @@
+package fr.ebiz.computerdatabase.io;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+
+/**
+ * Read computer records from newline delimited JSON, one object per line.
+ * <p>
+ * Objects have the name, introduced, discontinued and company properties, other properties are ignored.
+ * Lines are limited in length, a longer line is rejected without being buffered.
+ */
+class NdjsonComputerRecordReader implements ComputerRecordReader {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final int MAX_LINE_LENGTH = 16 * 1024;
+
+    private final BufferedReader reader;
+    private long line;
+
+    /**
+     * Constructor.
+     *
+     * @param reader The reader to parse
+     */
+    NdjsonComputerRecordReader(BufferedReader reader) {
+        this.reader = reader;
+    }
+
+    @Override
+    public ComputerRecord next() throws IOException {
+        String json;
+        do {
+            line++;
+            json = readLine();
+            if (json == null) {
+                return null;
+            }
+        } while (json.trim().isEmpty());
+
+        try {
+            ComputerRecord record = MAPPER.readValue(json, ComputerRecord.class);
+            record.setLine(line);
+            return record;
+        } catch (JsonProcessingException e) {
+            throw new RecordFormatException(line, "Invalid JSON: " + e.getOriginalMessage());
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    /**
+     * Read the next line, at most {@link #MAX_LINE_LENGTH} characters long.
+     *
+     * @return The line without its line break or null at the end of the input
+     * @throws IOException if the input can't be read
+     */
+    private String readLine() throws IOException {
+        int c = reader.read();
+        if (c == -1) {
+            return null;
+        }
+        StringBuilder json = new StringBuilder();
+        while (c != -1 && c != '\n') {
+            if (json.length() == MAX_LINE_LENGTH) {
+                while (c != -1 && c != '\n') {
+                    c = reader.read();
+                }
+                throw new RecordFormatException(line, "Line longer than " + MAX_LINE_LENGTH + " characters");
+            }
+            json.append((char) c);
+            c = reader.read();
+        }
+        return json.toString();
+    }
+}
@@ -0,0 +1,36 @@
+package fr.ebiz.computerdatabase.io;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Write computer records as newline delimited JSON, one object per line.
+ */
+class NdjsonComputerRecordWriter implements ComputerRecordWriter {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final Writer writer;
+
+    /**
+     * Constructor.
+     *
+     * @param writer The writer to write to
+     */
+    NdjsonComputerRecordWriter(Writer writer) {
+        this.writer = writer;
+    }
+
+    @Override
+    public void write(ComputerRecord record) throws IOException {
+        writer.write(MAPPER.writeValueAsString(record));
+        writer.write('\n');
+    }
+
+    @Override
+    public void flush() throws IOException {
+        writer.flush();
+    }
+}
@@ -0,0 +1,21 @@
+package fr.ebiz.computerdatabase.io;
+
+public class RecordFormatException extends RuntimeException {
+
+    private final long line;
+
+    /**
+     * Constructor.
+     *
+     * @param line    The line of the malformed record
+     * @param message The error message
+     */
+    public RecordFormatException(long line, String message) {
+        super(message);
+        this.line = line;
+    }
+
+    public long getLine() {
+        return line;
+    }
+}
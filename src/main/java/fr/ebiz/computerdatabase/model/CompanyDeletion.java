@@ -0,0 +1,77 @@
+package fr.ebiz.computerdatabase.model;
+
+import java.io.Serializable;
+
+/**
+ * Progress of the incremental deletion of a company and its computers.
+ * <p>
+ * Computers are deleted in id order, so the last deleted id is enough to resume the deletion.
+ */
+public class CompanyDeletion implements Serializable {
+
+    private final int companyId;
+    private final int lastComputerId;
+    private final int deletedComputers;
+    private final boolean finished;
+
+    /**
+     * Constructor.
+     *
+     * @param companyId        The id of the company being deleted
+     * @param lastComputerId   The id of the last deleted computer, 0 if none was deleted
+     * @param deletedComputers The number of computers deleted so far
+     * @param finished         Whether the company itself is deleted
+     */
+    public CompanyDeletion(int companyId, int lastComputerId, int deletedComputers, boolean finished) {
+        this.companyId = companyId;
+        this.lastComputerId = lastComputerId;
+        this.deletedComputers = deletedComputers;
+        this.finished = finished;
+    }
+
+    /**
+     * Get the progress after deleting another chunk of computers.
+     *
+     * @param lastId  The id of the last computer of the chunk
+     * @param deleted The number of computers of the chunk
+     * @return The new progress
+     */
+    public CompanyDeletion advance(int lastId, int deleted) {
+        return new CompanyDeletion(companyId, lastId, deletedComputers + deleted, false);
+    }
+
+    /**
+     * Get the progress once the company is deleted.
+     *
+     * @return The final progress
+     */
+    public CompanyDeletion finish() {
+        return new CompanyDeletion(companyId, lastComputerId, deletedComputers, true);
+    }
+
+    public int getCompanyId() {
+        return companyId;
+    }
+
+    public int getLastComputerId() {
+        return lastComputerId;
+    }
+
+    public int getDeletedComputers() {
+        return deletedComputers;
+    }
+
+    public boolean isFinished() {
+        return finished;
+    }
+
+    @Override
+    public String toString() {
+        return "CompanyDeletion{" +
+                "companyId=" + companyId +
+                ", lastComputerId=" + lastComputerId +
+                ", deletedComputers=" + deletedComputers +
+                ", finished=" + finished +
+                '}';
+    }
+}
@@ -0,0 +1,102 @@
+package fr.ebiz.computerdatabase.model;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.Objects;
+
+/**
+ * Aggregates of the computers of a company, maintained along with the computer writes.
+ * A computer is active while it has no discontinued date.
+ */
+public class CompanyStats implements Serializable {
+
+    private final int companyId;
+    private final int computers;
+    private final int activeComputers;
+    private final LocalDate firstIntroduced;
+    private final LocalDate lastIntroduced;
+
+    /**
+     * Constructor.
+     *
+     * @param companyId       The id of the company
+     * @param computers       The number of computers of the company
+     * @param activeComputers The number of computers without a discontinued date
+     * @param firstIntroduced The earliest introduced date or null
+     * @param lastIntroduced  The latest introduced date or null
+     */
+    public CompanyStats(int companyId, int computers, int activeComputers, LocalDate firstIntroduced, LocalDate lastIntroduced) {
+        this.companyId = companyId;
+        this.computers = computers;
+        this.activeComputers = activeComputers;
+        this.firstIntroduced = firstIntroduced;
+        this.lastIntroduced = lastIntroduced;
+    }
+
+    /**
+     * Get the statistics of a company without computers.
+     *
+     * @param companyId The id of the company
+     * @return The empty statistics
+     */
+    public static CompanyStats empty(int companyId) {
+        return new CompanyStats(companyId, 0, 0, null, null);
+    }
+
+    public int getCompanyId() {
+        return companyId;
+    }
+
+    public int getComputers() {
+        return computers;
+    }
+
+    public int getActiveComputers() {
+        return activeComputers;
+    }
+
+    @JsonSerialize(using = ToStringSerializer.class)
+    public LocalDate getFirstIntroduced() {
+        return firstIntroduced;
+    }
+
+    @JsonSerialize(using = ToStringSerializer.class)
+    public LocalDate getLastIntroduced() {
+        return lastIntroduced;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        CompanyStats that = (CompanyStats) o;
+        return companyId == that.companyId
+                && computers == that.computers
+                && activeComputers == that.activeComputers
+                && Objects.equals(firstIntroduced, that.firstIntroduced)
+                && Objects.equals(lastIntroduced, that.lastIntroduced);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(companyId, computers, activeComputers, firstIntroduced, lastIntroduced);
+    }
+
+    @Override
+    public String toString() {
+        return "CompanyStats{" +
+                "companyId=" + companyId +
+                ", computers=" + computers +
+                ", activeComputers=" + activeComputers +
+                ", firstIntroduced=" + firstIntroduced +
+                ", lastIntroduced=" + lastIntroduced +
+                '}';
+    }
+}
@@ -0,0 +1,215 @@
+package fr.ebiz.computerdatabase.model;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A long-running operation run in the background, persisted so that its status survives restarts.
+ */
+public class Job implements Serializable {
+
+    private Long id;
+    private JobType type;
+    private JobStatus status;
+    private Map<String, String> parameters = Collections.emptyMap();
+    private int progress;
+    private Integer total;
+    private boolean cancelRequested;
+    private String result;
+    private String owner;
+
+    /**
+     * Create a Job builder instance.
+     *
+     * @return a new job builder
+     */
+    public static JobBuilder builder() {
+        return new JobBuilder();
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public JobType getType() {
+        return type;
+    }
+
+    public JobStatus getStatus() {
+        return status;
+    }
+
+    public Map<String, String> getParameters() {
+        return parameters;
+    }
+
+    /**
+     * Get a parameter of the job.
+     *
+     * @param name The name of the parameter
+     * @return The value of the parameter
+     */
+    public String getParameter(String name) {
+        String value = parameters.get(name);
+        if (value == null) {
+            throw new IllegalArgumentException("Missing job parameter " + name);
+        }
+        return value;
+    }
+
+    public int getProgress() {
+        return progress;
+    }
+
+    public Integer getTotal() {
+        return total;
+    }
+
+    public boolean isCancelRequested() {
+        return cancelRequested;
+    }
+
+    public String getResult() {
+        return result;
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    @Override
+    public String toString() {
+        return "Job{" +
+                "id=" + id +
+                ", type=" + type +
+                ", status=" + status +
+                ", progress=" + progress +
+                ", total=" + total +
+                '}';
+    }
+
+    public static class JobBuilder {
+        private final Job job;
+
+        /**
+         * Create a new job object to build.
+         */
+        JobBuilder() {
+            job = new Job();
+        }
+
+        /**
+         * Set the id.
+         *
+         * @param id The id to set
+         * @return The builder
+         */
+        public JobBuilder id(Long id) {
+            job.id = id;
+            return this;
+        }
+
+        /**
+         * Set the type.
+         *
+         * @param type The type to set
+         * @return The builder
+         */
+        public JobBuilder type(JobType type) {
+            job.type = type;
+            return this;
+        }
+
+        /**
+         * Set the status.
+         *
+         * @param status The status to set
+         * @return The builder
+         */
+        public JobBuilder status(JobStatus status) {
+            job.status = status;
+            return this;
+        }
+
+        /**
+         * Set the parameters.
+         *
+         * @param parameters The parameters to set, copied
+         * @return The builder
+         */
+        public JobBuilder parameters(Map<String, String> parameters) {
+            job.parameters = Collections.unmodifiableMap(new HashMap<>(parameters));
+            return this;
+        }
+
+        /**
+         * Set the number of items processed so far.
+         *
+         * @param progress The progress to set
+         * @return The builder
+         */
+        public JobBuilder progress(int progress) {
+            job.progress = progress;
+            return this;
+        }
+
+        /**
+         * Set the number of items to process.
+         *
+         * @param total The total to set, null if unknown
+         * @return The builder
+         */
+        public JobBuilder total(Integer total) {
+            job.total = total;
+            return this;
+        }
+
+        /**
+         * Set whether the cancellation of the job was requested.
+         *
+         * @param cancelRequested true if the job must stop
+         * @return The builder
+         */
+        public JobBuilder cancelRequested(boolean cancelRequested) {
+            job.cancelRequested = cancelRequested;
+            return this;
+        }
+
+        /**
+         * Set the result, or the error of a failed job.
+         *
+         * @param result The result to set
+         * @return The builder
+         */
+        public JobBuilder result(String result) {
+            job.result = result;
+            return this;
+        }
+
+        /**
+         * Set the instance queuing or running the job.
+         *
+         * @param owner The name of the instance
+         * @return The builder
+         */
+        public JobBuilder owner(String owner) {
+            job.owner = owner;
+            return this;
+        }
+
+        /**
+         * Return the built instance of Job.
+         *
+         * @return the job
+         */
+        public Job build() {
+            return job;
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package fr.ebiz.computerdatabase.model;
+
+/**
+ * The lifecycle of a background job.
+ */
+public enum JobStatus {
+    PENDING, RUNNING, SUCCEEDED, FAILED, CANCELLED;
+
+    /**
+     * Check whether a job in this status will not change anymore.
+     *
+     * @return true if the job is over
+     */
+    public boolean isFinal() {
+        return this == SUCCEEDED || this == FAILED || this == CANCELLED;
+    }
+}
@@ -0,0 +1,8 @@
+package fr.ebiz.computerdatabase.model;
+
+/**
+ * The long-running operations run as background jobs.
+ */
+public enum JobType {
+    DELETE_COMPUTERS, DELETE_COMPANY, IMPORT_COMPUTERS, EXPORT_COMPUTERS, RECONCILE_COMPANY_STATS
+}
@@ -0,0 +1,56 @@
+package fr.ebiz.computerdatabase.persistence;
+
+import java.io.Serializable;
+
+/**
+ * Number of rows matching a query, either counted or estimated.
+ */
+public final class Count implements Serializable {
+
+    private final int value;
+    private final boolean approximate;
+
+    /**
+     * Constructor.
+     *
+     * @param value       The number of rows
+     * @param approximate Whether the number is an estimate
+     */
+    private Count(int value, boolean approximate) {
+        this.value = value;
+        this.approximate = approximate;
+    }
+
+    /**
+     * Create an exact count.
+     *
+     * @param value The counted number of rows
+     * @return The count
+     */
+    public static Count exact(int value) {
+        return new Count(value, false);
+    }
+
+    /**
+     * Create an estimated count.
+     *
+     * @param value The estimated number of rows, capped to {@link Integer#MAX_VALUE}
+     * @return The count
+     */
+    public static Count approximate(long value) {
+        return new Count((int) Math.min(value, Integer.MAX_VALUE), true);
+    }
+
+    public int getValue() {
+        return value;
+    }
+
+    public boolean isApproximate() {
+        return approximate;
+    }
+
+    @Override
+    public String toString() {
+        return (approximate ? "~" : "") + value;
+    }
+}
@@ -0,0 +1,229 @@
+package fr.ebiz.computerdatabase.persistence;
+
+import fr.ebiz.computerdatabase.dto.ComputerDto;
+import fr.ebiz.computerdatabase.model.Computer;
+import fr.ebiz.computerdatabase.persistence.dao.ComputerDao.SortColumn;
+import fr.ebiz.computerdatabase.persistence.dao.DaoUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.Serializable;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Objects;
+
+/**
+ * Key of a row in a sorted result, used for keyset (seek) pagination.
+ * <p>
+ * A cursor holds the values of every {@link SortColumn#getKeys() sort key} of a row, tie-breaker included,
+ * so that the next page can be fetched with a WHERE clause instead of an OFFSET.
+ * It is exchanged with clients as an opaque URL-safe token.
+ */
+public final class Cursor implements Serializable {
+
+    private static final byte NULL_VALUE = 0;
+    private static final byte STRING_VALUE = 1;
+    private static final byte TIMESTAMP_VALUE = 2;
+    private static final byte INTEGER_VALUE = 3;
+
+    private final SortColumn column;
+    private final SortOrder order;
+    private final Object[] values;
+
+    /**
+     * Constructor.
+     *
+     * @param column The column the rows are sorted with
+     * @param order  The sort order
+     * @param values The values of the sort keys
+     */
+    private Cursor(SortColumn column, SortOrder order, Object[] values) {
+        if (values.length != column.getKeys().length) {
+            throw new IllegalArgumentException("Cursor values do not match the sort column " + column);
+        }
+        this.column = column;
+        this.order = order;
+        this.values = values;
+    }
+
+    /**
+     * Create the cursor of a computer.
+     *
+     * @param computer The computer to get the key of
+     * @param column   The column the rows are sorted with
+     * @param order    The sort order
+     * @return The cursor pointing on the computer
+     */
+    public static Cursor of(Computer computer, SortColumn column, SortOrder order) {
+        switch (column) {
+            case INTRODUCED:
+                return new Cursor(column, order, new Object[]{DaoUtils.toTimestamp(computer.getIntroduced()), computer.getName(), computer.getId()});
+            case DISCONTINUED:
+                return new Cursor(column, order, new Object[]{DaoUtils.toTimestamp(computer.getDiscontinued()), computer.getName(), computer.getId()});
+            case COMPANY:
+                String companyName = computer.getCompany() != null ? computer.getCompany().getName() : null;
+                return new Cursor(column, order, new Object[]{companyName, computer.getName(), computer.getId()});
+            case NAME:
+            default:
+                return new Cursor(column, order, new Object[]{computer.getName(), computer.getId()});
+        }
+    }
+
+    /**
+     * Create the cursor of a computer DTO.
+     *
+     * @param computer The computer to get the key of
+     * @param column   The column the rows are sorted with
+     * @param order    The sort order
+     * @return The cursor pointing on the computer
+     */
+    public static Cursor of(ComputerDto computer, SortColumn column, SortOrder order) {
+        switch (column) {
+            case INTRODUCED:
+                return new Cursor(column, order, new Object[]{DaoUtils.toTimestamp(computer.getIntroduced()), computer.getName(), computer.getId()});
+            case DISCONTINUED:
+                return new Cursor(column, order, new Object[]{DaoUtils.toTimestamp(computer.getDiscontinued()), computer.getName(), computer.getId()});
+            case COMPANY:
+                return new Cursor(column, order, new Object[]{computer.getCompanyName(), computer.getName(), computer.getId()});
+            case NAME:
+            default:
+                return new Cursor(column, order, new Object[]{computer.getName(), computer.getId()});
+        }
+    }
+
+    /**
+     * Decode a cursor token.
+     *
+     * @param token The token created by {@link #encode()}
+     * @return The decoded cursor
+     */
+    public static Cursor decode(String token) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(Base64.getUrlDecoder().decode(token)))) {
+            SortColumn column = SortColumn.valueOf(in.readUTF());
+            SortOrder order = SortOrder.valueOf(in.readUTF());
+            Object[] values = new Object[in.readUnsignedByte()];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = readValue(in);
+            }
+            return new Cursor(column, order, values);
+        } catch (IOException | IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor " + token, e);
+        }
+    }
+
+    /**
+     * Encode the cursor to an opaque URL-safe token.
+     *
+     * @return The token
+     */
+    public String encode() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeUTF(column.name());
+            out.writeUTF(order.name());
+            out.writeByte(values.length);
+            for (Object value : values) {
+                writeValue(out, value);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes.toByteArray());
+    }
+
+    public SortColumn getColumn() {
+        return column;
+    }
+
+    public SortOrder getOrder() {
+        return order;
+    }
+
+    /**
+     * Get the values of the sort keys, in the order of {@link SortColumn#getKeys()}.
+     *
+     * @return A copy of the values
+     */
+    public Object[] getValues() {
+        return values.clone();
+    }
+
+    /**
+     * Check whether the cursor can be used to seek rows sorted with a column and an order.
+     *
+     * @param sortColumn The requested sort column
+     * @param sortOrder  The requested sort order
+     * @return true if the cursor was created with the same sort
+     */
+    public boolean matches(SortColumn sortColumn, SortOrder sortOrder) {
+        return column == sortColumn && order == sortOrder;
+    }
+
+    /**
+     * Write a key value.
+     *
+     * @param out   The output
+     * @param value The value to write
+     * @throws IOException if the value can't be written
+     */
+    private static void writeValue(DataOutputStream out, Object value) throws IOException {
+        if (value == null) {
+            out.writeByte(NULL_VALUE);
+        } else if (value instanceof String) {
+            out.writeByte(STRING_VALUE);
+            out.writeUTF((String) value);
+        } else if (value instanceof Timestamp) {
+            out.writeByte(TIMESTAMP_VALUE);
+            out.writeLong(((Timestamp) value).getTime());
+        } else {
+            out.writeByte(INTEGER_VALUE);
+            out.writeInt((Integer) value);
+        }
+    }
+
+    /**
+     * Read a key value.
+     *
+     * @param in The input
+     * @return The read value
+     * @throws IOException if the value can't be read
+     */
+    private static Object readValue(DataInputStream in) throws IOException {
+        byte type = in.readByte();
+        switch (type) {
+            case NULL_VALUE:
+                return null;
+            case STRING_VALUE:
+                return in.readUTF();
+            case TIMESTAMP_VALUE:
+                return new Timestamp(in.readLong());
+            case INTEGER_VALUE:
+                return in.readInt();
+            default:
+                throw new IOException("Unknown value type " + type);
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        Cursor cursor = (Cursor) o;
+        return column == cursor.column &&
+                order == cursor.order &&
+                Arrays.equals(values, cursor.values);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(column, order, Arrays.hashCode(values));
+    }
+}
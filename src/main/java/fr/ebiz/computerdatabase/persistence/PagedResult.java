@@ -0,0 +1,34 @@
+package fr.ebiz.computerdatabase.persistence;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * Rows of a page fetched along with the total number of rows matching the query.
+ *
+ * @param <T> The type of the rows
+ */
+public class PagedResult<T> implements Serializable {
+
+    private final List<T> elements;
+    private final int totalElements;
+
+    /**
+     * Constructor.
+     *
+     * @param elements      The rows of the page
+     * @param totalElements The total number of rows matching the query
+     */
+    public PagedResult(List<T> elements, int totalElements) {
+        this.elements = elements;
+        this.totalElements = totalElements;
+    }
+
+    public List<T> getElements() {
+        return elements;
+    }
+
+    public int getTotalElements() {
+        return totalElements;
+    }
+}
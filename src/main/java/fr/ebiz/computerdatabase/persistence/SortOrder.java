@@ -1,5 +1,14 @@
 package fr.ebiz.computerdatabase.persistence;
 
 public enum SortOrder {
-    ASC, DESC
-}
+    ASC, DESC;
+
+    /**
+     * Get the opposite sort order.
+     *
+     * @return DESC for ASC and ASC for DESC
+     */
+    public SortOrder reverse() {
+        return this == ASC ? DESC : ASC;
+    }
+}
\ No newline at end of file
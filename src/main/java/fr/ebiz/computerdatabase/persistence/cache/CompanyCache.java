@@ -0,0 +1,114 @@
+package fr.ebiz.computerdatabase.persistence.cache;
+
+import fr.ebiz.computerdatabase.model.Company;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Cache of the company lookups by id, missing companies included.
+ * <p>
+ * Companies are almost never changed, so that validating the company of a computer or filling a form
+ * rarely needs a round trip. Entries are invalidated when a company is deleted and expire after a time to live.
+ */
+@Component
+@ManagedResource(objectName = "fr.ebiz.computerdatabase:type=Cache,name=companies", description = "Company lookup cache")
+public class CompanyCache {
+
+    private final LruCache<Integer, Optional<Company>> cache;
+
+    /**
+     * Constructor.
+     *
+     * @param maxSize   The maximum number of cached companies
+     * @param ttlMillis The number of milliseconds a company is cached
+     */
+    @Autowired
+    public CompanyCache(@Value("${companyCache.maxSize:10000}") int maxSize, @Value("${companyCache.ttl:600000}") long ttlMillis) {
+        this.cache = new LruCache<>(maxSize, ttlMillis);
+    }
+
+    /**
+     * Get a company, loading it on a miss.
+     *
+     * @param id     The company id
+     * @param loader The function loading a company by id
+     * @return The company if it exists or Optional.empty() if it does not
+     */
+    public Optional<Company> get(int id, Function<Integer, Optional<Company>> loader) {
+        return cache.get(id, loader);
+    }
+
+    /**
+     * Remove a company from the cache.
+     *
+     * @param id The company id
+     */
+    public void invalidate(int id) {
+        cache.invalidate(id);
+    }
+
+    /**
+     * Remove every company from the cache.
+     */
+    @ManagedOperation(description = "Remove every company from the cache")
+    public void clear() {
+        cache.clear();
+    }
+
+    /**
+     * Get the number of cached companies.
+     *
+     * @return The number of entries
+     */
+    @ManagedAttribute(description = "Number of cached companies")
+    public int getSize() {
+        return cache.size();
+    }
+
+    /**
+     * Get the number of lookups served by the cache.
+     *
+     * @return The hit count
+     */
+    @ManagedAttribute(description = "Lookups served by the cache")
+    public long getHits() {
+        return cache.getHits();
+    }
+
+    /**
+     * Get the number of lookups that hit the database.
+     *
+     * @return The miss count
+     */
+    @ManagedAttribute(description = "Lookups that hit the database")
+    public long getMisses() {
+        return cache.getMisses();
+    }
+
+    /**
+     * Get the number of companies evicted to make room.
+     *
+     * @return The eviction count
+     */
+    @ManagedAttribute(description = "Companies evicted to make room")
+    public long getEvictions() {
+        return cache.getEvictions();
+    }
+
+    /**
+     * Get the ratio of the lookups served by the cache.
+     *
+     * @return The hit ratio between 0 and 1
+     */
+    @ManagedAttribute(description = "Ratio of the lookups served by the cache")
+    public double getHitRatio() {
+        return cache.getHitRatio();
+    }
+}
@@ -0,0 +1,175 @@
+package fr.ebiz.computerdatabase.persistence.cache;
+
+import fr.ebiz.computerdatabase.persistence.Count;
+import fr.ebiz.computerdatabase.persistence.routing.ReplicaRoutingDataSource;
+import fr.ebiz.computerdatabase.utils.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * Cache of the number of computers matching a search query.
+ * <p>
+ * Entries are keyed by the normalized query, whether the count may be approximate and the {@link WriteEpoch}
+ * they were counted in, so that any write
+ * to the computers invalidates every count. Counts of previous epochs are never read again and are the first
+ * to be evicted.
+ * <p>
+ * A user who just wrote reads from the primary while the replicas may lag behind: its counts bypass the cache,
+ * which may hold replica counts of the current epoch, and are not cached either.
+ */
+@Component
+@ManagedResource(objectName = "fr.ebiz.computerdatabase:type=Cache,name=counts", description = "Computer count cache")
+public class CountCache {
+
+    private static final String EXACT_SEPARATOR = ":";
+    private static final String APPROXIMATE_SEPARATOR = "~";
+
+    private final WriteEpoch writeEpoch;
+    private final ReplicaRoutingDataSource routingDataSource;
+    private final LruCache<String, Count> cache;
+
+    /**
+     * Constructor.
+     *
+     * @param writeEpoch        The write epoch invalidating the counts
+     * @param routingDataSource The DataSource telling whether the current user reads its own writes
+     * @param maxSize           The maximum number of cached counts
+     * @param ttlMillis         The number of milliseconds a count is cached
+     */
+    @Autowired
+    public CountCache(WriteEpoch writeEpoch, ReplicaRoutingDataSource routingDataSource,
+                      @Value("${countCache.maxSize:1000}") int maxSize, @Value("${countCache.ttl:60000}") long ttlMillis) {
+        this.writeEpoch = writeEpoch;
+        this.routingDataSource = routingDataSource;
+        this.cache = new LruCache<>(maxSize, ttlMillis);
+    }
+
+    /**
+     * Get the number of computers matching a query, counting them asynchronously on a miss.
+     *
+     * @param query       The search query
+     * @param approximate Whether the count may be an estimate
+     * @param counter     The function starting the count of the computers matching a query
+     * @return The number of matching computers, once known
+     */
+    public CompletableFuture<Count> getAsync(String query, boolean approximate, Function<String, CompletableFuture<Count>> counter) {
+        if (routingDataSource.isReadingYourWrites()) {
+            return counter.apply(query);
+        }
+        String key = key(query, approximate, writeEpoch.getEpoch());
+        Count count = cache.getIfPresent(key);
+        if (count != null) {
+            return CompletableFuture.completedFuture(count);
+        }
+        // A write during the count bumps the epoch, so the count is stored under a key that is never read again
+        return counter.apply(query).thenApply(counted -> {
+            cache.put(key, counted);
+            return counted;
+        });
+    }
+
+    /**
+     * Get the cached exact number of computers matching a query.
+     *
+     * @param query The search query
+     * @return The number of matching computers or null if it is not cached
+     */
+    public Count getIfPresent(String query) {
+        if (routingDataSource.isReadingYourWrites()) {
+            return null;
+        }
+        return cache.getIfPresent(key(query, false, writeEpoch.getEpoch()));
+    }
+
+    /**
+     * Cache the exact number of computers matching a query, counted along with another query.
+     *
+     * @param query The search query
+     * @param epoch The epoch read before counting
+     * @param count The number of matching computers
+     */
+    public void put(String query, long epoch, int count) {
+        if (routingDataSource.isReadingYourWrites()) {
+            return;
+        }
+        // A count read in a previous epoch is stored under a key that is never read again
+        cache.put(key(query, false, epoch), Count.exact(count));
+    }
+
+    /**
+     * Remove every count from the cache.
+     */
+    @ManagedOperation(description = "Remove every count from the cache")
+    public void clear() {
+        cache.clear();
+    }
+
+    /**
+     * Get the number of cached counts, those of previous epochs included.
+     *
+     * @return The number of entries
+     */
+    @ManagedAttribute(description = "Number of cached counts")
+    public int getSize() {
+        return cache.size();
+    }
+
+    /**
+     * Get the number of counts served by the cache.
+     *
+     * @return The hit count
+     */
+    @ManagedAttribute(description = "Counts served by the cache")
+    public long getHits() {
+        return cache.getHits();
+    }
+
+    /**
+     * Get the number of counts that hit the database.
+     *
+     * @return The miss count
+     */
+    @ManagedAttribute(description = "Counts that hit the database")
+    public long getMisses() {
+        return cache.getMisses();
+    }
+
+    /**
+     * Get the number of counts evicted to make room.
+     *
+     * @return The eviction count
+     */
+    @ManagedAttribute(description = "Counts evicted to make room")
+    public long getEvictions() {
+        return cache.getEvictions();
+    }
+
+    /**
+     * Get the ratio of the counts served by the cache.
+     *
+     * @return The hit ratio between 0 and 1
+     */
+    @ManagedAttribute(description = "Ratio of the counts served by the cache")
+    public double getHitRatio() {
+        return cache.getHitRatio();
+    }
+
+    /**
+     * Build the key of a count.
+     *
+     * @param query       The search query
+     * @param approximate Whether the count may be an estimate
+     * @param epoch       The epoch the count is read in
+     * @return The key
+     */
+    private static String key(String query, boolean approximate, long epoch) {
+        return epoch + (approximate ? APPROXIMATE_SEPARATOR : EXACT_SEPARATOR) + StringUtils.cleanString(query);
+    }
+}
@@ -0,0 +1,180 @@
+package fr.ebiz.computerdatabase.persistence.cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Bounded thread-safe cache evicting the least recently used entry, entries also expiring after a time to live.
+ * <p>
+ * Values are loaded outside of the lock. An invalidation during a load prevents the loaded value from being
+ * cached, so that a value read before a change never overwrites the invalidation of that change.
+ *
+ * @param <K> The type of the keys
+ * @param <V> The type of the values
+ */
+public class LruCache<K, V> {
+
+    private final int maxSize;
+    private final long ttlNanos;
+    private final Map<K, Entry<V>> entries;
+    private long generation;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Constructor.
+     *
+     * @param maxSize   The maximum number of entries
+     * @param ttlMillis The number of milliseconds an entry is valid
+     */
+    public LruCache(int maxSize, long ttlMillis) {
+        if (maxSize <= 0 || ttlMillis <= 0) {
+            throw new IllegalArgumentException("Cache size and time to live must be > 0");
+        }
+        this.maxSize = maxSize;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+        this.entries = new LinkedHashMap<K, Entry<V>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                boolean evict = size() > LruCache.this.maxSize;
+                if (evict) {
+                    evictions.increment();
+                }
+                return evict;
+            }
+        };
+    }
+
+    /**
+     * Get the value of a key, loading and caching it if it is missing or expired.
+     *
+     * @param key    The key
+     * @param loader The function loading the value of a key, must not return null
+     * @return The value
+     */
+    public V get(K key, Function<K, V> loader) {
+        long loadGeneration;
+        synchronized (this) {
+            Entry<V> entry = entries.get(key);
+            if (entry != null && entry.expiresAt - System.nanoTime() > 0) {
+                hits.increment();
+                return entry.value;
+            }
+            misses.increment();
+            loadGeneration = generation;
+        }
+
+        V value = loader.apply(key);
+        synchronized (this) {
+            if (loadGeneration == generation) {
+                entries.put(key, new Entry<>(value, System.nanoTime() + ttlNanos));
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Get the value of a key without loading it.
+     *
+     * @param key The key
+     * @return The value or null if it is missing or expired
+     */
+    public V getIfPresent(K key) {
+        synchronized (this) {
+            Entry<V> entry = entries.get(key);
+            if (entry != null && entry.expiresAt - System.nanoTime() > 0) {
+                hits.increment();
+                return entry.value;
+            }
+        }
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * Cache the value of a key loaded by the caller.
+     *
+     * @param key   The key
+     * @param value The value, must not be null
+     */
+    public synchronized void put(K key, V value) {
+        entries.put(key, new Entry<>(value, System.nanoTime() + ttlNanos));
+    }
+
+    /**
+     * Remove the entry of a key.
+     *
+     * @param key The key
+     */
+    public synchronized void invalidate(K key) {
+        generation++;
+        entries.remove(key);
+    }
+
+    /**
+     * Remove every entry.
+     */
+    public synchronized void clear() {
+        generation++;
+        entries.clear();
+    }
+
+    /**
+     * Get the number of entries, expired ones included.
+     *
+     * @return The number of entries
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * Get the ratio of the lookups served by the cache.
+     *
+     * @return The hit ratio between 0 and 1, 0 if there was no lookup
+     */
+    public double getHitRatio() {
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    /**
+     * Cached value and its expiration time.
+     *
+     * @param <V> The type of the value
+     */
+    private static final class Entry<V> {
+
+        private final V value;
+        private final long expiresAt;
+
+        /**
+         * Constructor.
+         *
+         * @param value     The value
+         * @param expiresAt The {@link System#nanoTime()} the value expires at
+         */
+        private Entry(V value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package fr.ebiz.computerdatabase.persistence.cache;
+
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Global counter of the writes to the computers, bumped by the services whenever the computers change.
+ * <p>
+ * Cached query results are tagged with the epoch they were read in and are only valid while it is current,
+ * which invalidates them all at once without walking the caches.
+ */
+@Component
+@ManagedResource(objectName = "fr.ebiz.computerdatabase:type=Cache,name=writeEpoch", description = "Computer write epoch")
+public class WriteEpoch {
+
+    private final AtomicLong epoch = new AtomicLong();
+
+    /**
+     * Get the current epoch, to be read before the query whose result is cached.
+     *
+     * @return The current epoch
+     */
+    @ManagedAttribute(description = "Current write epoch")
+    public long getEpoch() {
+        return epoch.get();
+    }
+
+    /**
+     * Start a new epoch, invalidating every result read in the previous ones.
+     */
+    public void bump() {
+        epoch.incrementAndGet();
+    }
+}
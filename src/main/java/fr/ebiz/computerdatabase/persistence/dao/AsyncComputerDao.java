@@ -0,0 +1,29 @@
+package fr.ebiz.computerdatabase.persistence.dao;
+
+import fr.ebiz.computerdatabase.persistence.Count;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Computer reads run on the DAO executor, so that the caller can issue another statement meanwhile.
+ * <p>
+ * The executor has a bounded number of threads, each holding at most one connection on top of the request threads.
+ */
+public interface AsyncComputerDao {
+
+    /**
+     * Count the computers matching a query.
+     *
+     * @param query The query to search computer of company name
+     * @return The number of matching computers, once counted
+     */
+    CompletableFuture<Integer> count(String query);
+
+    /**
+     * Count the computers matching a query, estimating the total when it is large.
+     *
+     * @param query The query to search computer of company name
+     * @return The exact or approximate number of matching computers, once counted
+     */
+    CompletableFuture<Count> countApproximately(String query);
+}
@@ -2,6 +2,7 @@ package fr.ebiz.computerdatabase.persistence.dao;
 
 import fr.ebiz.computerdatabase.model.Company;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -25,7 +26,36 @@ public interface CompanyDao {
     List<Company> getAll(int pageSize, int offset);
 
     /**
-     * Delete a company from the database.
+     * Get the companies having one of the given names, in a single query.
+     *
+     * @param names The names to look for
+     * @return The matching companies
+     */
+    List<Company> getByNames(Collection<String> names);
+
+    /**
+     * Get the companies whose name starts with a prefix, sorted by name then id.
+     * Pages are fetched with a keyset: the next page starts after the last company of the previous one.
+     *
+     * @param prefix The beginning of the name, case insensitive
+     * @param after  The last company of the previous page or null for the first page
+     * @param limit  The maximum number of companies to get
+     * @return The matching companies
+     */
+    List<Company> search(String prefix, Company after, int limit);
+
+    /**
+     * Rename a company, along with the copy of its name on its computers, and bump the version of the companies.
+     * The updates must run in the same transaction.
+     *
+     * @param id   The company's id
+     * @param name The new name
+     * @return true if the company was renamed
+     */
+    boolean rename(int id, String name);
+
+    /**
+     * Delete a company from the database, along with its statistics, and bump the version of the companies.
      *
      * @param id         The company's id to delete
      * @return true if the company was deleted
@@ -38,4 +68,11 @@ public interface CompanyDao {
      * @return the total number of elements
      */
     int count();
+
+    /**
+     * Get the version of the companies, bumped by every rename and deletion from any process.
+     *
+     * @return The version
+     */
+    long getVersion();
 }
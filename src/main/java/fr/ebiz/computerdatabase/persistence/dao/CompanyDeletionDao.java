@@ -0,0 +1,48 @@
+package fr.ebiz.computerdatabase.persistence.dao;
+
+import fr.ebiz.computerdatabase.model.CompanyDeletion;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface CompanyDeletionDao {
+
+    /**
+     * Record that a company is being deleted, unless it already is.
+     *
+     * @param companyId The id of the company
+     * @return The progress of the deletion, from the start or from where it stopped
+     */
+    CompanyDeletion start(int companyId);
+
+    /**
+     * Get the progress of the deletion of a company.
+     *
+     * @param companyId The id of the company
+     * @return The progress or Optional.empty() if the company is not being deleted
+     */
+    Optional<CompanyDeletion> get(int companyId);
+
+    /**
+     * Get the deletions that were started and not finished, in the order they were started.
+     *
+     * @return The progress of each pending deletion
+     */
+    List<CompanyDeletion> getAll();
+
+    /**
+     * Record the progress of a deletion.
+     *
+     * @param deletion The progress to record
+     * @return true if the deletion was recorded
+     */
+    boolean update(CompanyDeletion deletion);
+
+    /**
+     * Forget a deletion once the company is deleted.
+     *
+     * @param companyId The id of the company
+     * @return true if the deletion was recorded
+     */
+    boolean delete(int companyId);
+}
@@ -0,0 +1,90 @@
+package fr.ebiz.computerdatabase.persistence.dao;
+
+import fr.ebiz.computerdatabase.model.CompanyStats;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Access to the per-company aggregates of the computers.
+ * The computer writes apply their deltas in the same transaction, the reconciliation recomputes them from the computers.
+ */
+public interface CompanyStatsDao {
+
+    /**
+     * Get the statistics of a company.
+     *
+     * @param companyId The id of the company
+     * @return The statistics or Optional.empty() if the company never had a computer
+     */
+    Optional<CompanyStats> get(int companyId);
+
+    /**
+     * Read the contribution of computers to the statistics of their companies, locking the computers.
+     *
+     * @param computerIds The ids of the computers
+     * @return The deltas the computers add, by company id
+     */
+    Map<Integer, Delta> readDeltas(Collection<Integer> computerIds);
+
+    /**
+     * Apply deltas to the statistics of companies, then recompute their introduced date range.
+     *
+     * @param deltas The deltas by company id
+     */
+    void apply(Map<Integer, Delta> deltas);
+
+    /**
+     * Recompute the statistics of a company from its computers.
+     *
+     * @param companyId The id of the company
+     * @return true if the stored statistics were wrong
+     */
+    boolean reconcile(int companyId);
+
+    /**
+     * Delete the statistics of the companies which no longer exist.
+     *
+     * @return The number of deleted statistics
+     */
+    int deleteOrphans();
+
+    /**
+     * Delete the statistics of a company.
+     *
+     * @param companyId The id of the company
+     * @return true if the statistics were deleted
+     */
+    boolean delete(int companyId);
+
+    /**
+     * Change of the statistics of a company, accumulated over the computers of a write.
+     */
+    final class Delta {
+
+        private int computers;
+        private int activeComputers;
+
+        /**
+         * Add computers to the delta.
+         *
+         * @param computerCount The number of computers, negative for removed computers
+         * @param activeCount   The number of active computers among them, negative for removed computers
+         * @return This delta
+         */
+        public Delta add(int computerCount, int activeCount) {
+            this.computers += computerCount;
+            this.activeComputers += activeCount;
+            return this;
+        }
+
+        public int getComputers() {
+            return computers;
+        }
+
+        public int getActiveComputers() {
+            return activeComputers;
+        }
+    }
+}
@@ -1,10 +1,16 @@
 package fr.ebiz.computerdatabase.persistence.dao;
 
+import fr.ebiz.computerdatabase.dto.ComputerDto;
 import fr.ebiz.computerdatabase.model.Computer;
+import fr.ebiz.computerdatabase.persistence.Cursor;
+import fr.ebiz.computerdatabase.persistence.Count;
+import fr.ebiz.computerdatabase.persistence.PagedResult;
 import fr.ebiz.computerdatabase.persistence.SortOrder;
 
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface ComputerDao {
     /**
@@ -15,6 +21,14 @@ public interface ComputerDao {
      */
     Optional<Computer> get(int id);
 
+    /**
+     * Get the computer from the database, mapped straight from the result set to its DTO.
+     *
+     * @param id The id of the computer to get
+     * @return The computer if it exists or Optional.empty() if it does not
+     */
+    Optional<ComputerDto> getDto(int id);
+
     /**
      * Get the computers from the database paginated.
      *
@@ -27,6 +41,44 @@ public interface ComputerDao {
      */
     List<Computer> getAll(String query, int pageSize, int offset, SortColumn column, SortOrder order);
 
+    /**
+     * Get the computers from the database paginated, mapped straight from the result set to their DTOs.
+     *
+     * @param query    The query to search computer of company name
+     * @param pageSize The number of elements per page
+     * @param offset   The paging offset
+     * @param column   The column to sort with
+     * @param order    the sort order
+     * @return The paginated computers
+     */
+    List<ComputerDto> getAllDto(String query, int pageSize, int offset, SortColumn column, SortOrder order);
+
+    /**
+     * Get the computers from the database paginated along with the number of computers matching the query,
+     * with a single statement when filtered, the unfiltered count coming from the count plan of the table.
+     *
+     * @param query    The query to search computer of company name
+     * @param pageSize The number of elements per page
+     * @param offset   The paging offset
+     * @param column   The column to sort with
+     * @param order    the sort order
+     * @return The paginated computers and the total number of elements
+     */
+    PagedResult<Computer> getPage(String query, int pageSize, int offset, SortColumn column, SortOrder order);
+
+    /**
+     * Get the computers from the database paginated along with the number of computers matching the query,
+     * with a single statement when filtered, mapped straight from the result set to their DTOs.
+     *
+     * @param query    The query to search computer of company name
+     * @param pageSize The number of elements per page
+     * @param offset   The paging offset
+     * @param column   The column to sort with
+     * @param order    the sort order
+     * @return The paginated computers and the total number of elements
+     */
+    PagedResult<ComputerDto> getDtoPage(String query, int pageSize, int offset, SortColumn column, SortOrder order);
+
     /**
      * Count the number of elements in the database.
      *
@@ -35,6 +87,15 @@ public interface ComputerDao {
      */
     int count(String query);
 
+    /**
+     * Count the number of elements matching a query, estimating it when counting every row would be too slow.
+     * Unfiltered counts come from the table statistics, filtered counts above a threshold from a sample of the rows.
+     *
+     * @param query name to look for
+     * @return the exact or approximate number of elements
+     */
+    Count countApproximately(String query);
+
     /**
      * Insert a computer in the database.
      *
@@ -43,6 +104,14 @@ public interface ComputerDao {
      */
     boolean insert(Computer model);
 
+    /**
+     * Insert computers in the database with JDBC batches, and set their generated ids.
+     *
+     * @param computers The computers to insert
+     * @return The number of inserted computers
+     */
+    int insertAll(List<Computer> computers);
+
     /**
      * Update a computer in the database.
      *
@@ -68,29 +137,139 @@ public interface ComputerDao {
     boolean deleteByCompanyId(int companyId);
 
     /**
-     * Delete a list of computer from the database.
+     * Lock the next computers of a company in id order, until the end of the transaction.
+     *
+     * @param companyId The id of the company
+     * @param afterId   The id to start after, 0 to start with the first computer
+     * @param limit     The maximum number of computers to lock
+     * @return The sorted ids of the locked computers
+     */
+    List<Integer> lockIdsByCompanyId(int companyId, int afterId, int limit);
+
+    /**
+     * Delete a list of computer from the database, in chunks of ids each deleted by its own statement.
+     * Outside of a transaction, every chunk is committed on its own along with the company statistics it changes,
+     * so that no lock outlives its chunk.
      *
      * @param ids The computer's ids to delete
-     * @return true if the computers were deleted
+     * @return The number of deleted computers
+     */
+    int deleteComputers(List<Integer> ids);
+
+    /**
+     * Get the computers following a keyset cursor.
+     * The sort column and order are the ones the cursor was created with.
+     *
+     * @param query    The query to search computer of company name
+     * @param pageSize The number of elements to get
+     * @param cursor   The key of the row to seek after
+     * @return The computers sorted in the cursor order
+     */
+    List<Computer> getAllAfter(String query, int pageSize, Cursor cursor);
+
+    /**
+     * Get the computers following a keyset cursor, mapped straight from the result set to their DTOs.
+     *
+     * @param query    The query to search computer of company name
+     * @param pageSize The number of elements to get
+     * @param cursor   The key of the row to seek after
+     * @return The computers sorted in the cursor order
+     */
+    List<ComputerDto> getAllDtoAfter(String query, int pageSize, Cursor cursor);
+
+    /**
+     * Get the computers preceding a keyset cursor.
+     * The sort column and order are the ones the cursor was created with.
+     *
+     * @param query    The query to search computer of company name
+     * @param pageSize The number of elements to get
+     * @param cursor   The key of the row to seek before
+     * @return The computers sorted in the cursor order
+     */
+    List<Computer> getAllBefore(String query, int pageSize, Cursor cursor);
+
+    /**
+     * Get the computers preceding a keyset cursor, mapped straight from the result set to their DTOs.
+     *
+     * @param query    The query to search computer of company name
+     * @param pageSize The number of elements to get
+     * @param cursor   The key of the row to seek before
+     * @return The computers sorted in the cursor order
      */
-    boolean deleteComputers(List<Integer> ids);
+    List<ComputerDto> getAllDtoBefore(String query, int pageSize, Cursor cursor);
+
+    /**
+     * Stream every computer matching a query to a consumer, one row at a time.
+     * The rows are read from a forward-only streaming result set, so none of them is kept in memory.
+     * The connection is busy until the last row is consumed: the consumer must not query the database.
+     *
+     * @param query    The query to search computer of company name
+     * @param column   The column to sort by
+     * @param order    The sort order
+     * @param consumer The consumer of the rows
+     * @return The number of streamed rows
+     */
+    int stream(String query, SortColumn column, SortOrder order, Consumer<Computer> consumer);
+
+    enum SearchMode {
+        /**
+         * Substring search with LIKE '%query%', which can't use any index.
+         */
+        LIKE,
+        /**
+         * Word prefix search served by the FULLTEXT indexes on the computer and company names.
+         */
+        FULLTEXT
+    }
 
     enum SortColumn {
-        NAME("computerName"), INTRODUCED("introduced, computerName"), DISCONTINUED("discontinued, computerName"), COMPANY("companyName, computerName");
+        NAME("computer.name"),
+        INTRODUCED("computer.introduced", "computer.name"),
+        DISCONTINUED("computer.discontinued", "computer.name"),
+        COMPANY("company.name", "computer.name");
 
-        String field;
+        /**
+         * The tie-breaker appended to every ordering so that rows have a total order.
+         */
+        public static final String TIE_BREAKER = "computer.id";
+
+        private final String[] fields;
 
         /**
          * Constructor.
          *
-         * @param field The field to use in DB queries
+         * @param fields The fields to use in DB queries, by priority
          */
-        SortColumn(String field) {
-            this.field = field;
+        SortColumn(String... fields) {
+            this.fields = fields;
         }
 
-        public String getField() {
-            return field;
+        /**
+         * Get the fields the rows are sorted with, tie-breaker included.
+         *
+         * @return The sort fields
+         */
+        public String[] getKeys() {
+            String[] keys = Arrays.copyOf(fields, fields.length + 1);
+            keys[fields.length] = TIE_BREAKER;
+            return keys;
+        }
+
+        /**
+         * Build the ORDER BY clause content for this column.
+         *
+         * @param order The sort order, applied to every field
+         * @return The comma separated fields with their sort order
+         */
+        public String orderBy(SortOrder order) {
+            StringBuilder sb = new StringBuilder();
+            for (String key : getKeys()) {
+                if (sb.length() > 0) {
+                    sb.append(", ");
+                }
+                sb.append(key).append(' ').append(order.name());
+            }
+            return sb.toString();
         }
     }
 }
@@ -1,10 +1,15 @@
 package fr.ebiz.computerdatabase.persistence.dao;
 
 import java.sql.Timestamp;
+import java.time.LocalDate;
 import java.time.OffsetDateTime;
 import java.time.ZoneOffset;
+import java.util.concurrent.TimeUnit;
 
 public final class DaoUtils {
+
+    private static final long MILLIS_PER_DAY = TimeUnit.DAYS.toMillis(1);
+
     /**
      * Utility method used to convert a {@link Timestamp} to an {@link OffsetDateTime}.
      *
@@ -15,6 +20,28 @@ public final class DaoUtils {
         return timestamp != null ? OffsetDateTime.ofInstant(timestamp.toInstant(), ZoneOffset.UTC) : null;
     }
 
+    /**
+     * Utility method used to convert a {@link Timestamp} to the {@link LocalDate} of its instant in UTC,
+     * without the intermediate {@link java.time.Instant} and {@link OffsetDateTime}.
+     *
+     * @param timestamp The timestamp to convert
+     * @return the converted value if not null, null otherwise
+     */
+    public static LocalDate toLocalDate(Timestamp timestamp) {
+        return timestamp != null ? LocalDate.ofEpochDay(Math.floorDiv(timestamp.getTime(), MILLIS_PER_DAY)) : null;
+    }
+
+    /**
+     * Utility method used to convert a {@link LocalDate} to the {@link Timestamp} of its midnight in UTC,
+     * which is how dates are stored.
+     *
+     * @param date The date to convert
+     * @return the converted value if not null, null otherwise
+     */
+    public static Timestamp toTimestamp(LocalDate date) {
+        return date != null ? new Timestamp(date.toEpochDay() * MILLIS_PER_DAY) : null;
+    }
+
     /**
      * Utility method used to convert an {@link OffsetDateTime} to a {@link Timestamp}.
      *
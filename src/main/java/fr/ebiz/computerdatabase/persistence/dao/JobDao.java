@@ -0,0 +1,110 @@
+package fr.ebiz.computerdatabase.persistence.dao;
+
+import fr.ebiz.computerdatabase.model.Job;
+import fr.ebiz.computerdatabase.model.JobStatus;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface JobDao {
+
+    /**
+     * Insert a job and set its generated id, its heartbeat starting now.
+     *
+     * @param job The job to insert
+     * @return true if the job was inserted
+     */
+    boolean insert(Job job);
+
+    /**
+     * Get a job from the database.
+     *
+     * @param id The id of the job
+     * @return The job if it exists or Optional.empty() if it does not
+     */
+    Optional<Job> get(long id);
+
+    /**
+     * Get the jobs in a status, oldest first.
+     *
+     * @param status The status
+     * @return The jobs
+     */
+    List<Job> getByStatus(JobStatus status);
+
+    /**
+     * Get the pending and running jobs whose heartbeat is older than a timeout, oldest first.
+     *
+     * @param timeout The number of milliseconds after which an instance is deemed stopped
+     * @return The jobs
+     */
+    List<Job> getStale(long timeout);
+
+    /**
+     * Start a pending job, unless another thread started or cancelled it first.
+     *
+     * @param id    The id of the job
+     * @param owner The name of the instance running the job
+     * @return true if the job was pending and is now running
+     */
+    boolean start(long id, String owner);
+
+    /**
+     * Move a stale job to another status and to a new owner, unless another instance took it over first
+     * or its owner showed it was alive again.
+     *
+     * @param id      The id of the job
+     * @param from    The expected current status
+     * @param to      The new status
+     * @param result  The result or error to record, null to keep the current one
+     * @param owner   The name of the instance taking the job over
+     * @param timeout The number of milliseconds after which an instance is deemed stopped
+     * @return true if the job was still stale and was moved
+     */
+    boolean takeOver(long id, JobStatus from, JobStatus to, String result, String owner, long timeout);
+
+    /**
+     * Record that an instance is alive, for all its pending and running jobs.
+     *
+     * @param owner The name of the instance
+     * @return The number of jobs of the instance
+     */
+    int heartbeat(String owner);
+
+    /**
+     * Mark the pending and running jobs of an instance as stale right away, typically those left by its previous run.
+     *
+     * @param owner The name of the instance
+     * @return The number of released jobs
+     */
+    int release(String owner);
+
+    /**
+     * Move a job from a status to another one, unless another thread moved it first.
+     *
+     * @param id     The id of the job
+     * @param from   The expected current status
+     * @param to     The new status
+     * @param result The result or error to record, null to keep the current one
+     * @return true if the job was in the expected status and was moved
+     */
+    boolean updateStatus(long id, JobStatus from, JobStatus to, String result);
+
+    /**
+     * Record the progress of a job.
+     *
+     * @param id       The id of the job
+     * @param progress The number of items processed so far
+     * @param total    The number of items to process, null if unknown
+     * @return true if the job exists
+     */
+    boolean updateProgress(long id, int progress, Integer total);
+
+    /**
+     * Ask a pending or running job to stop.
+     *
+     * @param id The id of the job
+     * @return true if the job was pending or running
+     */
+    boolean requestCancel(long id);
+}
@@ -0,0 +1,82 @@
+package fr.ebiz.computerdatabase.persistence.dao.impl;
+
+import fr.ebiz.computerdatabase.persistence.Count;
+import fr.ebiz.computerdatabase.persistence.dao.AsyncComputerDao;
+import fr.ebiz.computerdatabase.persistence.dao.ComputerDao;
+import fr.ebiz.computerdatabase.persistence.routing.RoutingContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+@Repository
+public class AsyncComputerDaoImpl implements AsyncComputerDao {
+
+    private final ComputerDao computerDao;
+    private final Executor executor;
+    private final TransactionTemplate readOnlyTransaction;
+
+    /**
+     * Constructor.
+     *
+     * @param computerDao        The computer dao running the statements
+     * @param executor           The bounded executor of the DAO
+     * @param transactionManager The transaction manager
+     */
+    @Autowired
+    public AsyncComputerDaoImpl(ComputerDao computerDao, @Qualifier("daoExecutor") Executor executor,
+                                PlatformTransactionManager transactionManager) {
+        this.computerDao = computerDao;
+        this.executor = executor;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CompletableFuture<Integer> count(String query) {
+        return supply(() -> computerDao.count(query));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CompletableFuture<Count> countApproximately(String query) {
+        return supply(() -> computerDao.countApproximately(query));
+    }
+
+    /**
+     * Run a read on the executor, in a read-only transaction so that it can go to a replica.
+     * The last write of the calling thread is carried over to keep reading the user's own writes.
+     * On the executor, the connection comes from the pools of the asynchronous reads, since the caller may hold
+     * one of the request pool while it waits.
+     *
+     * @param read The read to run
+     * @param <T>  The type of the result
+     * @return The result, once read
+     */
+    private <T> CompletableFuture<T> supply(Supplier<T> read) {
+        Long lastWrite = RoutingContext.getLastWrite();
+        Thread caller = Thread.currentThread();
+        return CompletableFuture.supplyAsync(() -> {
+            // The read runs on the calling thread when the executor is saturated, within the caller's transaction if any
+            Long previousWrite = RoutingContext.getLastWrite();
+            RoutingContext.setLastWrite(lastWrite);
+            RoutingContext.setAsyncRead(Thread.currentThread() != caller);
+            try {
+                return readOnlyTransaction.execute(status -> read.get());
+            } finally {
+                RoutingContext.setAsyncRead(false);
+                RoutingContext.setLastWrite(previousWrite);
+            }
+        }, executor);
+    }
+}
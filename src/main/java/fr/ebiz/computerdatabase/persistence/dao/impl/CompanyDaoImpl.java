@@ -12,6 +12,7 @@ import org.springframework.stereotype.Repository;
 import javax.sql.DataSource;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -23,8 +24,21 @@ public class CompanyDaoImpl implements CompanyDao {
 
     private static final String READ_QUERY = "SELECT * FROM company ORDER BY name LIMIT :pageSize OFFSET :offset";
     private static final String READ_BY_ID_QUERY = "SELECT * FROM company WHERE id = :id";
+    private static final String READ_BY_NAMES_QUERY = "SELECT * FROM company WHERE name IN (:names) ORDER BY id";
+    // The prefix LIKE and the keyset are both resolved by a range scan of the (name, id) index
+    private static final String SEARCH_QUERY = "SELECT * FROM company WHERE name LIKE :prefix ORDER BY name, id LIMIT :limit";
+    private static final String SEARCH_AFTER_QUERY = "SELECT * FROM company WHERE name LIKE :prefix"
+            + " AND (name > :afterName OR (name = :afterName AND id > :afterId)) ORDER BY name, id LIMIT :limit";
+    private static final char LIKE_ESCAPE = '\\';
     private static final String DELETE_QUERY = "DELETE FROM company WHERE id = :id";
+    private static final String DELETE_STATS_QUERY = "DELETE FROM company_stats WHERE company_id = :id";
+    private static final String RENAME_QUERY = "UPDATE company SET name = :name WHERE id = :id";
+    // Resolved by the (company_id) index
+    private static final String RENAME_COMPUTERS_QUERY = "UPDATE computer SET company_name = :name WHERE company_id = :id";
     private static final String COUNT_QUERY = "SELECT COUNT(*) FROM company";
+    private static final String VERSION_QUERY = "SELECT version FROM company_version WHERE id = 1";
+    // Rare enough for a single row, whose lock orders the renames and deletions of every instance
+    private static final String BUMP_VERSION_QUERY = "UPDATE company_version SET version = version + 1 WHERE id = 1";
 
     private static final String ID_COLUMN_NAME = "id";
     private static final String NAME_COLUMN_NAME = "name";
@@ -69,6 +83,33 @@ public class CompanyDaoImpl implements CompanyDao {
         return this.jdbcTemplate.query(READ_QUERY, parameters, (rs, row) -> mapRow(rs));
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Company> getByNames(Collection<String> names) {
+        if (names.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return this.jdbcTemplate.query(READ_BY_NAMES_QUERY, Collections.singletonMap("names", names), (rs, row) -> mapRow(rs));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Company> search(String prefix, Company after, int limit) {
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("prefix", escapeLike(prefix) + "%");
+        parameters.put("limit", limit);
+        if (after == null) {
+            return this.jdbcTemplate.query(SEARCH_QUERY, parameters, (rs, row) -> mapRow(rs));
+        }
+        parameters.put("afterName", after.getName());
+        parameters.put("afterId", after.getId());
+        return this.jdbcTemplate.query(SEARCH_AFTER_QUERY, parameters, (rs, row) -> mapRow(rs));
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -77,6 +118,22 @@ public class CompanyDaoImpl implements CompanyDao {
         return this.jdbcTemplate.queryForObject(COUNT_QUERY, Collections.emptyMap(), Integer.class);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean rename(int id, String name) {
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put(ID_COLUMN_NAME, id);
+        parameters.put(NAME_COLUMN_NAME, name);
+        if (jdbcTemplate.update(RENAME_QUERY, parameters) != 1) {
+            return false;
+        }
+        jdbcTemplate.update(RENAME_COMPUTERS_QUERY, parameters);
+        jdbcTemplate.update(BUMP_VERSION_QUERY, Collections.emptyMap());
+        return true;
+    }
+
     /**
      * .
      * {@inheritDoc}
@@ -86,7 +143,37 @@ public class CompanyDaoImpl implements CompanyDao {
         Map<String, Integer> parameters = new HashMap<>();
         parameters.put(ID_COLUMN_NAME, id);
 
-        return jdbcTemplate.update(DELETE_QUERY, parameters) == 1;
+        if (jdbcTemplate.update(DELETE_QUERY, parameters) != 1) {
+            return false;
+        }
+        jdbcTemplate.update(DELETE_STATS_QUERY, parameters);
+        jdbcTemplate.update(BUMP_VERSION_QUERY, Collections.emptyMap());
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getVersion() {
+        return this.jdbcTemplate.queryForObject(VERSION_QUERY, Collections.emptyMap(), Long.class);
+    }
+
+    /**
+     * Escape the wildcards of a string matched with LIKE.
+     *
+     * @param value The string
+     * @return The escaped string
+     */
+    private static String escapeLike(String value) {
+        StringBuilder escaped = new StringBuilder(value.length());
+        for (char c : value.toCharArray()) {
+            if (c == '%' || c == '_' || c == LIKE_ESCAPE) {
+                escaped.append(LIKE_ESCAPE);
+            }
+            escaped.append(c);
+        }
+        return escaped.toString();
     }
 
     /**
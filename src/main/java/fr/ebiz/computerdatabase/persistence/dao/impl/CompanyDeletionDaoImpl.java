@@ -0,0 +1,105 @@
+package fr.ebiz.computerdatabase.persistence.dao.impl;
+
+import fr.ebiz.computerdatabase.model.CompanyDeletion;
+import fr.ebiz.computerdatabase.persistence.dao.CompanyDeletionDao;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+@Repository
+public class CompanyDeletionDaoImpl implements CompanyDeletionDao {
+
+    private static final String START_QUERY = "INSERT IGNORE INTO company_deletion (company_id) VALUES (:company_id)";
+    private static final String READ_BY_ID_QUERY = "SELECT company_id, last_computer_id, deleted_computers FROM company_deletion WHERE company_id = :company_id";
+    private static final String READ_QUERY = "SELECT company_id, last_computer_id, deleted_computers FROM company_deletion ORDER BY started, company_id";
+    private static final String UPDATE_QUERY = "UPDATE company_deletion SET last_computer_id = :last_computer_id, deleted_computers = :deleted_computers WHERE company_id = :company_id";
+    private static final String DELETE_QUERY = "DELETE FROM company_deletion WHERE company_id = :company_id";
+
+    private static final String COMPANY_ID_COLUMN_NAME = "company_id";
+    private static final String LAST_COMPUTER_ID_COLUMN_NAME = "last_computer_id";
+    private static final String DELETED_COMPUTERS_COLUMN_NAME = "deleted_computers";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    /**
+     * Constructor.
+     *
+     * @param dataSource The dataSource
+     */
+    @Autowired
+    public CompanyDeletionDaoImpl(DataSource dataSource) {
+        this.jdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CompanyDeletion start(int companyId) {
+        jdbcTemplate.update(START_QUERY, Collections.singletonMap(COMPANY_ID_COLUMN_NAME, companyId));
+        return get(companyId).orElseThrow(() -> new IllegalStateException("Deletion of company " + companyId + " was not recorded"));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Optional<CompanyDeletion> get(int companyId) {
+        try {
+            return Optional.of(jdbcTemplate.queryForObject(READ_BY_ID_QUERY, Collections.singletonMap(COMPANY_ID_COLUMN_NAME, companyId),
+                    (rs, row) -> mapRow(rs)));
+        } catch (EmptyResultDataAccessException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<CompanyDeletion> getAll() {
+        return jdbcTemplate.query(READ_QUERY, (rs, row) -> mapRow(rs));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean update(CompanyDeletion deletion) {
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put(COMPANY_ID_COLUMN_NAME, deletion.getCompanyId());
+        parameters.put(LAST_COMPUTER_ID_COLUMN_NAME, deletion.getLastComputerId());
+        parameters.put(DELETED_COMPUTERS_COLUMN_NAME, deletion.getDeletedComputers());
+        return jdbcTemplate.update(UPDATE_QUERY, parameters) == 1;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean delete(int companyId) {
+        return jdbcTemplate.update(DELETE_QUERY, Collections.singletonMap(COMPANY_ID_COLUMN_NAME, companyId)) == 1;
+    }
+
+    /**
+     * Map the current row of a result set to a deletion in progress.
+     *
+     * @param rs The result set
+     * @return The deletion
+     * @throws SQLException if a column can't be read
+     */
+    private static CompanyDeletion mapRow(ResultSet rs) throws SQLException {
+        return new CompanyDeletion(rs.getInt(COMPANY_ID_COLUMN_NAME), rs.getInt(LAST_COMPUTER_ID_COLUMN_NAME),
+                rs.getInt(DELETED_COMPUTERS_COLUMN_NAME), false);
+    }
+}
@@ -0,0 +1,168 @@
+package fr.ebiz.computerdatabase.persistence.dao.impl;
+
+import fr.ebiz.computerdatabase.model.CompanyStats;
+import fr.ebiz.computerdatabase.persistence.dao.CompanyStatsDao;
+import fr.ebiz.computerdatabase.persistence.dao.DaoUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+@Repository
+public class CompanyStatsDaoImpl implements CompanyStatsDao {
+
+    private static final String READ_BY_ID_QUERY = "SELECT company_id, computers, active_computers, first_introduced, last_introduced FROM company_stats WHERE company_id = :company_id";
+    // Locking the statistics first makes the computer writes of the company wait, so that the recount misses none
+    private static final String LOCK_QUERY = READ_BY_ID_QUERY + " FOR UPDATE";
+    private static final String READ_DELTAS_QUERY = "SELECT company_id, COUNT(*), COALESCE(SUM(discontinued IS NULL), 0) FROM computer"
+            + " WHERE id IN (:ids) AND company_id IS NOT NULL GROUP BY company_id FOR UPDATE";
+    // The date range can't be maintained by deltas, it is read back from the (company_id, introduced) index
+    private static final String APPLY_QUERY = "INSERT INTO company_stats (company_id, computers, active_computers, first_introduced, last_introduced)"
+            + " VALUES (:company_id, :computers, :active_computers,"
+            + " (SELECT MIN(introduced) FROM computer WHERE company_id = :company_id), (SELECT MAX(introduced) FROM computer WHERE company_id = :company_id))"
+            + " ON DUPLICATE KEY UPDATE computers = computers + VALUES(computers), active_computers = active_computers + VALUES(active_computers),"
+            + " first_introduced = VALUES(first_introduced), last_introduced = VALUES(last_introduced)";
+    private static final String COMPUTE_QUERY = "SELECT :company_id AS company_id, COUNT(*) AS computers, COALESCE(SUM(discontinued IS NULL), 0) AS active_computers,"
+            + " MIN(introduced) AS first_introduced, MAX(introduced) AS last_introduced FROM computer WHERE company_id = :company_id";
+    private static final String STORE_QUERY = "INSERT INTO company_stats (company_id, computers, active_computers, first_introduced, last_introduced)"
+            + " VALUES (:company_id, :computers, :active_computers, :first_introduced, :last_introduced)"
+            + " ON DUPLICATE KEY UPDATE computers = VALUES(computers), active_computers = VALUES(active_computers),"
+            + " first_introduced = VALUES(first_introduced), last_introduced = VALUES(last_introduced)";
+    private static final String DELETE_ORPHANS_QUERY = "DELETE FROM company_stats WHERE company_id NOT IN (SELECT id FROM company)";
+    private static final String DELETE_QUERY = "DELETE FROM company_stats WHERE company_id = :company_id";
+
+    private static final String COMPANY_ID_COLUMN_NAME = "company_id";
+    private static final String COMPUTERS_COLUMN_NAME = "computers";
+    private static final String ACTIVE_COMPUTERS_COLUMN_NAME = "active_computers";
+    private static final String FIRST_INTRODUCED_COLUMN_NAME = "first_introduced";
+    private static final String LAST_INTRODUCED_COLUMN_NAME = "last_introduced";
+    private static final String IDS_PARAMETER = "ids";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    /**
+     * Constructor.
+     *
+     * @param dataSource The dataSource
+     */
+    @Autowired
+    public CompanyStatsDaoImpl(DataSource dataSource) {
+        this.jdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Optional<CompanyStats> get(int companyId) {
+        return read(READ_BY_ID_QUERY, companyId);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Map<Integer, Delta> readDeltas(Collection<Integer> computerIds) {
+        Map<Integer, Delta> deltas = new TreeMap<>();
+        if (computerIds.isEmpty()) {
+            return deltas;
+        }
+        jdbcTemplate.query(READ_DELTAS_QUERY, Collections.singletonMap(IDS_PARAMETER, computerIds), rs -> {
+            deltas.put(rs.getInt(1), new Delta().add(rs.getInt(2), rs.getInt(3)));
+        });
+        return deltas;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void apply(Map<Integer, Delta> deltas) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        // Sorted by company id, so that concurrent writes lock the statistics rows in the same order
+        SqlParameterSource[] batch = new TreeMap<>(deltas).entrySet().stream()
+                .map(entry -> new MapSqlParameterSource(COMPANY_ID_COLUMN_NAME, entry.getKey())
+                        .addValue(COMPUTERS_COLUMN_NAME, entry.getValue().getComputers())
+                        .addValue(ACTIVE_COMPUTERS_COLUMN_NAME, entry.getValue().getActiveComputers()))
+                .toArray(SqlParameterSource[]::new);
+        jdbcTemplate.batchUpdate(APPLY_QUERY, batch);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean reconcile(int companyId) {
+        Optional<CompanyStats> stored = read(LOCK_QUERY, companyId);
+        CompanyStats computed = read(COMPUTE_QUERY, companyId).orElseThrow(() -> new IllegalStateException("Aggregates returned no row"));
+        if (stored.orElse(CompanyStats.empty(companyId)).equals(computed)) {
+            return false;
+        }
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put(COMPANY_ID_COLUMN_NAME, companyId);
+        parameters.put(COMPUTERS_COLUMN_NAME, computed.getComputers());
+        parameters.put(ACTIVE_COMPUTERS_COLUMN_NAME, computed.getActiveComputers());
+        parameters.put(FIRST_INTRODUCED_COLUMN_NAME, DaoUtils.toTimestamp(computed.getFirstIntroduced()));
+        parameters.put(LAST_INTRODUCED_COLUMN_NAME, DaoUtils.toTimestamp(computed.getLastIntroduced()));
+        jdbcTemplate.update(STORE_QUERY, parameters);
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int deleteOrphans() {
+        return jdbcTemplate.update(DELETE_ORPHANS_QUERY, Collections.emptyMap());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean delete(int companyId) {
+        return jdbcTemplate.update(DELETE_QUERY, Collections.singletonMap(COMPANY_ID_COLUMN_NAME, companyId)) == 1;
+    }
+
+    /**
+     * Read the statistics of a company.
+     *
+     * @param query     The query returning the statistics
+     * @param companyId The id of the company
+     * @return The statistics or Optional.empty() if the query returned no row
+     */
+    private Optional<CompanyStats> read(String query, int companyId) {
+        try {
+            return Optional.of(jdbcTemplate.queryForObject(query, Collections.singletonMap(COMPANY_ID_COLUMN_NAME, companyId),
+                    (rs, row) -> mapRow(rs)));
+        } catch (EmptyResultDataAccessException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Map a row to statistics.
+     *
+     * @param rs The result set on the row
+     * @return The statistics
+     * @throws SQLException if a column can't be read
+     */
+    private static CompanyStats mapRow(ResultSet rs) throws SQLException {
+        return new CompanyStats(rs.getInt(COMPANY_ID_COLUMN_NAME), rs.getInt(COMPUTERS_COLUMN_NAME), rs.getInt(ACTIVE_COMPUTERS_COLUMN_NAME),
+                DaoUtils.toLocalDate(rs.getTimestamp(FIRST_INTRODUCED_COLUMN_NAME)), DaoUtils.toLocalDate(rs.getTimestamp(LAST_INTRODUCED_COLUMN_NAME)));
+    }
+}
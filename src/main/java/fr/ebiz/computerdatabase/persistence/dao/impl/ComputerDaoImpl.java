@@ -1,66 +1,222 @@
 package fr.ebiz.computerdatabase.persistence.dao.impl;
 
+import fr.ebiz.computerdatabase.dto.ComputerDto;
 import fr.ebiz.computerdatabase.model.Company;
 import fr.ebiz.computerdatabase.model.Computer;
+import fr.ebiz.computerdatabase.persistence.Count;
+import fr.ebiz.computerdatabase.persistence.Cursor;
+import fr.ebiz.computerdatabase.persistence.PagedResult;
 import fr.ebiz.computerdatabase.persistence.SortOrder;
+import fr.ebiz.computerdatabase.persistence.dao.CompanyStatsDao;
+import fr.ebiz.computerdatabase.persistence.dao.CompanyStatsDao.Delta;
 import fr.ebiz.computerdatabase.persistence.dao.ComputerDao;
 import fr.ebiz.computerdatabase.persistence.dao.DaoUtils;
+import fr.ebiz.computerdatabase.persistence.dao.impl.ComputerQueryRegistry.CountPlan;
+import fr.ebiz.computerdatabase.persistence.dao.impl.ComputerQueryRegistry.Filter;
+import fr.ebiz.computerdatabase.persistence.dao.impl.ComputerQueryRegistry.Read;
+import fr.ebiz.computerdatabase.persistence.index.ComputerNameIndex;
 import fr.ebiz.computerdatabase.utils.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCallback;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import javax.sql.DataSource;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import static fr.ebiz.computerdatabase.persistence.dao.impl.ComputerQueryRegistry.COMPANY_NAME_PARAMETER;
+import static fr.ebiz.computerdatabase.persistence.dao.impl.ComputerQueryRegistry.COMPUTER_NAME_PARAMETER;
+import static fr.ebiz.computerdatabase.persistence.dao.impl.ComputerQueryRegistry.FULLTEXT_PARAMETER;
+import static fr.ebiz.computerdatabase.persistence.dao.impl.ComputerQueryRegistry.IDS_PARAMETER;
+import static fr.ebiz.computerdatabase.persistence.dao.impl.ComputerQueryRegistry.LIMIT_PARAMETER;
+import static fr.ebiz.computerdatabase.persistence.dao.impl.ComputerQueryRegistry.MAX_BUCKET;
+import static fr.ebiz.computerdatabase.persistence.dao.impl.ComputerQueryRegistry.SAMPLE_FROM_PARAMETER;
+import static fr.ebiz.computerdatabase.persistence.dao.impl.ComputerQueryRegistry.SAMPLE_TO_PARAMETER;
+import static fr.ebiz.computerdatabase.persistence.dao.impl.ComputerQueryRegistry.SAMPLE_WINDOWS;
+import static fr.ebiz.computerdatabase.persistence.dao.impl.ComputerQueryRegistry.SEEK_PARAMETER;
 
 @Repository
 public class ComputerDaoImpl implements ComputerDao {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(ComputerDaoImpl.class);
+
     private static final String ID_COLUMN_NAME = "id";
     private static final String INTRODUCED_COLUMN_NAME = "introduced";
     private static final String DISCONTINUED_COLUMN_NAME = "discontinued";
     private static final String COMPANY_ID_COLUMN_NAME = "company_id";
     private static final String COMPUTER_NAME = "computerName";
     private static final String COMPANY_NAME = "companyName";
+    private static final String TOTAL_COLUMN_NAME = "total";
+    // Position of the columns in every read statement
+    private static final int ID_COLUMN_INDEX = 1;
+    private static final int COMPUTER_NAME_COLUMN_INDEX = 2;
+    private static final int INTRODUCED_COLUMN_INDEX = 3;
+    private static final int DISCONTINUED_COLUMN_INDEX = 4;
+    private static final int COMPANY_ID_COLUMN_INDEX = 5;
+    private static final int COMPANY_NAME_COLUMN_INDEX = 6;
 
-    private static final String READ_QUERY = "SELECT computer.id, computer.name as computerName, computer.introduced, computer.discontinued, computer.company_id, company.name as companyName FROM computer computer LEFT JOIN company company ON computer.company_id = company.id";
     private static final String READ_BY_ID_QUERY = "SELECT computer.id, computer.name AS computerName, computer.introduced, computer.discontinued, computer.company_id, company.name AS companyName FROM computer LEFT JOIN company company ON computer.company_id = company.id WHERE computer.id = :id";
-    private static final String COUNT_QUERY = "SELECT COUNT(*) from computer LEFT JOIN company company ON computer.company_id = company.id";
-    private static final String INSERT_QUERY = "INSERT INTO computer(name, introduced, discontinued, company_id) VALUES (:computerName, :introduced, :discontinued, :company_id) ";
-    private static final String UPDATE_QUERY = "UPDATE computer SET name = :computerName, introduced = :introduced, discontinued = :discontinued, company_id = :company_id WHERE id = :id";
-    private static final String DELETE_QUERY = "DELETE FROM computer";
+    // Every write copies the name of the company on the computer, read instead of the join by the denormalized queries
+    private static final String INSERT_QUERY = "INSERT INTO computer(name, introduced, discontinued, company_id, company_name)"
+            + " VALUES (:computerName, :introduced, :discontinued, :company_id, (SELECT name FROM company WHERE id = :company_id))";
+    private static final String INSERT_BATCH_QUERY = "INSERT INTO computer(name, introduced, discontinued, company_id, company_name)"
+            + " VALUES (?, ?, ?, ?, (SELECT name FROM company WHERE id = ?))";
+    private static final String UPDATE_QUERY = "UPDATE computer SET name = :computerName, introduced = :introduced, discontinued = :discontinued,"
+            + " company_id = :company_id, company_name = (SELECT name FROM company WHERE id = :company_id) WHERE id = :id";
     private static final String DELETE_COMPUTERS_FOR_COMPANY_QUERY = "DELETE FROM computer WHERE company_id = :company_id";
+    // The (company_id) index holds the primary key, so the keyset is a range scan locking only the rows of the chunk
+    private static final String LOCK_IDS_FOR_COMPANY_QUERY = "SELECT id FROM computer WHERE company_id = :company_id AND id > :id ORDER BY id LIMIT :limit FOR UPDATE";
+    // The statistics are refreshed by the server from time to time and may lag behind recent writes
+    private static final String TABLE_ROWS_QUERY = "SELECT TABLE_ROWS FROM information_schema.TABLES WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'computer'";
+    private static final String ID_RANGE_QUERY = "SELECT MIN(id), MAX(id) FROM computer";
+    private static final String SAMPLED_COLUMN_NAME = "sampled";
+    private static final String MATCHED_COLUMN_NAME = "matched";
+
+    // Words shorter than innodb_ft_min_token_size are not indexed
+    private static final int FULLTEXT_MIN_TOKEN_SIZE = 3;
+    // Room for the constant statements next to the templates
+    private static final int PARSED_SQL_CACHE_MARGIN = 16;
+    private static final String FULLTEXT_WORD_SEPARATOR = "[^\\p{L}\\p{N}]+";
 
     private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate streamingJdbcTemplate;
+    private final ComputerQueryRegistry queries;
+    private final SearchMode searchMode;
+    private final ComputerNameIndex nameIndex;
+    private final int nameIndexMaxIds;
+    private final int insertBatchSize;
+    private final int deleteBatchSize;
+    private final int approximateThreshold;
+    private final int sampleSize;
+    private final CompanyStatsDao companyStatsDao;
+    private final TransactionTemplate transactionTemplate;
 
     /**
      * Constructor.
      *
-     * @param dataSource The JDBC DataSource
+     * @param dataSource           The JDBC DataSource
+     * @param queries              The SQL templates
+     * @param searchMode           The way computers are searched by name
+     * @param nameIndex            The in-memory name index
+     * @param nameIndexMaxIds      The maximum number of ids matched in the name index to filter rows by id
+     * @param insertBatchSize      The number of rows sent in each JDBC batch by bulk inserts
+     * @param deleteBatchSize      The number of ids deleted by each statement of bulk deletes
+     * @param approximateThreshold The number of rows above which approximate counts are estimated
+     * @param sampleSize           The number of rows sampled to estimate a filtered count
+     * @param companyStatsDao      The company statistics dao, updated along with the computers
+     * @param transactionManager   The transaction manager running each chunk of the bulk deletes
      */
     @Autowired
-    public ComputerDaoImpl(DataSource dataSource) {
+    public ComputerDaoImpl(DataSource dataSource, ComputerQueryRegistry queries, @Value("${searchMode:LIKE}") SearchMode searchMode,
+                           ComputerNameIndex nameIndex, @Value("${nameIndex.maxIds:5000}") int nameIndexMaxIds,
+                           @Value("${insertBatchSize:1000}") int insertBatchSize,
+                           @Value("${deleteBatchSize:1000}") int deleteBatchSize,
+                           @Value("${count.approximateThreshold:100000}") int approximateThreshold,
+                           @Value("${count.sampleSize:20000}") int sampleSize,
+                           CompanyStatsDao companyStatsDao, PlatformTransactionManager transactionManager) {
+        if (approximateThreshold <= 0 || sampleSize <= 0) {
+            throw new IllegalArgumentException("Approximate count threshold and sample size must be > 0");
+        }
+        if (insertBatchSize <= 0) {
+            throw new IllegalArgumentException("Insert batch size must be > 0");
+        }
+        // Larger chunks are not padded, so the last one could not share the statement of the others
+        if (deleteBatchSize <= 0 || deleteBatchSize > MAX_BUCKET) {
+            throw new IllegalArgumentException("Delete batch size must be [1-" + MAX_BUCKET + "]");
+        }
         this.jdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+        // Keep the parsed form of every template
+        this.jdbcTemplate.setCacheLimit(queries.getSize() + PARSED_SQL_CACHE_MARGIN);
+        // MySQL streams a forward-only read-only result set row by row instead of loading it when the fetch size is MIN_VALUE
+        JdbcTemplate streamingTemplate = new JdbcTemplate(dataSource);
+        streamingTemplate.setFetchSize(Integer.MIN_VALUE);
+        this.streamingJdbcTemplate = new NamedParameterJdbcTemplate(streamingTemplate);
+        this.queries = queries;
+        this.searchMode = searchMode;
+        this.nameIndex = nameIndex;
+        this.nameIndexMaxIds = nameIndexMaxIds;
+        this.insertBatchSize = insertBatchSize;
+        this.deleteBatchSize = deleteBatchSize;
+        this.approximateThreshold = approximateThreshold;
+        this.sampleSize = sampleSize;
+        this.companyStatsDao = companyStatsDao;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Create a row mapper for one result set, sharing one {@link Company} instance per company across its rows.
+     *
+     * @return The row mapper
+     */
+    private static RowMapper<Computer> rowMapper() {
+        Map<Integer, Company> companies = new HashMap<>();
+        return (rs, row) -> mapRow(rs, companies);
+    }
+
+    /**
+     * Create a row mapper for one result set projecting each row straight to a {@link ComputerDto}.
+     * Columns are read by index and dates converted directly to {@link java.time.LocalDate},
+     * and the computers of the same company share one name instance.
+     *
+     * @return The row mapper
+     */
+    private static RowMapper<ComputerDto> dtoRowMapper() {
+        Map<Integer, String> companyNames = new HashMap<>();
+        return (rs, row) -> {
+            ComputerDto.ComputerDtoBuilder builder = ComputerDto.builder()
+                    .id(rs.getInt(ID_COLUMN_INDEX))
+                    .name(rs.getString(COMPUTER_NAME_COLUMN_INDEX))
+                    .introduced(DaoUtils.toLocalDate(rs.getTimestamp(INTRODUCED_COLUMN_INDEX)))
+                    .discontinued(DaoUtils.toLocalDate(rs.getTimestamp(DISCONTINUED_COLUMN_INDEX)));
+
+            int companyId = rs.getInt(COMPANY_ID_COLUMN_INDEX);
+            if (rs.wasNull()) {
+                return builder.build();
+            }
+            String companyName = companyNames.get(companyId);
+            if (companyName == null) {
+                companyName = rs.getString(COMPANY_NAME_COLUMN_INDEX);
+                companyNames.put(companyId, companyName);
+            }
+            return builder.companyId(companyId).companyName(companyName).build();
+        };
     }
 
     /**
      * Map a {@link ResultSet} to a {@link Computer} entity.
+     * The company of the row is reused from the companies already mapped, so that its name is only read once.
      *
      * @param resultSet The result set to extract data from
+     * @param companies The companies mapped from the previous rows of the result set by id, completed by the call
      * @return The mapped entity
      * @throws SQLException if an error occurs when accessing the properties from the result set
      */
-    private static Computer mapRow(ResultSet resultSet) throws SQLException {
+    private static Computer mapRow(ResultSet resultSet, Map<Integer, Company> companies) throws SQLException {
         if (resultSet != null && !resultSet.isClosed()) {
             Computer.ComputerBuilder builder = Computer.builder()
                     .id(resultSet.getInt(ID_COLUMN_NAME))
@@ -73,11 +229,15 @@ public class ComputerDaoImpl implements ComputerDao {
             if (resultSet.wasNull()) {
                 companyId = null;
             }
-            builder.company(Company.builder()
-                    .id(companyId)
-                    .name(resultSet.getString(COMPANY_NAME))
-                    .build());
-            return builder.build();
+            Company company = companies.get(companyId);
+            if (company == null) {
+                company = Company.builder()
+                        .id(companyId)
+                        .name(resultSet.getString(COMPANY_NAME))
+                        .build();
+                companies.put(companyId, company);
+            }
+            return builder.company(company).build();
         }
 
         return null;
@@ -88,27 +248,194 @@ public class ComputerDaoImpl implements ComputerDao {
      */
     @Override
     public Optional<Computer> get(int id) {
+        return get(id, rowMapper());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Optional<ComputerDto> getDto(int id) {
+        return get(id, dtoRowMapper());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Computer> getAll(String query, int pageSize, int offset, SortColumn column, SortOrder order) {
+        return getAll(query, pageSize, offset, column, order, rowMapper());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<ComputerDto> getAllDto(String query, int pageSize, int offset, SortColumn column, SortOrder order) {
+        return getAll(query, pageSize, offset, column, order, dtoRowMapper());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public PagedResult<Computer> getPage(String query, int pageSize, int offset, SortColumn column, SortOrder order) {
+        return getPage(query, pageSize, offset, column, order, rowMapper());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public PagedResult<ComputerDto> getDtoPage(String query, int pageSize, int offset, SortColumn column, SortOrder order) {
+        return getPage(query, pageSize, offset, column, order, dtoRowMapper());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Computer> getAllAfter(String query, int pageSize, Cursor cursor) {
+        return seek(query, pageSize, cursor, cursor.getOrder(), rowMapper());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<ComputerDto> getAllDtoAfter(String query, int pageSize, Cursor cursor) {
+        return seek(query, pageSize, cursor, cursor.getOrder(), dtoRowMapper());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Computer> getAllBefore(String query, int pageSize, Cursor cursor) {
+        return seekBackward(query, pageSize, cursor, rowMapper());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<ComputerDto> getAllDtoBefore(String query, int pageSize, Cursor cursor) {
+        return seekBackward(query, pageSize, cursor, dtoRowMapper());
+    }
+
+    /**
+     * Get a computer mapped by a row mapper.
+     *
+     * @param id        The id of the computer to get
+     * @param rowMapper The row mapper
+     * @param <T>       The type of the mapped computer
+     * @return The computer if it exists or Optional.empty() if it does not
+     */
+    private <T> Optional<T> get(int id, RowMapper<T> rowMapper) {
         Map<String, Integer> parameters = new HashMap<>();
         parameters.put(ID_COLUMN_NAME, id);
         try {
-            return Optional.of(this.jdbcTemplate.queryForObject(READ_BY_ID_QUERY, parameters, (rs, row) -> mapRow(rs)));
+            return Optional.of(this.jdbcTemplate.queryForObject(READ_BY_ID_QUERY, parameters, rowMapper));
         } catch (EmptyResultDataAccessException e) {
             return Optional.empty();
         }
     }
 
     /**
-     * {@inheritDoc}
+     * Get a page of computers mapped by a row mapper.
+     *
+     * @param query     The query to search computer of company name
+     * @param pageSize  The number of elements per page
+     * @param offset    The paging offset
+     * @param column    The column to sort with
+     * @param order     the sort order
+     * @param rowMapper The row mapper
+     * @param <T>       The type of the mapped computers
+     * @return The paginated computers
      */
-    @Override
-    public List<Computer> getAll(String query, int pageSize, int offset, SortColumn column, SortOrder order) {
+    private <T> List<T> getAll(String query, int pageSize, int offset, SortColumn column, SortOrder order, RowMapper<T> rowMapper) {
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("pageSize", pageSize);
+        parameters.put("offset", offset);
+
+        Filter filter = filterByName(parameters, query);
+        return this.jdbcTemplate.query(queries.read(Read.LIST, filter, column, order), parameters, rowMapper);
+    }
+
+    /**
+     * Get a page of computers mapped by a row mapper along with the number of computers matching the query.
+     *
+     * @param query     The query to search computer of company name
+     * @param pageSize  The number of elements per page
+     * @param offset    The paging offset
+     * @param column    The column to sort with
+     * @param order     the sort order
+     * @param rowMapper The row mapper
+     * @param <T>       The type of the mapped computers
+     * @return The paginated computers and the total number of elements
+     */
+    private <T> PagedResult<T> getPage(String query, int pageSize, int offset, SortColumn column, SortOrder order, RowMapper<T> rowMapper) {
         Map<String, Object> parameters = new HashMap<>();
         parameters.put("pageSize", pageSize);
         parameters.put("offset", offset);
 
-        String stringQuery = filterByName(parameters, READ_QUERY, query);
-        stringQuery += String.format(" ORDER BY %s %s LIMIT :pageSize OFFSET :offset ", column.getField(), order.name());
-        return this.jdbcTemplate.query(stringQuery, parameters, (rs, row) -> mapRow(rs));
+        Filter filter = filterByName(parameters, query);
+        if (filter == Filter.NONE) {
+            // The window would count every row through the company join, the count plan reads the smallest index instead
+            List<T> computers = this.jdbcTemplate.query(queries.read(Read.LIST, filter, column, order), parameters, rowMapper);
+            return new PagedResult<>(computers, this.jdbcTemplate.queryForObject(queries.count(planCount(filter), filter), parameters, Integer.class));
+        }
+
+        ResultSetExtractor<PagedResult<T>> extractor = rs -> {
+            List<T> computers = new ArrayList<>();
+            int total = 0;
+            while (rs.next()) {
+                total = rs.getInt(TOTAL_COLUMN_NAME);
+                computers.add(rowMapper.mapRow(rs, computers.size()));
+            }
+            return new PagedResult<>(computers, total);
+        };
+        PagedResult<T> result = this.jdbcTemplate.query(queries.read(Read.PAGE, filter, column, order), parameters, extractor);
+
+        // No row carries the total when the offset is past the end of the results
+        if (result.getElements().isEmpty() && offset > 0) {
+            return new PagedResult<>(result.getElements(), count(query));
+        }
+        return result;
+    }
+
+    /**
+     * Get the computers preceding a keyset cursor, mapped by a row mapper.
+     *
+     * @param query     The name to look for
+     * @param pageSize  The number of elements to get
+     * @param cursor    The key of the row to seek before
+     * @param rowMapper The row mapper
+     * @param <T>       The type of the mapped computers
+     * @return The computers sorted in the cursor order
+     */
+    private <T> List<T> seekBackward(String query, int pageSize, Cursor cursor, RowMapper<T> rowMapper) {
+        // Walk the index backward then restore the requested order
+        List<T> computers = seek(query, pageSize, cursor, cursor.getOrder().reverse(), rowMapper);
+        Collections.reverse(computers);
+        return computers;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int stream(String query, SortColumn column, SortOrder order, Consumer<Computer> consumer) {
+        Map<String, Object> parameters = new HashMap<>();
+        Filter filter = filterByName(parameters, query);
+
+        int[] rows = new int[1];
+        RowMapper<Computer> rowMapper = rowMapper();
+        this.streamingJdbcTemplate.query(queries.read(Read.STREAM, filter, column, order), parameters, rs -> {
+            consumer.accept(rowMapper.mapRow(rs, rows[0]));
+            rows[0]++;
+        });
+        return rows[0];
     }
 
     /**
@@ -116,10 +443,46 @@ public class ComputerDaoImpl implements ComputerDao {
      */
     @Override
     public int count(String query) {
+        // The name index counts its matches for free, when they are the rows the page reads
+        int[] ids = searchNameIndex(query);
+        if (ids != null) {
+            return ids.length;
+        }
+
+        Map<String, Object> parameters = new HashMap<>();
+        Filter filter = filterByName(parameters, query, null);
+
+        return this.jdbcTemplate.queryForObject(queries.count(planCount(filter), filter), parameters, Integer.class);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Count countApproximately(String query) {
+        int[] ids = searchNameIndex(query);
+        if (ids != null) {
+            return Count.exact(ids.length);
+        }
+
         Map<String, Object> parameters = new HashMap<>();
-        String stringQuery = filterByName(parameters, COUNT_QUERY, query);
+        Filter filter = filterByName(parameters, query, null);
 
-        return this.jdbcTemplate.queryForObject(stringQuery, parameters, Integer.class);
+        Long tableRows = this.jdbcTemplate.queryForObject(TABLE_ROWS_QUERY, Collections.emptyMap(), Long.class);
+        if (tableRows == null || tableRows < approximateThreshold) {
+            return Count.exact(this.jdbcTemplate.queryForObject(queries.count(planCount(filter), filter), parameters, Integer.class));
+        }
+        if (filter == Filter.NONE) {
+            return Count.approximate(tableRows);
+        }
+
+        // Most searches match few rows, which are counted exactly by stopping at the threshold
+        parameters.put(LIMIT_PARAMETER, approximateThreshold);
+        int capped = this.jdbcTemplate.queryForObject(queries.cappedCount(planCount(filter), filter), parameters, Integer.class);
+        if (capped < approximateThreshold) {
+            return Count.exact(capped);
+        }
+        return Count.approximate(Math.max(capped, estimate(filter, parameters, tableRows)));
     }
 
     /**
@@ -133,10 +496,62 @@ public class ComputerDaoImpl implements ComputerDao {
         int affectedRows = jdbcTemplate.update(INSERT_QUERY, new MapSqlParameterSource(parameters), keyHolder);
         computer.setId(keyHolder.getKey().intValue());
 
+        Map<Integer, Delta> deltas = new HashMap<>();
+        addDelta(deltas, computer, 1);
+        companyStatsDao.apply(deltas);
         return affectedRows == 1;
 
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int insertAll(List<Computer> computers) {
+        if (computers.isEmpty()) {
+            return 0;
+        }
+        PreparedStatementCreator creator = connection -> connection.prepareStatement(INSERT_BATCH_QUERY, Statement.RETURN_GENERATED_KEYS);
+        PreparedStatementCallback<Integer> callback = statement -> {
+            int inserted = 0;
+            for (int from = 0; from < computers.size(); from += insertBatchSize) {
+                List<Computer> batch = computers.subList(from, Math.min(from + insertBatchSize, computers.size()));
+                for (Computer computer : batch) {
+                    statement.setString(1, computer.getName());
+                    statement.setTimestamp(2, DaoUtils.toTimestamp(computer.getIntroduced()));
+                    statement.setTimestamp(3, DaoUtils.toTimestamp(computer.getDiscontinued()));
+                    if (computer.getCompany() != null && computer.getCompany().getId() != null) {
+                        statement.setInt(4, computer.getCompany().getId());
+                        statement.setInt(5, computer.getCompany().getId());
+                    } else {
+                        statement.setNull(4, Types.BIGINT);
+                        statement.setNull(5, Types.BIGINT);
+                    }
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+
+                // Keys come back in the order the rows were added to the batch
+                try (ResultSet keys = statement.getGeneratedKeys()) {
+                    for (Computer computer : batch) {
+                        if (!keys.next()) {
+                            throw new SQLException("Missing generated key for " + computer);
+                        }
+                        computer.setId(keys.getInt(1));
+                        inserted++;
+                    }
+                }
+            }
+            return inserted;
+        };
+        int inserted = jdbcTemplate.getJdbcOperations().execute(creator, callback);
+
+        Map<Integer, Delta> deltas = new HashMap<>();
+        computers.forEach(computer -> addDelta(deltas, computer, 1));
+        companyStatsDao.apply(deltas);
+        return inserted;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -146,7 +561,14 @@ public class ComputerDaoImpl implements ComputerDao {
         parameters.put(ID_COLUMN_NAME, computer.getId());
         mapParameters(parameters, computer);
 
-        return jdbcTemplate.update(UPDATE_QUERY, parameters) == 1;
+        // The previous values of the computer are taken off the statistics, its new values added
+        Map<Integer, Delta> deltas = negate(companyStatsDao.readDeltas(Collections.singletonList(computer.getId())));
+        if (jdbcTemplate.update(UPDATE_QUERY, parameters) != 1) {
+            return false;
+        }
+        addDelta(deltas, computer, 1);
+        companyStatsDao.apply(deltas);
+        return true;
     }
 
     /**
@@ -154,23 +576,45 @@ public class ComputerDaoImpl implements ComputerDao {
      */
     @Override
     public boolean delete(Integer id) {
-        return deleteComputers(Collections.singletonList(id));
+        return deleteComputers(Collections.singletonList(id)) == 1;
     }
 
+    /**
+     * {@inheritDoc}
+     */
     @Override
-    public boolean deleteComputers(List<Integer> ids) {
-        Map<String, Integer> parameters = new HashMap<>();
-        StringBuilder query = new StringBuilder(DELETE_QUERY + " WHERE ID IN (");
-        for (int i = 0; i < ids.size(); i++) {
-            if (i > 0) {
-                query.append(",");
-            }
-            String parameter = "id" + i;
-            parameters.put(parameter, ids.get(i));
-            query.append(":").append(parameter);
+    public int deleteComputers(List<Integer> ids) {
+        // Sorted ids lock the rows in primary key order, which concurrent deletes can't deadlock on
+        List<Integer> sortedIds = ids.stream().distinct().sorted().collect(Collectors.toList());
+        if (sortedIds.isEmpty()) {
+            return 0;
+        }
+        int chunkSize = Math.min(deleteBatchSize, sortedIds.size());
+        int deleted = 0;
+        for (int from = 0; from < sortedIds.size(); from += chunkSize) {
+            // Every chunk is padded to the same bucket so that they all share one statement text
+            List<Integer> chunk = ComputerQueryRegistry.bucket(sortedIds.subList(from, Math.min(from + chunkSize, sortedIds.size())), chunkSize);
+            // Each chunk commits along with its statistics, unless a surrounding transaction commits them all
+            deleted += transactionTemplate.execute(status -> {
+                Map<Integer, Delta> deltas = negate(companyStatsDao.readDeltas(chunk));
+                int count = jdbcTemplate.update(queries.deleteByIds(), Collections.singletonMap(IDS_PARAMETER, chunk));
+                companyStatsDao.apply(deltas);
+                return count;
+            });
         }
-        query.append(")");
-        return jdbcTemplate.update(query.toString(), parameters) > 1;
+        return deleted;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Integer> lockIdsByCompanyId(int companyId, int afterId, int limit) {
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put(COMPANY_ID_COLUMN_NAME, companyId);
+        parameters.put(ID_COLUMN_NAME, afterId);
+        parameters.put(LIMIT_PARAMETER, limit);
+        return jdbcTemplate.queryForList(LOCK_IDS_FOR_COMPANY_QUERY, parameters, Integer.class);
     }
 
     /**
@@ -182,7 +626,36 @@ public class ComputerDaoImpl implements ComputerDao {
         Map<String, Integer> parameters = new HashMap<>();
         parameters.put("company_id", companyId);
 
-        return jdbcTemplate.update(DELETE_COMPUTERS_FOR_COMPANY_QUERY, parameters) > 0;
+        boolean deleted = jdbcTemplate.update(DELETE_COMPUTERS_FOR_COMPANY_QUERY, parameters) > 0;
+        companyStatsDao.delete(companyId);
+        return deleted;
+    }
+
+    /**
+     * Add the contribution of a computer to the statistics of its company.
+     *
+     * @param deltas   The deltas by company id
+     * @param computer The computer
+     * @param sign     1 for an added computer, -1 for a removed one
+     */
+    private static void addDelta(Map<Integer, Delta> deltas, Computer computer, int sign) {
+        if (computer.getCompany() == null || computer.getCompany().getId() == null) {
+            return;
+        }
+        deltas.computeIfAbsent(computer.getCompany().getId(), id -> new Delta())
+                .add(sign, computer.getDiscontinued() == null ? sign : 0);
+    }
+
+    /**
+     * Turn the contributions of computers into the deltas of their removal.
+     *
+     * @param deltas The contributions by company id
+     * @return The opposite deltas by company id
+     */
+    private static Map<Integer, Delta> negate(Map<Integer, Delta> deltas) {
+        Map<Integer, Delta> negated = new HashMap<>();
+        deltas.forEach((companyId, delta) -> negated.put(companyId, new Delta().add(-delta.getComputers(), -delta.getActiveComputers())));
+        return negated;
     }
 
     /**
@@ -198,22 +671,152 @@ public class ComputerDaoImpl implements ComputerDao {
         parameters.put(COMPANY_ID_COLUMN_NAME, computer.getCompany() != null ? computer.getCompany().getId() : null);
     }
 
+    /**
+     * Get the page of computers following a cursor in the scan order.
+     *
+     * @param query     The name to look for
+     * @param pageSize  The number of elements to get
+     * @param cursor    The key of the row to start after
+     * @param scan      The order the rows are scanned with
+     * @param rowMapper The row mapper
+     * @param <T>       The type of the mapped computers
+     * @return The computers sorted in the scan order
+     */
+    private <T> List<T> seek(String query, int pageSize, Cursor cursor, SortOrder scan, RowMapper<T> rowMapper) {
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("pageSize", pageSize);
+        Object[] values = cursor.getValues();
+        for (int i = 0; i < values.length; i++) {
+            parameters.put(SEEK_PARAMETER + i, values[i]);
+        }
+
+        Filter filter = filterByName(parameters, query);
+        return this.jdbcTemplate.query(queries.seek(filter, cursor.getColumn(), scan, values), parameters, rowMapper);
+    }
+
+    /**
+     * Pick the way the rows of a filter are counted, none of which joins the company.
+     *
+     * @param filter The name filter
+     * @return The count plan
+     */
+    private CountPlan planCount(Filter filter) {
+        CountPlan plan;
+        if (filter == Filter.NONE) {
+            plan = CountPlan.TABLE;
+        } else if (filter == Filter.LIKE && !queries.isDenormalized()) {
+            // Only the company name matches need the company, found once instead of joined to each row
+            plan = CountPlan.SEMI_JOIN;
+        } else {
+            plan = CountPlan.COMPUTER;
+        }
+        LOGGER.debug("Counting the {} filter with the {} plan", filter, plan);
+        return plan;
+    }
+
     /**
      * Fill parameters to filter by computer or company name.
+     * The name index is used first when it is ready and matches few enough computers.
+     *
+     * @param parameters  The map of named query parameters
+     * @param filterQuery The original string query
+     * @return The filter to apply
+     */
+    private Filter filterByName(Map<String, Object> parameters, String filterQuery) {
+        return filterByName(parameters, filterQuery, searchNameIndex(filterQuery));
+    }
+
+    /**
+     * Fill parameters to filter by computer or company name, once the name index was searched.
      *
      * @param parameters  The map of named query parameters
+     * @param filterQuery The original string query
+     * @param ids         The ids matched by the name index, null if they don't drive the filter
+     * @return The filter to apply
+     */
+    private Filter filterByName(Map<String, Object> parameters, String filterQuery, int[] ids) {
+        if (StringUtils.isBlank(filterQuery)) {
+            return Filter.NONE;
+        }
+
+        if (ids != null) {
+            if (ids.length == 0) {
+                return Filter.NOTHING;
+            }
+            parameters.put(IDS_PARAMETER, ComputerQueryRegistry.bucket(Arrays.stream(ids).boxed().collect(Collectors.toList())));
+            return Filter.IDS;
+        }
+
+        String fullTextQuery = searchMode == SearchMode.FULLTEXT ? toFullTextQuery(filterQuery) : null;
+        if (fullTextQuery != null) {
+            parameters.put(FULLTEXT_PARAMETER, fullTextQuery);
+            return Filter.FULLTEXT;
+        }
+
+        String likeParameter = "%" + filterQuery + "%";
+        parameters.put(COMPUTER_NAME_PARAMETER, likeParameter);
+        parameters.put(COMPANY_NAME_PARAMETER, likeParameter);
+        return Filter.LIKE;
+    }
+
+    /**
+     * Search the name index, when its matches are few enough to filter the rows by id.
+     * Above that the rows are filtered and counted by the FULLTEXT or LIKE search, whose matches may differ.
+     *
+     * @param query The query to search computer or company name
+     * @return The sorted ids of the matching computers, or null if the index doesn't drive the filter
+     */
+    private int[] searchNameIndex(String query) {
+        if (!nameIndex.canSearch(query)) {
+            return null;
+        }
+        int[] ids = nameIndex.search(query);
+        return ids.length <= nameIndexMaxIds ? ids : null;
+    }
+
+    /**
+     * Estimate the number of rows matching a filter from the rows of windows spread over the id range.
+     *
+     * @param filter     The name filter
+     * @param parameters The parameters of the filter
+     * @param tableRows  The number of rows of the table according to its statistics
+     * @return The estimated number of matching rows or 0 if the sample is empty
+     */
+    private long estimate(Filter filter, Map<String, Object> parameters, long tableRows) {
+        long[] range = this.jdbcTemplate.queryForObject(ID_RANGE_QUERY, Collections.emptyMap(),
+                (rs, row) -> new long[]{rs.getLong(1), rs.getLong(2)});
+        // Ids are auto-incremented so each window of the id range holds about as many rows as ids
+        long span = range[1] - range[0] + 1;
+        long windowSize = Math.max(1, Math.min(span, (long) sampleSize * span / tableRows) / SAMPLE_WINDOWS);
+        for (int i = 0; i < SAMPLE_WINDOWS; i++) {
+            long from = range[0] + span * i / SAMPLE_WINDOWS;
+            parameters.put(SAMPLE_FROM_PARAMETER + i, from);
+            parameters.put(SAMPLE_TO_PARAMETER + i, from + windowSize - 1);
+        }
+
+        return this.jdbcTemplate.queryForObject(queries.sampleCount(filter), parameters, (rs, row) -> {
+            long sampled = rs.getLong(SAMPLED_COLUMN_NAME);
+            return sampled == 0 ? 0 : rs.getLong(MATCHED_COLUMN_NAME) * tableRows / sampled;
+        });
+    }
+
+    /**
+     * Build a boolean mode full-text query requiring every word of the filter as a word prefix.
+     *
      * @param filterQuery The filter query
-     * @param query       The original string query
-     * @return The altered string query
+     * @return The full-text query or null if no word is long enough to be indexed
      */
-    private String filterByName(Map<String, Object> parameters, String query, String filterQuery) {
-        if (!StringUtils.isBlank(filterQuery)) {
-            String likeParameter = "%" + filterQuery + "%";
-            query += " WHERE computer.name like :computerName OR company.name like :companyName";
-            parameters.put(COMPUTER_NAME, likeParameter);
-            parameters.put(COMPANY_NAME, likeParameter);
+    private static String toFullTextQuery(String filterQuery) {
+        StringBuilder fullTextQuery = new StringBuilder();
+        for (String word : filterQuery.split(FULLTEXT_WORD_SEPARATOR)) {
+            if (word.length() >= FULLTEXT_MIN_TOKEN_SIZE) {
+                if (fullTextQuery.length() > 0) {
+                    fullTextQuery.append(' ');
+                }
+                fullTextQuery.append('+').append(word).append('*');
+            }
         }
-        return query;
+        return fullTextQuery.length() > 0 ? fullTextQuery.toString() : null;
     }
 
 }
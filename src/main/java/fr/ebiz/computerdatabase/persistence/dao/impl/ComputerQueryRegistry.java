@@ -0,0 +1,607 @@
+package fr.ebiz.computerdatabase.persistence.dao.impl;
+
+import fr.ebiz.computerdatabase.persistence.SortOrder;
+import fr.ebiz.computerdatabase.persistence.dao.ComputerDao.SortColumn;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Registry of the SQL run by {@link ComputerDaoImpl}, every variant being built once at startup.
+ * <p>
+ * A read is a projection, a name filter, a sort and a limit: picking the precomputed string replaces
+ * the concatenation of each call, and a variant always has the same text so that the driver can reuse
+ * its server-side prepared statement. IN lists are padded to size buckets for the same reason.
+ * Each variant counts its hits, exposed over JMX.
+ * <p>
+ * With the denormalized company name, the variants read {@code computer.company_name} instead of joining the company,
+ * so that the company sorts and filters scan the computer indexes alone. The join stays the default.
+ */
+@Component
+@ManagedResource(objectName = "fr.ebiz.computerdatabase:type=ComputerQueryRegistry", description = "Computer SQL templates")
+public class ComputerQueryRegistry {
+
+    static final String IDS_PARAMETER = "ids";
+    static final String FULLTEXT_PARAMETER = "fullText";
+    static final String COMPUTER_NAME_PARAMETER = "computerName";
+    static final String COMPANY_NAME_PARAMETER = "companyName";
+    static final String SEEK_PARAMETER = "seek";
+    static final String LIMIT_PARAMETER = "limit";
+    static final String SAMPLE_FROM_PARAMETER = "sampleFrom";
+    static final String SAMPLE_TO_PARAMETER = "sampleTo";
+    static final int SAMPLE_WINDOWS = 8;
+    static final int MAX_BUCKET = 8192;
+
+    private static final String COMPANY_JOIN = " LEFT JOIN company company ON computer.company_id = company.id";
+    private static final String JOINED_COMPANY_NAME = "company.name";
+    private static final String DENORMALIZED_COMPANY_NAME = "computer.company_name";
+    private static final String FROM_COMPUTER = " FROM computer computer";
+    private static final String READ_QUERY = "SELECT computer.id, computer.name as computerName, computer.introduced, computer.discontinued, computer.company_id, company.name as companyName";
+    // The window count is computed over the filtered rows before LIMIT applies, in the same scan as the page
+    private static final String READ_PAGE_QUERY = READ_QUERY + ", COUNT(*) OVER () AS total";
+    // The rows are counted without the company join, see CountPlan
+    private static final String COUNT_QUERY = "SELECT COUNT(*)";
+    // Stop counting at the threshold above which counts are estimated
+    private static final String CAPPED_COUNT_QUERY = "SELECT COUNT(*) FROM (SELECT 1%s LIMIT :" + LIMIT_PARAMETER + ") capped";
+    // Only the rows of the id windows are joined and matched, found by range scans of the primary key
+    private static final String SAMPLE_COUNT_QUERY = "SELECT COUNT(*) AS sampled, COALESCE(SUM(CASE WHEN %s THEN 1 ELSE 0 END), 0) AS matched FROM computer" + COMPANY_JOIN + " WHERE %s";
+    private static final String DELETE_BY_IDS_QUERY = "DELETE FROM computer WHERE id IN (:" + IDS_PARAMETER + ")";
+
+    private static final int MIN_BUCKET = 8;
+
+    /**
+     * The rows a read returns.
+     */
+    enum Read {
+        /**
+         * A page of rows.
+         */
+        LIST(READ_QUERY, " LIMIT :pageSize OFFSET :offset"),
+        /**
+         * A page of filtered rows, each carrying the total number of matching rows.
+         */
+        PAGE(READ_PAGE_QUERY, " LIMIT :pageSize OFFSET :offset"),
+        /**
+         * Every matching row.
+         */
+        STREAM(READ_QUERY, ""),
+        /**
+         * The rows following a keyset cursor.
+         */
+        SEEK(READ_QUERY, " LIMIT :pageSize");
+
+        private final String select;
+        private final String limit;
+
+        /**
+         * Constructor.
+         *
+         * @param select The SELECT part
+         * @param limit  The LIMIT clause
+         */
+        Read(String select, String limit) {
+            this.select = select;
+            this.limit = limit;
+        }
+    }
+
+    /**
+     * The way rows are filtered by computer or company name.
+     */
+    enum Filter {
+        /**
+         * Every row.
+         */
+        NONE(""),
+        /**
+         * No row, when the name index found no match.
+         */
+        NOTHING("FALSE"),
+        /**
+         * The rows matched by the name index.
+         */
+        IDS("computer.id IN (:" + IDS_PARAMETER + ")"),
+        /**
+         * Each MATCH is resolved by its own FULLTEXT index, the union of the matching ids then drives the read
+         * and the computers are joined back by primary key. The predicate form is only evaluated by the sample counts.
+         */
+        FULLTEXT(" FROM (SELECT id FROM computer WHERE MATCH(name) AGAINST(:" + FULLTEXT_PARAMETER + " IN BOOLEAN MODE)"
+                + " UNION SELECT id FROM computer WHERE company_id IN (SELECT id FROM company WHERE MATCH(name) AGAINST(:" + FULLTEXT_PARAMETER + " IN BOOLEAN MODE)))"
+                + " matched JOIN computer computer ON computer.id = matched.id", "",
+                "(computer.id IN (SELECT id FROM computer WHERE MATCH(name) AGAINST(:" + FULLTEXT_PARAMETER + " IN BOOLEAN MODE))"
+                + " OR computer.company_id IN (SELECT id FROM company WHERE MATCH(name) AGAINST(:" + FULLTEXT_PARAMETER + " IN BOOLEAN MODE)))"),
+        /**
+         * Substring search, which can't use any index.
+         */
+        LIKE("(computer.name like :" + COMPUTER_NAME_PARAMETER + " OR company.name like :" + COMPANY_NAME_PARAMETER + ")");
+
+        private final String source;
+        private final String where;
+        private final String predicate;
+
+        /**
+         * Constructor of a filter reading the computer table.
+         *
+         * @param predicate The condition on the rows, empty for every row
+         */
+        Filter(String predicate) {
+            this(FROM_COMPUTER, predicate, predicate);
+        }
+
+        /**
+         * Constructor.
+         *
+         * @param source    The FROM clause, aliasing the computer table as computer
+         * @param where     The condition on the rows of the source, empty for every row
+         * @param predicate The same condition evaluated on a single computer row, empty for every row
+         */
+        Filter(String source, String where, String predicate) {
+            this.source = source;
+            this.where = where.isEmpty() ? "" : " WHERE " + where;
+            this.predicate = predicate.isEmpty() ? "TRUE" : predicate;
+        }
+    }
+
+    /**
+     * The way the filtered rows are counted. No plan joins the company: a LEFT JOIN on its primary key
+     * neither adds nor removes computers, it is only needed to read the company name.
+     */
+    enum CountPlan {
+        /**
+         * Every row, counted from the smallest index of the table.
+         */
+        TABLE(""),
+        /**
+         * The rows matching a filter which reads the computer columns only.
+         */
+        COMPUTER(null),
+        /**
+         * The rows matching a substring search, the companies whose name matches being found once by a subquery
+         * rather than by joining the company of each row.
+         */
+        SEMI_JOIN("(computer.name like :" + COMPUTER_NAME_PARAMETER
+                + " OR computer.company_id IN (SELECT id FROM company WHERE name like :" + COMPANY_NAME_PARAMETER + "))");
+
+        private final String predicate;
+
+        /**
+         * Constructor.
+         *
+         * @param predicate The condition on the rows, empty for every row, null for the condition of the filter
+         */
+        CountPlan(String predicate) {
+            this.predicate = predicate;
+        }
+
+        /**
+         * Check whether the plan can count the rows of a filter.
+         *
+         * @param filter       The name filter
+         * @param denormalized Whether the company name is read from the computer
+         * @return true if the plan applies
+         */
+        boolean appliesTo(Filter filter, boolean denormalized) {
+            switch (this) {
+                case TABLE:
+                    return filter == Filter.NONE;
+                case SEMI_JOIN:
+                    return filter == Filter.LIKE && !denormalized;
+                default:
+                    return filter != Filter.NONE && (filter != Filter.LIKE || denormalized);
+            }
+        }
+
+        /**
+         * Build the FROM and WHERE clauses of the plan for a filter.
+         *
+         * @param filter The name filter
+         * @return The FROM clause followed by the WHERE clause, if any
+         */
+        private String from(Filter filter) {
+            if (predicate == null) {
+                return filter.source + filter.where;
+            }
+            return FROM_COMPUTER + (predicate.isEmpty() ? "" : " WHERE " + predicate);
+        }
+    }
+
+    private final List<Template> templates = new ArrayList<>();
+    private final Template[] reads;
+    private final Template[] seeks;
+    private final Template[] counts;
+    private final Template[] cappedCounts;
+    private final Template[] sampleCounts;
+    private final Template deleteByIds;
+    private final int maxKeys;
+    private final boolean denormalized;
+
+    /**
+     * Constructor, building every variant.
+     *
+     * @param denormalized Whether the company name is read from the computer rather than joined
+     */
+    @Autowired
+    public ComputerQueryRegistry(@Value("${companyName.denormalized:false}") boolean denormalized) {
+        this.denormalized = denormalized;
+        int columns = SortColumn.values().length;
+        int orders = SortOrder.values().length;
+        int filters = Filter.values().length;
+        int keys = 0;
+        for (SortColumn column : SortColumn.values()) {
+            keys = Math.max(keys, column.getKeys().length);
+        }
+        maxKeys = keys;
+
+        reads = new Template[Read.values().length * filters * columns * orders];
+        seeks = new Template[filters * columns * orders << maxKeys];
+        counts = new Template[CountPlan.values().length * filters];
+        cappedCounts = new Template[CountPlan.values().length * filters];
+        sampleCounts = new Template[filters];
+        String sampleWindows = sampleWindows();
+        for (Filter filter : Filter.values()) {
+            for (CountPlan plan : CountPlan.values()) {
+                if (plan.appliesTo(filter, denormalized)) {
+                    counts[countIndex(plan, filter)] = register("COUNT/" + plan + "/" + filter, COUNT_QUERY + plan.from(filter));
+                    cappedCounts[countIndex(plan, filter)] = register("COUNT_CAPPED/" + plan + "/" + filter,
+                            String.format(CAPPED_COUNT_QUERY, plan.from(filter)));
+                }
+            }
+            sampleCounts[filter.ordinal()] = register("COUNT_SAMPLE/" + filter, String.format(SAMPLE_COUNT_QUERY, filter.predicate, sampleWindows));
+            for (SortColumn column : SortColumn.values()) {
+                for (SortOrder order : SortOrder.values()) {
+                    for (Read read : Read.values()) {
+                        if (read != Read.SEEK) {
+                            reads[readIndex(read, filter, column, order)] = register(read + "/" + filter + "/" + column + "/" + order,
+                                    read.select + filter.source + COMPANY_JOIN + filter.where + " ORDER BY " + column.orderBy(order) + read.limit);
+                        }
+                    }
+                    for (int nulls = 0; nulls < 1 << column.getKeys().length; nulls++) {
+                        String seek = (filter.where.isEmpty() ? " WHERE " : " AND ") + seekPredicate(column.getKeys(), nulls, order);
+                        seeks[seekIndex(filter, column, order, nulls)] = register(Read.SEEK + "/" + filter + "/" + column + "/" + order + "/" + nulls,
+                                Read.SEEK.select + filter.source + COMPANY_JOIN + filter.where + seek + " ORDER BY " + column.orderBy(order) + Read.SEEK.limit);
+                    }
+                }
+            }
+        }
+        deleteByIds = register("DELETE/" + IDS_PARAMETER, DELETE_BY_IDS_QUERY);
+    }
+
+    /**
+     * Get the SQL of a read.
+     *
+     * @param read   The rows to return, other than {@link Read#SEEK}
+     * @param filter The name filter
+     * @param column The sort column
+     * @param order  The sort order
+     * @return The SQL
+     */
+    String read(Read read, Filter filter, SortColumn column, SortOrder order) {
+        if (read == Read.SEEK) {
+            throw new IllegalArgumentException("Seek reads depend on the cursor values");
+        }
+        return reads[readIndex(read, filter, column, order)].use();
+    }
+
+    /**
+     * Get the SQL of a read of the rows following a cursor, see {@link #seekPredicate(String[], int, SortOrder)}.
+     * The values are bound to the {@link #SEEK_PARAMETER} parameters suffixed by their index.
+     *
+     * @param filter The name filter
+     * @param column The sort column of the cursor
+     * @param scan   The order the rows are scanned with
+     * @param values The values of the cursor
+     * @return The SQL
+     */
+    String seek(Filter filter, SortColumn column, SortOrder scan, Object[] values) {
+        int nulls = 0;
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] == null) {
+                nulls |= 1 << i;
+            }
+        }
+        return seeks[seekIndex(filter, column, scan, nulls)].use();
+    }
+
+    /**
+     * Get the SQL counting the filtered rows.
+     *
+     * @param plan   The way the rows are counted, which must apply to the filter
+     * @param filter The name filter
+     * @return The SQL
+     */
+    String count(CountPlan plan, Filter filter) {
+        return countTemplate(counts, plan, filter).use();
+    }
+
+    /**
+     * Get the SQL counting the filtered rows up to the {@link #LIMIT_PARAMETER}.
+     *
+     * @param plan   The way the rows are counted, which must apply to the filter
+     * @param filter The name filter
+     * @return The SQL
+     */
+    String cappedCount(CountPlan plan, Filter filter) {
+        return countTemplate(cappedCounts, plan, filter).use();
+    }
+
+    /**
+     * Get the SQL counting the rows of the sample id windows, bound to {@link #SAMPLE_FROM_PARAMETER} and
+     * {@link #SAMPLE_TO_PARAMETER} suffixed by the window index, and the filtered rows among them.
+     *
+     * @param filter The name filter
+     * @return The SQL returning the sampled and matched columns
+     */
+    String sampleCount(Filter filter) {
+        return sampleCounts[filter.ordinal()].use();
+    }
+
+    /**
+     * Get the SQL deleting the computers of the {@link #IDS_PARAMETER} list, to bind with {@link #bucket(List)}.
+     *
+     * @return The SQL
+     */
+    String deleteByIds() {
+        return deleteByIds.use();
+    }
+
+    /**
+     * Pad a list of ids bound to an IN list to the next power of two by repeating its last id,
+     * so that the expanded statement has one of a few texts. Lists longer than the largest bucket are left as is.
+     *
+     * @param ids The ids, not empty
+     * @return The padded ids
+     */
+    static List<Integer> bucket(List<Integer> ids) {
+        return bucket(ids, ids.size());
+    }
+
+    /**
+     * Pad a list of ids bound to an IN list to the bucket of a given size, so that lists shorter
+     * than that size expand to the same statement text, as the statements of a JDBC batch must.
+     *
+     * @param ids     The ids, not empty
+     * @param minSize The size whose bucket the list is padded to at least
+     * @return The padded ids
+     */
+    static List<Integer> bucket(List<Integer> ids, int minSize) {
+        if (ids.size() > MAX_BUCKET) {
+            return ids;
+        }
+        int size = MIN_BUCKET;
+        while (size < Math.max(ids.size(), minSize)) {
+            size <<= 1;
+        }
+        List<Integer> padded = new ArrayList<>(size);
+        padded.addAll(ids);
+        Integer last = ids.get(ids.size() - 1);
+        while (padded.size() < size) {
+            padded.add(last);
+        }
+        return padded;
+    }
+
+    /**
+     * Get the number of variants.
+     *
+     * @return The number of precomputed statements
+     */
+    @ManagedAttribute(description = "Number of precomputed statements")
+    public int getSize() {
+        return templates.size();
+    }
+
+    /**
+     * Check whether the variants read the denormalized company name.
+     *
+     * @return true if the company is not joined
+     */
+    @ManagedAttribute(description = "Whether the company name is read from the computer rather than joined")
+    public boolean isDenormalized() {
+        return denormalized;
+    }
+
+    /**
+     * Get the number of times each variant was used, unused variants being omitted.
+     *
+     * @return The hit count by variant name
+     */
+    @ManagedAttribute(description = "Hit count of each used statement")
+    public Map<String, Long> getHitCounts() {
+        Map<String, Long> hitCounts = new TreeMap<>();
+        for (Template template : templates) {
+            long hits = template.hits.sum();
+            if (hits > 0) {
+                hitCounts.put(template.name, hits);
+            }
+        }
+        return hitCounts;
+    }
+
+    /**
+     * Reset the hit counts.
+     */
+    @ManagedOperation(description = "Reset the hit counts")
+    public void resetHitCounts() {
+        templates.forEach(template -> template.hits.reset());
+    }
+
+    /**
+     * Build the condition selecting the rows of the sample id windows.
+     *
+     * @return The SQL condition
+     */
+    private static String sampleWindows() {
+        StringBuilder windows = new StringBuilder("(");
+        for (int i = 0; i < SAMPLE_WINDOWS; i++) {
+            windows.append(i == 0 ? "" : " OR ")
+                    .append("computer.id BETWEEN :").append(SAMPLE_FROM_PARAMETER).append(i)
+                    .append(" AND :").append(SAMPLE_TO_PARAMETER).append(i);
+        }
+        return windows.append(')').toString();
+    }
+
+    /**
+     * Add a variant to the registry.
+     *
+     * @param name The name of the variant
+     * @param sql  The SQL
+     * @return The variant
+     */
+    private Template register(String name, String sql) {
+        Template template = new Template(name, denormalized ? denormalize(sql) : sql);
+        templates.add(template);
+        return template;
+    }
+
+    /**
+     * Rewrite a statement to read the company name copied on the computer, without the company join.
+     * The FULLTEXT filter still matches the company names in their own index, then the computers by company id.
+     *
+     * @param sql The statement joining the company
+     * @return The statement reading the computer alone
+     */
+    private static String denormalize(String sql) {
+        return sql.replace(COMPANY_JOIN, "").replace(JOINED_COMPANY_NAME, DENORMALIZED_COMPANY_NAME);
+    }
+
+    /**
+     * Get a count variant.
+     *
+     * @param variants The variants of the count
+     * @param plan     The count plan
+     * @param filter   The name filter
+     * @return The variant
+     */
+    private static Template countTemplate(Template[] variants, CountPlan plan, Filter filter) {
+        Template template = variants[countIndex(plan, filter)];
+        if (template == null) {
+            throw new IllegalArgumentException("The " + plan + " plan can't count the " + filter + " filter");
+        }
+        return template;
+    }
+
+    /**
+     * Get the index of a count variant.
+     *
+     * @param plan   The count plan
+     * @param filter The name filter
+     * @return The index in {@link #counts} and {@link #cappedCounts}
+     */
+    private static int countIndex(CountPlan plan, Filter filter) {
+        return plan.ordinal() * Filter.values().length + filter.ordinal();
+    }
+
+    /**
+     * Get the index of a read variant.
+     *
+     * @param read   The rows to return
+     * @param filter The name filter
+     * @param column The sort column
+     * @param order  The sort order
+     * @return The index in {@link #reads}
+     */
+    private static int readIndex(Read read, Filter filter, SortColumn column, SortOrder order) {
+        return ((read.ordinal() * Filter.values().length + filter.ordinal()) * SortColumn.values().length + column.ordinal())
+                * SortOrder.values().length + order.ordinal();
+    }
+
+    /**
+     * Get the index of a seek variant.
+     *
+     * @param filter The name filter
+     * @param column The sort column
+     * @param scan   The scan order
+     * @param nulls  The bit mask of the null cursor values
+     * @return The index in {@link #seeks}
+     */
+    private int seekIndex(Filter filter, SortColumn column, SortOrder scan, int nulls) {
+        int index = (filter.ordinal() * SortColumn.values().length + column.ordinal()) * SortOrder.values().length + scan.ordinal();
+        return (index << maxKeys) | nulls;
+    }
+
+    /**
+     * Build the predicate selecting the rows located after a cursor in the scan order.
+     * <p>
+     * The row value comparison (k1, k2, ..., id) &gt; (v1, v2, ..., id) is expanded to
+     * k1 &gt; v1 OR (k1 = v1 AND k2 &gt; v2) OR ... so that it can be resolved by an index range scan.
+     * NULL keys follow MySQL ordering: first when ascending, last when descending.
+     *
+     * @param keys  The sort keys
+     * @param nulls The bit mask of the null cursor values
+     * @param scan  The order the rows are scanned with
+     * @return The predicate
+     */
+    private static String seekPredicate(String[] keys, int nulls, SortOrder scan) {
+        StringBuilder predicate = new StringBuilder();
+        for (int i = 0; i < keys.length; i++) {
+            String after = after(keys[i], SEEK_PARAMETER + i, (nulls & 1 << i) != 0, scan);
+            if (after == null) {
+                // Nothing can be located after a NULL key in descending order
+                continue;
+            }
+            predicate.append(predicate.length() == 0 ? "(" : " OR (");
+            for (int j = 0; j < i; j++) {
+                predicate.append((nulls & 1 << j) != 0 ? keys[j] + " IS NULL" : keys[j] + " = :" + SEEK_PARAMETER + j).append(" AND ");
+            }
+            predicate.append(after).append(')');
+        }
+        // A cursor of NULL keys only, scanned backward, has nothing after it
+        return predicate.length() == 0 ? "FALSE" : "(" + predicate + ")";
+    }
+
+    /**
+     * Build the condition selecting the key values located after a value in the scan order.
+     *
+     * @param key       The key
+     * @param parameter The name of the parameter holding the value
+     * @param isNull    Whether the value is null
+     * @param scan      The order the rows are scanned with
+     * @return The condition or null if no value can be located after
+     */
+    private static String after(String key, String parameter, boolean isNull, SortOrder scan) {
+        if (scan == SortOrder.ASC) {
+            return isNull ? key + " IS NOT NULL" : key + " > :" + parameter;
+        }
+        return isNull ? null : "(" + key + " < :" + parameter + " OR " + key + " IS NULL)";
+    }
+
+    /**
+     * Precomputed statement and its hit counter.
+     */
+    private static final class Template {
+
+        private final String name;
+        private final String sql;
+        private final LongAdder hits = new LongAdder();
+
+        /**
+         * Constructor.
+         *
+         * @param name The name of the variant
+         * @param sql  The SQL
+         */
+        private Template(String name, String sql) {
+            this.name = name;
+            this.sql = sql;
+        }
+
+        /**
+         * Count a hit and get the SQL.
+         *
+         * @return The SQL
+         */
+        private String use() {
+            hits.increment();
+            return sql;
+        }
+    }
+}
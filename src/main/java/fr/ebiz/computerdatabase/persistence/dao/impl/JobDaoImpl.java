@@ -0,0 +1,252 @@
+package fr.ebiz.computerdatabase.persistence.dao.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import fr.ebiz.computerdatabase.model.Job;
+import fr.ebiz.computerdatabase.model.JobStatus;
+import fr.ebiz.computerdatabase.model.JobType;
+import fr.ebiz.computerdatabase.persistence.dao.JobDao;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+// Job rows are visible right away, even when a job updates its progress from within a transaction of its work
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Repository
+public class JobDaoImpl implements JobDao {
+
+    private static final String INSERT_QUERY = "INSERT INTO job (type, status, parameters, owner, heartbeat) "
+            + "VALUES (:type, :status, :parameters, :owner, CURRENT_TIMESTAMP)";
+    private static final String READ_BY_ID_QUERY = "SELECT * FROM job WHERE id = :id";
+    private static final String READ_BY_STATUS_QUERY = "SELECT * FROM job WHERE status = :status ORDER BY id";
+    // The heartbeats are compared to the clock of the database, the one they are written with
+    private static final String STALE = "(heartbeat IS NULL OR heartbeat < TIMESTAMPADD(MICROSECOND, -1000 * :timeout, CURRENT_TIMESTAMP))";
+    private static final String READ_STALE_QUERY = "SELECT * FROM job WHERE status IN ('PENDING', 'RUNNING') AND " + STALE + " ORDER BY id";
+    private static final String START_QUERY = "UPDATE job SET status = 'RUNNING', owner = :owner, heartbeat = CURRENT_TIMESTAMP "
+            + "WHERE id = :id AND status = 'PENDING'";
+    private static final String TAKE_OVER_QUERY = "UPDATE job SET status = :to, result = COALESCE(:result, result), owner = :owner, "
+            + "heartbeat = CURRENT_TIMESTAMP WHERE id = :id AND status = :from AND " + STALE;
+    private static final String HEARTBEAT_QUERY = "UPDATE job SET heartbeat = CURRENT_TIMESTAMP "
+            + "WHERE owner = :owner AND status IN ('PENDING', 'RUNNING')";
+    private static final String RELEASE_QUERY = "UPDATE job SET heartbeat = NULL WHERE owner = :owner AND status IN ('PENDING', 'RUNNING')";
+    private static final String UPDATE_STATUS_QUERY = "UPDATE job SET status = :to, result = COALESCE(:result, result) WHERE id = :id AND status = :from";
+    private static final String UPDATE_PROGRESS_QUERY = "UPDATE job SET progress = :progress, total = :total WHERE id = :id";
+    private static final String CANCEL_QUERY = "UPDATE job SET cancel_requested = TRUE WHERE id = :id AND status IN ('PENDING', 'RUNNING')";
+
+    private static final String ID_COLUMN_NAME = "id";
+    private static final String TYPE_COLUMN_NAME = "type";
+    private static final String STATUS_COLUMN_NAME = "status";
+    private static final String PARAMETERS_COLUMN_NAME = "parameters";
+    private static final String PROGRESS_COLUMN_NAME = "progress";
+    private static final String TOTAL_COLUMN_NAME = "total";
+    private static final String CANCEL_REQUESTED_COLUMN_NAME = "cancel_requested";
+    private static final String RESULT_COLUMN_NAME = "result";
+    private static final String OWNER_COLUMN_NAME = "owner";
+    private static final String TIMEOUT_PARAMETER = "timeout";
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final TypeReference<Map<String, String>> PARAMETERS_TYPE = new TypeReference<Map<String, String>>() {
+    };
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    /**
+     * Constructor.
+     *
+     * @param dataSource The dataSource
+     */
+    @Autowired
+    public JobDaoImpl(DataSource dataSource) {
+        this.jdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean insert(Job job) {
+        MapSqlParameterSource parameters = new MapSqlParameterSource()
+                .addValue(TYPE_COLUMN_NAME, job.getType().name())
+                .addValue(STATUS_COLUMN_NAME, job.getStatus().name())
+                .addValue(PARAMETERS_COLUMN_NAME, writeParameters(job.getParameters()))
+                .addValue(OWNER_COLUMN_NAME, job.getOwner());
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        int affectedRows = jdbcTemplate.update(INSERT_QUERY, parameters, keyHolder);
+        job.setId(keyHolder.getKey().longValue());
+        return affectedRows == 1;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Optional<Job> get(long id) {
+        try {
+            return Optional.of(jdbcTemplate.queryForObject(READ_BY_ID_QUERY, Collections.singletonMap(ID_COLUMN_NAME, id), (rs, row) -> mapRow(rs)));
+        } catch (EmptyResultDataAccessException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Job> getByStatus(JobStatus status) {
+        return jdbcTemplate.query(READ_BY_STATUS_QUERY, Collections.singletonMap(STATUS_COLUMN_NAME, status.name()), (rs, row) -> mapRow(rs));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Job> getStale(long timeout) {
+        return jdbcTemplate.query(READ_STALE_QUERY, Collections.singletonMap(TIMEOUT_PARAMETER, timeout), (rs, row) -> mapRow(rs));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean start(long id, String owner) {
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put(ID_COLUMN_NAME, id);
+        parameters.put(OWNER_COLUMN_NAME, owner);
+        return jdbcTemplate.update(START_QUERY, parameters) == 1;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean takeOver(long id, JobStatus from, JobStatus to, String result, String owner, long timeout) {
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put(ID_COLUMN_NAME, id);
+        parameters.put("from", from.name());
+        parameters.put("to", to.name());
+        parameters.put(RESULT_COLUMN_NAME, result);
+        parameters.put(OWNER_COLUMN_NAME, owner);
+        parameters.put(TIMEOUT_PARAMETER, timeout);
+        return jdbcTemplate.update(TAKE_OVER_QUERY, parameters) == 1;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int heartbeat(String owner) {
+        return jdbcTemplate.update(HEARTBEAT_QUERY, Collections.singletonMap(OWNER_COLUMN_NAME, owner));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int release(String owner) {
+        return jdbcTemplate.update(RELEASE_QUERY, Collections.singletonMap(OWNER_COLUMN_NAME, owner));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean updateStatus(long id, JobStatus from, JobStatus to, String result) {
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put(ID_COLUMN_NAME, id);
+        parameters.put("from", from.name());
+        parameters.put("to", to.name());
+        parameters.put(RESULT_COLUMN_NAME, result);
+        return jdbcTemplate.update(UPDATE_STATUS_QUERY, parameters) == 1;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean updateProgress(long id, int progress, Integer total) {
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put(ID_COLUMN_NAME, id);
+        parameters.put(PROGRESS_COLUMN_NAME, progress);
+        parameters.put(TOTAL_COLUMN_NAME, total);
+        return jdbcTemplate.update(UPDATE_PROGRESS_QUERY, parameters) == 1;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean requestCancel(long id) {
+        return jdbcTemplate.update(CANCEL_QUERY, Collections.singletonMap(ID_COLUMN_NAME, id)) == 1;
+    }
+
+    /**
+     * Map the current row of a result set to a job.
+     *
+     * @param rs The result set
+     * @return The job
+     * @throws SQLException if a column can't be read
+     */
+    private static Job mapRow(ResultSet rs) throws SQLException {
+        int total = rs.getInt(TOTAL_COLUMN_NAME);
+        return Job.builder()
+                .id(rs.getLong(ID_COLUMN_NAME))
+                .type(JobType.valueOf(rs.getString(TYPE_COLUMN_NAME)))
+                .status(JobStatus.valueOf(rs.getString(STATUS_COLUMN_NAME)))
+                .parameters(readParameters(rs.getString(PARAMETERS_COLUMN_NAME)))
+                .progress(rs.getInt(PROGRESS_COLUMN_NAME))
+                .total(rs.wasNull() ? null : total)
+                .cancelRequested(rs.getBoolean(CANCEL_REQUESTED_COLUMN_NAME))
+                .result(rs.getString(RESULT_COLUMN_NAME))
+                .owner(rs.getString(OWNER_COLUMN_NAME))
+                .build();
+    }
+
+    /**
+     * Serialize the parameters of a job.
+     *
+     * @param parameters The parameters
+     * @return The JSON object
+     */
+    private static String writeParameters(Map<String, String> parameters) {
+        try {
+            return MAPPER.writeValueAsString(parameters);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Job parameters can't be serialized", e);
+        }
+    }
+
+    /**
+     * Deserialize the parameters of a job.
+     *
+     * @param json The JSON object or null
+     * @return The parameters
+     */
+    private static Map<String, String> readParameters(String json) {
+        if (json == null) {
+            return Collections.emptyMap();
+        }
+        try {
+            return MAPPER.readValue(json, PARAMETERS_TYPE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,380 @@
+package fr.ebiz.computerdatabase.persistence.index;
+
+import fr.ebiz.computerdatabase.utils.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * In-memory trigram index over the computer and company names.
+ * <p>
+ * It answers the dashboard search (computers whose name or company name contains the query)
+ * with id sets, so that filtered queries only need to fetch the rows of a page.
+ * Matching ignores case and accents like the database collation, and queries holding LIKE wildcards are left to SQL.
+ * <p>
+ * The index is built at startup when enabled and kept up to date by the services of this process after each commit.
+ * Rows written by other processes (the CLI, other web nodes) are only seen by the periodic resync, which rebuilds
+ * the index in the background and swaps it in, so searches may miss them for up to the resync interval.
+ */
+@Component
+public class ComputerNameIndex {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ComputerNameIndex.class);
+
+    private static final String READ_COMPANIES_QUERY = "SELECT id, name FROM company";
+    private static final String READ_COMPUTERS_QUERY = "SELECT id, name, company_id FROM computer";
+    private static final String LIKE_WILDCARDS = "%_\\";
+    private static final int NO_COMPANY = 0;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ScheduledExecutorService resyncExecutor;
+
+    private State state = new State();
+    private List<Consumer<State>> pendingChanges;
+    private volatile boolean ready;
+
+    /**
+     * Constructor.
+     *
+     * @param dataSource     The JDBC DataSource
+     * @param enabled        Whether the index is built and used
+     * @param resyncInterval The number of milliseconds between two rebuilds from the database, 0 to disable
+     */
+    @Autowired
+    public ComputerNameIndex(DataSource dataSource, @Value("${nameIndex.enabled:false}") boolean enabled,
+                             @Value("${nameIndex.resyncInterval:300000}") long resyncInterval) {
+        if (resyncInterval < 0) {
+            throw new IllegalArgumentException("Name index resync interval must be >= 0");
+        }
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        // Stream the rows instead of loading the whole tables in the driver
+        this.jdbcTemplate.setFetchSize(Integer.MIN_VALUE);
+        this.enabled = enabled;
+        if (enabled && resyncInterval > 0) {
+            this.resyncExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "name-index-resync");
+                thread.setDaemon(true);
+                return thread;
+            });
+            this.resyncExecutor.scheduleWithFixedDelay(this::resyncQuietly, resyncInterval, resyncInterval, TimeUnit.MILLISECONDS);
+        } else {
+            this.resyncExecutor = null;
+        }
+    }
+
+    /**
+     * Build the index from the database.
+     */
+    @PostConstruct
+    public void build() {
+        if (!enabled) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        State loaded = load();
+        lock.writeLock().lock();
+        try {
+            state = loaded;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        LOGGER.info("Name index built with {} computers and {} companies in {} ms",
+                loaded.computerNames.size(), loaded.companyNames.size(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Rebuild the index from the database while it keeps answering searches, then swap it in.
+     * The changes made by this process during the rebuild are applied again to the rebuilt index.
+     */
+    public synchronized void resync() {
+        if (!ready) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        lock.writeLock().lock();
+        try {
+            pendingChanges = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        State rebuilt = null;
+        try {
+            rebuilt = load();
+        } finally {
+            lock.writeLock().lock();
+            try {
+                if (rebuilt != null) {
+                    // The changes set the latest values, so replaying the ones the load already saw is harmless
+                    for (Consumer<State> change : pendingChanges) {
+                        change.accept(rebuilt);
+                    }
+                    state = rebuilt;
+                }
+                pendingChanges = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        LOGGER.debug("Name index resynchronized in {} ms", System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Stop the periodic resync.
+     */
+    @PreDestroy
+    public void close() {
+        if (resyncExecutor != null) {
+            resyncExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * Check whether the index is built and can answer a query the way the SQL search would.
+     *
+     * @param query The searched string
+     * @return true if the index is ready, the query not blank and without LIKE wildcards
+     */
+    public boolean canSearch(String query) {
+        if (!ready || StringUtils.isBlank(query)) {
+            return false;
+        }
+        for (int i = 0; i < query.length(); i++) {
+            if (LIKE_WILDCARDS.indexOf(query.charAt(i)) >= 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Check whether the index can answer searches.
+     *
+     * @return true if the index is enabled and built
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Find the computers whose name or company name contains a string, ignoring case and accents.
+     *
+     * @param query The string to look for
+     * @return The sorted ids of the matching computers
+     */
+    public int[] search(String query) {
+        if (StringUtils.isBlank(query)) {
+            throw new IllegalArgumentException("The query must not be blank");
+        }
+        lock.readLock().lock();
+        try {
+            int[] byName = state.computerNames.search(query);
+            int[] companies = state.companyNames.search(query);
+            if (companies.length == 0) {
+                return byName;
+            }
+
+            BitSet matches = new BitSet();
+            Arrays.stream(byName).forEach(matches::set);
+            for (int companyId : companies) {
+                IntList computers = state.computersByCompany.get(companyId);
+                if (computers != null) {
+                    computers.forEach(matches::set);
+                }
+            }
+            return matches.stream().toArray();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Index a computer, replacing its previous values.
+     *
+     * @param id        The computer id
+     * @param name      The computer name
+     * @param companyId The company id or null
+     */
+    public void putComputer(int id, String name, Integer companyId) {
+        change(state -> state.putComputer(id, name, companyId == null ? NO_COMPANY : companyId));
+    }
+
+    /**
+     * Remove a computer from the index.
+     *
+     * @param id The computer id
+     */
+    public void removeComputer(int id) {
+        change(state -> state.removeComputer(id));
+    }
+
+    /**
+     * Remove computers from the index.
+     *
+     * @param ids The computer ids
+     */
+    public void removeComputers(List<Integer> ids) {
+        change(state -> ids.forEach(state::removeComputer));
+    }
+
+    /**
+     * Remove the computers of a company from the index.
+     *
+     * @param companyId The company id
+     */
+    public void removeComputersOfCompany(int companyId) {
+        change(state -> state.removeComputersOfCompany(companyId));
+    }
+
+    /**
+     * Index a company name, replacing its previous name.
+     *
+     * @param companyId The company id
+     * @param name      The company name
+     */
+    public void putCompany(int companyId, String name) {
+        change(state -> state.companyNames.put(companyId, name));
+    }
+
+    /**
+     * Remove a company and its computers from the index.
+     *
+     * @param companyId The company id
+     */
+    public void removeCompany(int companyId) {
+        change(state -> {
+            state.removeComputersOfCompany(companyId);
+            state.companyNames.remove(companyId);
+        });
+    }
+
+    /**
+     * Apply a change to the index, and record it for the rebuilt index when a resync is running.
+     *
+     * @param change The change
+     */
+    private void change(Consumer<State> change) {
+        if (!ready) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            change.accept(state);
+            if (pendingChanges != null) {
+                pendingChanges.add(change);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Load a new index from the database, without holding the lock.
+     *
+     * @return The loaded index
+     */
+    private State load() {
+        State loaded = new State();
+        jdbcTemplate.query(READ_COMPANIES_QUERY, rs -> {
+            loaded.companyNames.put(rs.getInt(1), rs.getString(2));
+        });
+        jdbcTemplate.query(READ_COMPUTERS_QUERY, rs -> {
+            loaded.putComputer(rs.getInt(1), rs.getString(2), rs.getInt(3));
+        });
+        return loaded;
+    }
+
+    /**
+     * Resync the index, logging the failures so that the next resync still runs.
+     */
+    private void resyncQuietly() {
+        try {
+            resync();
+        } catch (RuntimeException e) {
+            LOGGER.warn("Name index resync failed, the current index is kept", e);
+        }
+    }
+
+    /**
+     * The indexed names and the company of each computer. Guarded by the lock once published.
+     */
+    private static final class State {
+
+        private final TrigramIndex computerNames = new TrigramIndex();
+        private final TrigramIndex companyNames = new TrigramIndex();
+        private final Map<Integer, IntList> computersByCompany = new HashMap<>();
+        private int[] companyOf = new int[0];
+
+        /**
+         * Index a computer.
+         *
+         * @param id        The computer id
+         * @param name      The computer name
+         * @param companyId The company id or 0 without company
+         */
+        private void putComputer(int id, String name, int companyId) {
+            removeComputer(id);
+            computerNames.put(id, name);
+            if (id >= companyOf.length) {
+                companyOf = Arrays.copyOf(companyOf, Math.max(id + 1, companyOf.length + (companyOf.length >> 1)));
+            }
+            companyOf[id] = companyId;
+            if (companyId != NO_COMPANY) {
+                computersByCompany.computeIfAbsent(companyId, key -> new IntList()).add(id);
+            }
+        }
+
+        /**
+         * Remove a computer.
+         *
+         * @param id The computer id
+         */
+        private void removeComputer(int id) {
+            computerNames.remove(id);
+            if (id < companyOf.length && companyOf[id] != NO_COMPANY) {
+                IntList computers = computersByCompany.get(companyOf[id]);
+                if (computers != null && computers.remove(id) && computers.isEmpty()) {
+                    computersByCompany.remove(companyOf[id]);
+                }
+                companyOf[id] = NO_COMPANY;
+            }
+        }
+
+        /**
+         * Remove the computers of a company.
+         *
+         * @param companyId The company id
+         */
+        private void removeComputersOfCompany(int companyId) {
+            IntList computers = computersByCompany.remove(companyId);
+            if (computers != null) {
+                computers.forEach(id -> {
+                    computerNames.remove(id);
+                    companyOf[id] = NO_COMPANY;
+                });
+            }
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package fr.ebiz.computerdatabase.persistence.index;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.function.IntConsumer;
+
+/**
+ * Growable sorted set of primitive ints, used as a posting list.
+ * <p>
+ * Ids are mostly added in increasing order, which makes the common insertion an append.
+ * Removed values are only marked, then dropped all at once when they make up half of the list,
+ * so that removing many values costs a single pass instead of one shift each.
+ */
+final class IntList {
+
+    private static final int[] EMPTY = new int[0];
+    private static final int MIN_CAPACITY = 4;
+
+    private int[] values = EMPTY;
+    private int size;
+    private final BitSet removed = new BitSet();
+    private int removedCount;
+
+    /**
+     * Add a value if it is not already in the list.
+     *
+     * @param value The value to add
+     */
+    void add(int value) {
+        if (size == 0 || values[size - 1] < value) {
+            ensureCapacity();
+            values[size++] = value;
+            return;
+        }
+        int index = Arrays.binarySearch(values, 0, size, value);
+        if (index >= 0) {
+            if (removed.get(index)) {
+                removed.clear(index);
+                removedCount--;
+            }
+            return;
+        }
+        // The removal marks don't follow the shifted values, so they are applied first
+        if (removedCount > 0) {
+            compact();
+            index = Arrays.binarySearch(values, 0, size, value);
+        }
+        int insertion = -index - 1;
+        ensureCapacity();
+        System.arraycopy(values, insertion, values, insertion + 1, size - insertion);
+        values[insertion] = value;
+        size++;
+    }
+
+    /**
+     * Remove a value.
+     *
+     * @param value The value to remove
+     * @return true if the value was in the list
+     */
+    boolean remove(int value) {
+        int index = Arrays.binarySearch(values, 0, size, value);
+        if (index < 0 || removed.get(index)) {
+            return false;
+        }
+        removed.set(index);
+        removedCount++;
+        if (removedCount > size >> 1) {
+            compact();
+        }
+        return true;
+    }
+
+    /**
+     * Check whether a value is in the list.
+     *
+     * @param value The value to look for
+     * @return true if the value is in the list
+     */
+    boolean contains(int value) {
+        int index = Arrays.binarySearch(values, 0, size, value);
+        return index >= 0 && !removed.get(index);
+    }
+
+    /**
+     * Get the number of values.
+     *
+     * @return The size of the list
+     */
+    int size() {
+        return size - removedCount;
+    }
+
+    /**
+     * Check whether the list has no value.
+     *
+     * @return true if the list is empty
+     */
+    boolean isEmpty() {
+        return size == removedCount;
+    }
+
+    /**
+     * Pass each value to an action, in increasing order.
+     *
+     * @param action The action
+     */
+    void forEach(IntConsumer action) {
+        for (int i = 0; i < size; i++) {
+            if (removedCount == 0 || !removed.get(i)) {
+                action.accept(values[i]);
+            }
+        }
+    }
+
+    /**
+     * Copy the values.
+     *
+     * @return The sorted values
+     */
+    int[] toArray() {
+        if (removedCount == 0) {
+            return Arrays.copyOf(values, size);
+        }
+        int[] copy = new int[size()];
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            if (!removed.get(i)) {
+                copy[count++] = values[i];
+            }
+        }
+        return copy;
+    }
+
+    /**
+     * Drop the removed values.
+     */
+    private void compact() {
+        int live = 0;
+        for (int i = 0; i < size; i++) {
+            if (!removed.get(i)) {
+                values[live++] = values[i];
+            }
+        }
+        size = live;
+        removed.clear();
+        removedCount = 0;
+    }
+
+    /**
+     * Grow the backing array by half when it is full.
+     */
+    private void ensureCapacity() {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, Math.max(MIN_CAPACITY, size + (size >> 1)));
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package fr.ebiz.computerdatabase.persistence.index;
+
+import java.text.Normalizer;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Inverted index from the trigrams of a text to the ids of the texts containing them.
+ * <p>
+ * A substring search intersects the posting lists of the trigrams of the searched string,
+ * then checks the candidates against the indexed text to drop false positives.
+ * Texts and queries are compared without case and accents, as the database collation does.
+ * This class is not thread-safe.
+ */
+final class TrigramIndex {
+
+    private static final int GRAM_SIZE = 3;
+    private static final int LAST_ASCII = 0x7F;
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+
+    private final Map<Long, IntList> postings = new HashMap<>();
+    private String[] texts = new String[0];
+    private int size;
+
+    /**
+     * Index a text, replacing the previous text of the id.
+     *
+     * @param id   The id of the text, must be positive
+     * @param text The text to index, null to only remove the previous text
+     */
+    void put(int id, String text) {
+        remove(id);
+        if (text == null) {
+            return;
+        }
+        String normalized = normalize(text);
+        if (id >= texts.length) {
+            texts = Arrays.copyOf(texts, Math.max(id + 1, texts.length + (texts.length >> 1)));
+        }
+        texts[id] = normalized;
+        size++;
+        for (long gram : grams(normalized)) {
+            postings.computeIfAbsent(gram, key -> new IntList()).add(id);
+        }
+    }
+
+    /**
+     * Remove the text of an id from the index.
+     *
+     * @param id The id of the text
+     */
+    void remove(int id) {
+        if (id < 0 || id >= texts.length || texts[id] == null) {
+            return;
+        }
+        for (long gram : grams(texts[id])) {
+            IntList posting = postings.get(gram);
+            if (posting != null && posting.remove(id) && posting.isEmpty()) {
+                postings.remove(gram);
+            }
+        }
+        texts[id] = null;
+        size--;
+    }
+
+    /**
+     * Find the ids of the texts containing a string, ignoring case.
+     *
+     * @param query The string to look for
+     * @return The sorted ids
+     */
+    int[] search(String query) {
+        String normalized = normalize(query);
+        if (normalized.length() < GRAM_SIZE) {
+            return scan(normalized);
+        }
+
+        long[] grams = grams(normalized);
+        IntList[] lists = new IntList[grams.length];
+        for (int i = 0; i < grams.length; i++) {
+            lists[i] = postings.get(grams[i]);
+            if (lists[i] == null) {
+                return new int[0];
+            }
+        }
+        // Start from the rarest trigram so that each intersection only shrinks a small candidate set
+        Arrays.sort(lists, Comparator.comparingInt(IntList::size));
+
+        int[] matches = lists[0].toArray();
+        int count = 0;
+        for (int id : matches) {
+            if (containsInAll(lists, id) && texts[id].contains(normalized)) {
+                matches[count++] = id;
+            }
+        }
+        return Arrays.copyOf(matches, count);
+    }
+
+    /**
+     * Get the number of indexed texts.
+     *
+     * @return The number of indexed texts
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Check whether an id is in every posting list but the first.
+     *
+     * @param lists The posting lists
+     * @param id    The id
+     * @return true if every list contains the id
+     */
+    private static boolean containsInAll(IntList[] lists, int id) {
+        for (int i = 1; i < lists.length; i++) {
+            if (!lists[i].contains(id)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Find the texts containing a string too short to have a trigram.
+     *
+     * @param normalized The normalized string
+     * @return The sorted ids
+     */
+    private int[] scan(String normalized) {
+        int[] matches = new int[size];
+        int count = 0;
+        for (int id = 0; id < texts.length && count < size; id++) {
+            if (texts[id] != null && texts[id].contains(normalized)) {
+                matches[count++] = id;
+            }
+        }
+        return Arrays.copyOf(matches, count);
+    }
+
+    /**
+     * Get the distinct trigrams of a text, each packed in a long.
+     *
+     * @param text The normalized text
+     * @return The sorted distinct trigrams
+     */
+    private static long[] grams(String text) {
+        if (text.length() < GRAM_SIZE) {
+            return new long[0];
+        }
+        long[] grams = new long[text.length() - GRAM_SIZE + 1];
+        for (int i = 0; i < grams.length; i++) {
+            grams[i] = ((long) text.charAt(i) << 32) | ((long) text.charAt(i + 1) << 16) | text.charAt(i + 2);
+        }
+        Arrays.sort(grams);
+        int distinct = 0;
+        for (int i = 0; i < grams.length; i++) {
+            if (i == 0 || grams[i] != grams[i - 1]) {
+                grams[distinct++] = grams[i];
+            }
+        }
+        return Arrays.copyOf(grams, distinct);
+    }
+
+    /**
+     * Normalize a text so that searches ignore case and accents.
+     *
+     * @param text The text
+     * @return The normalized text
+     */
+    private static String normalize(String text) {
+        String lowerCase = text.toLowerCase(Locale.ROOT);
+        for (int i = 0; i < lowerCase.length(); i++) {
+            if (lowerCase.charAt(i) > LAST_ASCII) {
+                // Decomposed, an accented letter is its base letter followed by combining marks
+                return COMBINING_MARKS.matcher(Normalizer.normalize(lowerCase, Normalizer.Form.NFD)).replaceAll("");
+            }
+        }
+        return lowerCase;
+    }
+}
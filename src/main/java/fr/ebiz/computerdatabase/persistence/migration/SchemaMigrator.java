@@ -0,0 +1,207 @@
+package fr.ebiz.computerdatabase.persistence.migration;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.SingleColumnRowMapper;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StreamUtils;
+
+import javax.annotation.PostConstruct;
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+/**
+ * Versioned schema migrations, applied in order once each.
+ * <p>
+ * The scripts are the {@code db/migration/<version>-<NAME>.sql} classpath resources, and the applied versions are
+ * recorded in the {@code schema_migration} table. The numbered scripts of {@code db/} create the schema and the
+ * database user, they are run once by hand and the migrations follow them.
+ * A MySQL named lock keeps two processes starting at the same time from applying the same script twice.
+ */
+@Component
+public class SchemaMigrator {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SchemaMigrator.class);
+
+    private static final String SCRIPTS_LOCATION = "classpath*:db/migration/*.sql";
+    private static final Pattern SCRIPT_NAME = Pattern.compile("(\\d+)-[\\w-]+\\.sql");
+    private static final String LOCK_NAME = "computer-database-migration";
+    private static final int LOCK_TIMEOUT_SECONDS = 600;
+
+    private static final String CREATE_TABLE_QUERY = "CREATE TABLE IF NOT EXISTS schema_migration ("
+            + "version int NOT NULL, script varchar(255) NOT NULL, checksum bigint NOT NULL, "
+            + "applied timestamp NOT NULL DEFAULT CURRENT_TIMESTAMP, CONSTRAINT pk_schema_migration PRIMARY KEY (version))";
+    private static final String READ_APPLIED_QUERY = "SELECT version, checksum FROM schema_migration";
+    private static final String INSERT_APPLIED_QUERY = "INSERT INTO schema_migration (version, script, checksum) VALUES (?, ?, ?)";
+    private static final String LOCK_QUERY = "SELECT GET_LOCK(?, ?)";
+    private static final String UNLOCK_QUERY = "SELECT RELEASE_LOCK(?)";
+
+    private final DataSource dataSource;
+    private final boolean runOnStartup;
+
+    /**
+     * Constructor.
+     *
+     * @param dataSource   The JDBC DataSource
+     * @param runOnStartup Whether the pending migrations are applied when the application starts
+     */
+    @Autowired
+    public SchemaMigrator(DataSource dataSource, @Value("${migrations.runOnStartup:true}") boolean runOnStartup) {
+        this.dataSource = dataSource;
+        this.runOnStartup = runOnStartup;
+    }
+
+    /**
+     * Apply the pending migrations when the application starts, if enabled.
+     */
+    @PostConstruct
+    public void init() {
+        if (runOnStartup) {
+            migrate();
+        }
+    }
+
+    /**
+     * Apply the pending migrations, in version order.
+     * Each script is recorded once it ran, so that a failed script is the first one applied by the next run.
+     *
+     * @return The names of the applied scripts
+     */
+    public List<String> migrate() {
+        // Outside of any transaction the DataSource hands out a primary connection, the lock and the DDL share it
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        return jdbcTemplate.execute((Connection connection) -> {
+            JdbcTemplate template = new JdbcTemplate(new SingleConnectionDataSource(connection, true));
+            Integer locked = template.queryForObject(LOCK_QUERY, Integer.class, LOCK_NAME, LOCK_TIMEOUT_SECONDS);
+            if (locked == null || locked != 1) {
+                throw new IllegalStateException("Another process is migrating the schema");
+            }
+            try {
+                return migrate(connection, template);
+            } finally {
+                template.query(UNLOCK_QUERY, new SingleColumnRowMapper<>(Integer.class), LOCK_NAME);
+            }
+        });
+    }
+
+    /**
+     * Get the migrations which are not applied yet.
+     *
+     * @return The names of the pending scripts, in version order
+     */
+    public List<String> getPending() {
+        JdbcTemplate template = new JdbcTemplate(dataSource);
+        template.execute(CREATE_TABLE_QUERY);
+        Map<Integer, Long> applied = readApplied(template);
+        List<String> pending = new ArrayList<>();
+        findScripts().forEach((version, script) -> {
+            if (!applied.containsKey(version)) {
+                pending.add(script.getFilename());
+            }
+        });
+        return pending;
+    }
+
+    /**
+     * Apply the pending migrations on a connection holding the migration lock.
+     *
+     * @param connection The connection
+     * @param template   A template using the connection
+     * @return The names of the applied scripts
+     */
+    private List<String> migrate(Connection connection, JdbcTemplate template) {
+        template.execute(CREATE_TABLE_QUERY);
+        Map<Integer, Long> applied = readApplied(template);
+        List<String> scripts = new ArrayList<>();
+        for (Map.Entry<Integer, Resource> entry : findScripts().entrySet()) {
+            Resource script = entry.getValue();
+            long checksum = checksum(script);
+            Long appliedChecksum = applied.get(entry.getKey());
+            if (appliedChecksum != null) {
+                if (appliedChecksum != checksum) {
+                    LOGGER.warn("Migration {} changed since it was applied, it is not run again", script.getFilename());
+                }
+                continue;
+            }
+            long start = System.currentTimeMillis();
+            ScriptUtils.executeSqlScript(connection, script);
+            template.update(INSERT_APPLIED_QUERY, entry.getKey(), script.getFilename(), checksum);
+            LOGGER.info("Migration {} applied in {} ms", script.getFilename(), System.currentTimeMillis() - start);
+            scripts.add(script.getFilename());
+        }
+        return scripts;
+    }
+
+    /**
+     * Read the applied versions.
+     *
+     * @param template The template to read with
+     * @return The checksum of the applied scripts, by version
+     */
+    private static Map<Integer, Long> readApplied(JdbcTemplate template) {
+        Map<Integer, Long> applied = new TreeMap<>();
+        template.query(READ_APPLIED_QUERY, rs -> {
+            applied.put(rs.getInt(1), rs.getLong(2));
+        });
+        return applied;
+    }
+
+    /**
+     * Find the migration scripts on the classpath.
+     *
+     * @return The scripts by version
+     */
+    private static Map<Integer, Resource> findScripts() {
+        Resource[] resources;
+        try {
+            resources = new PathMatchingResourcePatternResolver().getResources(SCRIPTS_LOCATION);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        Map<Integer, Resource> scripts = new TreeMap<>();
+        for (Resource resource : resources) {
+            Matcher matcher = SCRIPT_NAME.matcher(resource.getFilename());
+            if (!matcher.matches()) {
+                throw new IllegalStateException("Invalid migration script name " + resource.getFilename());
+            }
+            Resource previous = scripts.put(Integer.valueOf(matcher.group(1)), resource);
+            if (previous != null) {
+                throw new IllegalStateException("Migrations " + previous.getFilename() + " and " + resource.getFilename() + " have the same version");
+            }
+        }
+        return scripts;
+    }
+
+    /**
+     * Compute the checksum of a script.
+     *
+     * @param script The script
+     * @return The CRC32 of its content
+     */
+    private static long checksum(Resource script) {
+        CRC32 crc = new CRC32();
+        try (InputStream input = script.getInputStream()) {
+            crc.update(StreamUtils.copyToByteArray(input));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return crc.getValue();
+    }
+}
@@ -0,0 +1,64 @@
+package fr.ebiz.computerdatabase.persistence.routing;
+
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * DataSource giving the connections of the asynchronous reads from their own pools.
+ * <p>
+ * A request thread holds its connection while it waits for the reads it started on the DAO executor.
+ * If those reads shared its pool, busy request threads could hold every connection and wait forever for reads
+ * that can't get one. The reads running on the DAO executor are flagged in the {@link RoutingContext}.
+ */
+public class AsyncReadRoutingDataSource extends AbstractDataSource implements Closeable {
+
+    private final DataSource requestDataSource;
+    private final DataSource asyncReadDataSource;
+
+    /**
+     * Constructor.
+     *
+     * @param requestDataSource   The DataSource of every other connection, managed on its own
+     * @param asyncReadDataSource The DataSource of the asynchronous reads, sized to the DAO executor and closed along
+     */
+    public AsyncReadRoutingDataSource(DataSource requestDataSource, DataSource asyncReadDataSource) {
+        this.requestDataSource = requestDataSource;
+        this.asyncReadDataSource = asyncReadDataSource;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return target().getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return target().getConnection(username, password);
+    }
+
+    /**
+     * Get the DataSource of the current thread.
+     *
+     * @return The DataSource of the asynchronous reads on the DAO executor, the request DataSource otherwise
+     */
+    private DataSource target() {
+        return RoutingContext.isAsyncRead() ? asyncReadDataSource : requestDataSource;
+    }
+
+    /**
+     * Close the DataSource of the asynchronous reads if it can be closed.
+     *
+     * @throws IOException if the DataSource can't be closed
+     */
+    @Override
+    public void close() throws IOException {
+        if (asyncReadDataSource instanceof Closeable) {
+            ((Closeable) asyncReadDataSource).close();
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package fr.ebiz.computerdatabase.persistence.routing;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * DataSource sending the read-only transactions to replicas and everything else to the primary.
+ * <p>
+ * The transaction must be known when the connection is requested: wrap this DataSource in a
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy} so that the connection
+ * is only fetched at the first statement, once the transaction manager has set the read-only flag.
+ * <p>
+ * Replicas are used round-robin. A replica failing to give a connection is set aside until a periodic
+ * health check succeeds again, and reads go to the primary when no replica is healthy.
+ * A read issued within the read-your-writes window after a write of the same user also goes to the primary.
+ */
+public class ReplicaRoutingDataSource extends AbstractDataSource implements Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+
+    private final DataSource primary;
+    private final List<Replica> replicas;
+    private final long readYourWritesWindow;
+    private final AtomicInteger next = new AtomicInteger();
+    private final ScheduledExecutorService healthChecker;
+
+    /**
+     * Constructor.
+     *
+     * @param primary              The DataSource of the primary
+     * @param replicas             The DataSources of the replicas
+     * @param readYourWritesWindow The number of milliseconds reads go to the primary after a write, 0 to disable
+     * @param healthCheckInterval  The number of milliseconds between two health checks of the replicas
+     */
+    public ReplicaRoutingDataSource(DataSource primary, List<DataSource> replicas, long readYourWritesWindow, long healthCheckInterval) {
+        if (healthCheckInterval <= 0) {
+            throw new IllegalArgumentException("Health check interval must be > 0");
+        }
+        this.primary = primary;
+        List<Replica> list = new ArrayList<>();
+        for (int i = 0; i < replicas.size(); i++) {
+            list.add(new Replica(i, replicas.get(i)));
+        }
+        this.replicas = Collections.unmodifiableList(list);
+        this.readYourWritesWindow = readYourWritesWindow;
+        this.healthChecker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "replica-health-check");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.healthChecker.scheduleWithFixedDelay(this::checkReplicas, healthCheckInterval, healthCheckInterval, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return getConnection(DataSource::getConnection);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return getConnection(target -> target.getConnection(username, password));
+    }
+
+    /**
+     * Get a connection from the target of the current transaction.
+     *
+     * @param connector The way connections are requested from the target
+     * @return The connection
+     * @throws SQLException if the primary can't give a connection
+     */
+    private Connection getConnection(Connector connector) throws SQLException {
+        if (!routeToReplica()) {
+            if (TransactionSynchronizationManager.isActualTransactionActive() && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+                RoutingContext.markWrite();
+            }
+            return connector.connect(primary);
+        }
+
+        for (int attempt = 0; attempt < replicas.size(); attempt++) {
+            Replica replica = replicas.get(Math.floorMod(next.getAndIncrement(), replicas.size()));
+            if (!replica.healthy) {
+                continue;
+            }
+            try {
+                return connector.connect(replica.dataSource);
+            } catch (SQLException e) {
+                replica.healthy = false;
+                LOGGER.warn("Replica {} failed, reads fail over to the other replicas or the primary", replica.index, e);
+            }
+        }
+        return connector.connect(primary);
+    }
+
+    /**
+     * Check whether the current connection request can be served by a replica.
+     *
+     * @return true for a read-only transaction outside the read-your-writes window
+     */
+    private boolean routeToReplica() {
+        return !replicas.isEmpty() && TransactionSynchronizationManager.isCurrentTransactionReadOnly() && !isReadingYourWrites();
+    }
+
+    /**
+     * Check whether the current thread wrote within the read-your-writes window while replicas are configured.
+     * Its reads go to the primary, so whatever other users read from the replicas may be older than what it sees.
+     *
+     * @return true if the reads of the current thread must not be served from, nor feed, a shared cache
+     */
+    public boolean isReadingYourWrites() {
+        if (replicas.isEmpty()) {
+            return false;
+        }
+        Long lastWrite = RoutingContext.getLastWrite();
+        return lastWrite != null && System.currentTimeMillis() - lastWrite < readYourWritesWindow;
+    }
+
+    /**
+     * Check every replica and put the ones that work again back in the rotation.
+     */
+    void checkReplicas() {
+        for (Replica replica : replicas) {
+            boolean healthy;
+            try (Connection connection = replica.dataSource.getConnection()) {
+                healthy = connection.isValid(VALIDATION_TIMEOUT_SECONDS);
+            } catch (SQLException e) {
+                healthy = false;
+            }
+            if (healthy != replica.healthy) {
+                LOGGER.info("Replica {} is now {}", replica.index, healthy ? "up" : "down");
+            }
+            replica.healthy = healthy;
+        }
+    }
+
+    /**
+     * Stop the health checks and close the target DataSources that can be closed.
+     *
+     * @throws IOException if a DataSource can't be closed
+     */
+    @Override
+    public void close() throws IOException {
+        healthChecker.shutdownNow();
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof Closeable) {
+                ((Closeable) replica.dataSource).close();
+            }
+        }
+        if (primary instanceof Closeable) {
+            ((Closeable) primary).close();
+        }
+    }
+
+    /**
+     * A way to request a connection from a target DataSource.
+     */
+    @FunctionalInterface
+    private interface Connector {
+
+        /**
+         * Request a connection.
+         *
+         * @param target The target DataSource
+         * @return The connection
+         * @throws SQLException if the target can't give a connection
+         */
+        Connection connect(DataSource target) throws SQLException;
+    }
+
+    /**
+     * A replica and its health.
+     */
+    private static final class Replica {
+
+        private final int index;
+        private final DataSource dataSource;
+        private volatile boolean healthy = true;
+
+        /**
+         * Constructor.
+         *
+         * @param index      The position of the replica in the configuration
+         * @param dataSource The DataSource of the replica
+         */
+        private Replica(int index, DataSource dataSource) {
+            this.index = index;
+            this.dataSource = dataSource;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package fr.ebiz.computerdatabase.persistence.routing;
+
+/**
+ * Per-thread state of the routing: the time of the last write of the current user, and whether the thread runs
+ * an asynchronous read on the DAO executor, see {@link AsyncReadRoutingDataSource}.
+ * <p>
+ * Reads following a write by less than the read-your-writes window go to the primary, because replicas
+ * may not have applied the write yet. The web layer restores the time from the session at the start of
+ * each request, see {@link fr.ebiz.computerdatabase.filter.ReadYourWritesFilter}.
+ */
+public final class RoutingContext {
+
+    private static final ThreadLocal<Long> LAST_WRITE = new ThreadLocal<>();
+    private static final ThreadLocal<Boolean> ASYNC_READ = new ThreadLocal<>();
+
+    /**
+     * Private constructor.
+     */
+    private RoutingContext() {
+    }
+
+    /**
+     * Record that the current thread is writing.
+     */
+    public static void markWrite() {
+        LAST_WRITE.set(System.currentTimeMillis());
+    }
+
+    /**
+     * Get the time of the last write.
+     *
+     * @return The time in milliseconds or null if there was no write
+     */
+    public static Long getLastWrite() {
+        return LAST_WRITE.get();
+    }
+
+    /**
+     * Restore the time of the last write, typically at the start of a request.
+     *
+     * @param lastWrite The time in milliseconds or null if there was no write
+     */
+    public static void setLastWrite(Long lastWrite) {
+        if (lastWrite == null) {
+            LAST_WRITE.remove();
+        } else {
+            LAST_WRITE.set(lastWrite);
+        }
+    }
+
+    /**
+     * Check whether the current thread runs an asynchronous read on the DAO executor.
+     *
+     * @return true if its connections come from the pools of the asynchronous reads
+     */
+    public static boolean isAsyncRead() {
+        return ASYNC_READ.get() != null;
+    }
+
+    /**
+     * Set whether the current thread runs an asynchronous read on the DAO executor.
+     *
+     * @param asyncRead true while the read runs
+     */
+    public static void setAsyncRead(boolean asyncRead) {
+        if (asyncRead) {
+            ASYNC_READ.set(Boolean.TRUE);
+        } else {
+            ASYNC_READ.remove();
+        }
+    }
+
+    /**
+     * Forget the state of the current thread.
+     */
+    public static void clear() {
+        LAST_WRITE.remove();
+        ASYNC_READ.remove();
+    }
+}
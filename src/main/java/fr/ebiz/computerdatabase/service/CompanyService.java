@@ -1,10 +1,15 @@
 package fr.ebiz.computerdatabase.service;
 
+import fr.ebiz.computerdatabase.dto.CompanySnapshot;
 import fr.ebiz.computerdatabase.dto.paging.Page;
 import fr.ebiz.computerdatabase.dto.paging.Pageable;
 import fr.ebiz.computerdatabase.model.Company;
+import fr.ebiz.computerdatabase.model.CompanyDeletion;
+import fr.ebiz.computerdatabase.model.CompanyStats;
 
+import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface CompanyService {
 
@@ -24,13 +29,80 @@ public interface CompanyService {
      */
     Page<Company> getAll(Pageable pageable);
 
+    /**
+     * Find the companies whose name starts with a prefix, sorted by name.
+     *
+     * @param prefix The beginning of the name, case insensitive
+     * @param after  The last company of the previous page or null for the first page
+     * @param limit  The maximum number of companies to get
+     * @return The matching companies
+     */
+    List<Company> search(String prefix, Company after, int limit);
+
+    /**
+     * Get every company sorted by name.
+     * The same snapshot is returned until the companies change, in any process:
+     * its version is checked against the database at most once per check interval.
+     *
+     * @return The current snapshot
+     */
+    CompanySnapshot getSnapshot();
+
+    /**
+     * Rename a company.
+     *
+     * @param company The company with its id and new name
+     */
+    void rename(Company company);
+
     /**
      * Delete a company and it's attached computers.
+     * A company with few computers is deleted in a single transaction, one with more than a chunk incrementally.
      *
      * @param company The company to delete
      */
     void delete(Company company);
 
+    /**
+     * Get the aggregates of the computers of a company, read from the maintained statistics.
+     *
+     * @param companyId The company id
+     * @return The statistics or Optional.empty() if the company does not exist
+     */
+    Optional<CompanyStats> getStats(int companyId);
+
+    /**
+     * Recompute the statistics of a company from its computers.
+     *
+     * @param companyId The company id
+     * @return true if the statistics were wrong
+     */
+    boolean reconcileStats(int companyId);
+
+    /**
+     * Delete the statistics of the companies which no longer exist.
+     *
+     * @return The number of deleted statistics
+     */
+    int deleteOrphanStats();
+
+    /**
+     * Delete a company and it's attached computers chunk by chunk, each chunk in its own transaction.
+     * The company itself is deleted last. A deletion that was interrupted resumes where it stopped.
+     *
+     * @param company  The company to delete
+     * @param listener The listener notified after each chunk
+     * @return The final progress of the deletion
+     */
+    CompanyDeletion deleteIncrementally(Company company, Consumer<CompanyDeletion> listener);
+
+    /**
+     * Get the incremental deletions that were started and not finished, for instance because of a crash.
+     *
+     * @return The progress of each pending deletion, in the order they were started
+     */
+    List<CompanyDeletion> getPendingDeletions();
+
     /**
      * Check whether a company exists.
      *
@@ -0,0 +1,28 @@
+package fr.ebiz.computerdatabase.service;
+
+import fr.ebiz.computerdatabase.dto.GetAllComputersRequest;
+import fr.ebiz.computerdatabase.io.DataFormat;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.function.IntConsumer;
+
+public interface ComputerExportService {
+
+    /**
+     * Export every computer matching a request to a CSV or NDJSON stream.
+     * <p>
+     * The search query and sort of the request are applied, its pagination is ignored.
+     * Rows are written as they are read from the database, so memory stays constant whatever the number of computers.
+     * Companies are referenced by name, as expected by {@link ComputerImportService}.
+     * The listener is notified every few hundred rows and may stop the export by throwing an unchecked exception.
+     *
+     * @param request  The filtering request
+     * @param format   The format of the stream
+     * @param output   The stream to write, it is flushed but not closed
+     * @param listener The listener notified with the number of computers exported so far
+     * @return The number of exported computers
+     * @throws IOException if the stream can't be written
+     */
+    int exportComputers(GetAllComputersRequest request, DataFormat format, OutputStream output, IntConsumer listener) throws IOException;
+}
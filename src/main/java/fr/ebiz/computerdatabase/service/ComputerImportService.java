@@ -0,0 +1,30 @@
+package fr.ebiz.computerdatabase.service;
+
+import fr.ebiz.computerdatabase.dto.ImportReport;
+import fr.ebiz.computerdatabase.io.DataFormat;
+import org.springframework.validation.Validator;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.Consumer;
+
+public interface ComputerImportService {
+
+    /**
+     * Import computers from a CSV or NDJSON stream.
+     * <p>
+     * Records are parsed incrementally and inserted by batches, each batch in its own transaction,
+     * so memory stays bounded whatever the size of the input and a failing batch does not abort the load.
+     * Companies are referenced by name.
+     * The listener is notified after each batch and may stop the import by throwing an unchecked exception,
+     * the batches inserted so far being kept.
+     *
+     * @param input     The stream to read, closed along with the reader once read
+     * @param format    The format of the stream
+     * @param validator The validator the computers must pass, or null
+     * @param listener  The listener notified with the report so far
+     * @return The report of the import
+     * @throws IOException if the stream can't be read
+     */
+    ImportReport importComputers(InputStream input, DataFormat format, Validator validator, Consumer<ImportReport> listener) throws IOException;
+}
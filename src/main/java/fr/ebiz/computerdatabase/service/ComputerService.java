@@ -32,6 +32,14 @@ public interface ComputerService {
      */
     void insert(ComputerDto computer);
 
+    /**
+     * Assert computers are valid and insert them with JDBC batches if they are.
+     * The generated ids are set on the computers.
+     *
+     * @param computers The computers to insert
+     */
+    void insertAll(List<ComputerDto> computers);
+
     /**
      * Assert a computer is valid and update it if it is.
      *
@@ -54,9 +62,21 @@ public interface ComputerService {
     void deleteByCompanyId(int companyId);
 
     /**
-     * Delete computers introduced by a company.
+     * Delete the next computers of a company in id order, within the current transaction.
+     *
+     * @param companyId The id of the company
+     * @param afterId   The id of the last computer deleted before, 0 to start with the first computer
+     * @param limit     The maximum number of computers to delete
+     * @return The sorted ids of the deleted computers, empty once the company has no computer after afterId
+     */
+    List<Integer> deleteByCompanyId(int companyId, int afterId, int limit);
+
+    /**
+     * Delete a selection of computers, committing them chunk by chunk.
+     * The chunks deleted before a failure stay deleted.
      *
      * @param ids The ids of the computer to delete
+     * @return The number of deleted computers
      */
-    void deleteComputers(List<Integer> ids);
+    int deleteComputers(List<Integer> ids);
 }
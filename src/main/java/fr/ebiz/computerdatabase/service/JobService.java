@@ -0,0 +1,57 @@
+package fr.ebiz.computerdatabase.service;
+
+import fr.ebiz.computerdatabase.model.Job;
+import fr.ebiz.computerdatabase.model.JobType;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Optional;
+
+public interface JobService {
+
+    /**
+     * Submit a job to run in the background.
+     *
+     * @param type       The type of job
+     * @param parameters The parameters of the job
+     * @return The submitted job
+     */
+    Job submit(JobType type, Map<String, String> parameters);
+
+    /**
+     * Submit a job to run in the background along with an input file.
+     *
+     * @param type       The type of job
+     * @param parameters The parameters of the job
+     * @param input      The content of the input file, it is not closed
+     * @return The submitted job
+     * @throws IOException if the input can't be stored
+     */
+    Job submit(JobType type, Map<String, String> parameters, InputStream input) throws IOException;
+
+    /**
+     * Get a job.
+     *
+     * @param id The id of the job
+     * @return The job if it exists or Optional.empty() if it does not
+     */
+    Optional<Job> get(long id);
+
+    /**
+     * Cancel a job. A pending job never runs, a running job stops at its next cancellation check.
+     *
+     * @param id The id of the job
+     * @return true if the job was pending or running
+     */
+    boolean cancel(long id);
+
+    /**
+     * Get the output file of a job.
+     *
+     * @param id The id of the job
+     * @return The file if the job succeeded and wrote one, Optional.empty() otherwise
+     */
+    Optional<Path> getOutput(long id);
+}
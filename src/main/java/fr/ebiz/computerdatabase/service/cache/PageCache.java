@@ -0,0 +1,176 @@
+package fr.ebiz.computerdatabase.service.cache;
+
+import fr.ebiz.computerdatabase.dto.ComputerDto;
+import fr.ebiz.computerdatabase.dto.GetAllComputersRequest;
+import fr.ebiz.computerdatabase.dto.paging.Page;
+import fr.ebiz.computerdatabase.persistence.cache.LruCache;
+import fr.ebiz.computerdatabase.persistence.cache.WriteEpoch;
+import fr.ebiz.computerdatabase.persistence.routing.ReplicaRoutingDataSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Component;
+
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * Cache of the dashboard pages, keyed by the normalized request.
+ * <p>
+ * Most views are the first pages of a few searches, which are then served without any query.
+ * Pages are tagged with the {@link WriteEpoch} they were read in, so that any write to the computers
+ * invalidates them all. Cached pages are shared between requests and must not be modified.
+ * <p>
+ * Pages larger than the configured size are not cached, so that a few huge requests can't fill the heap.
+ * A user who just wrote reads from the primary while the replicas may lag behind: its pages bypass the cache,
+ * which may hold replica pages of the current epoch, and are not cached either.
+ */
+@Component
+@ManagedResource(objectName = "fr.ebiz.computerdatabase:type=Cache,name=pages", description = "Dashboard page cache")
+public class PageCache {
+
+    private final WriteEpoch writeEpoch;
+    private final ReplicaRoutingDataSource routingDataSource;
+    private final int maxPageSize;
+    private final LruCache<Key, Page<ComputerDto>> cache;
+
+    /**
+     * Constructor.
+     *
+     * @param writeEpoch        The write epoch invalidating the pages
+     * @param routingDataSource The DataSource telling whether the current user reads its own writes
+     * @param maxSize           The maximum number of cached pages
+     * @param maxPageSize       The maximum number of computers of a cached page
+     * @param ttlMillis         The number of milliseconds a page is cached
+     */
+    @Autowired
+    public PageCache(WriteEpoch writeEpoch, ReplicaRoutingDataSource routingDataSource,
+                     @Value("${pageCache.maxSize:1000}") int maxSize, @Value("${pageCache.maxPageSize:100}") int maxPageSize,
+                     @Value("${pageCache.ttl:30000}") long ttlMillis) {
+        this.writeEpoch = writeEpoch;
+        this.routingDataSource = routingDataSource;
+        this.maxPageSize = maxPageSize;
+        this.cache = new LruCache<>(maxSize, ttlMillis);
+    }
+
+    /**
+     * Get the page of a request, loading it on a miss.
+     *
+     * @param request The dashboard request
+     * @param loader  The function loading the page of a request
+     * @return The page
+     */
+    public Page<ComputerDto> get(GetAllComputersRequest request, Function<GetAllComputersRequest, Page<ComputerDto>> loader) {
+        if (request.getPageSize() > maxPageSize || routingDataSource.isReadingYourWrites()) {
+            return loader.apply(request);
+        }
+        return cache.get(new Key(writeEpoch.getEpoch(), request), key -> loader.apply(request));
+    }
+
+    /**
+     * Remove every page from the cache.
+     */
+    @ManagedOperation(description = "Remove every page from the cache")
+    public void clear() {
+        cache.clear();
+    }
+
+    /**
+     * Get the number of cached pages.
+     *
+     * @return The number of entries, those of previous epochs included
+     */
+    @ManagedAttribute(description = "Number of cached pages")
+    public int getSize() {
+        return cache.size();
+    }
+
+    /**
+     * Get the number of views served by the cache.
+     *
+     * @return The hit count
+     */
+    @ManagedAttribute(description = "Views served by the cache")
+    public long getHits() {
+        return cache.getHits();
+    }
+
+    /**
+     * Get the number of views that hit the database.
+     *
+     * @return The miss count
+     */
+    @ManagedAttribute(description = "Views that hit the database")
+    public long getMisses() {
+        return cache.getMisses();
+    }
+
+    /**
+     * Get the number of pages evicted to make room.
+     *
+     * @return The eviction count
+     */
+    @ManagedAttribute(description = "Pages evicted to make room")
+    public long getEvictions() {
+        return cache.getEvictions();
+    }
+
+    /**
+     * Get the ratio of the views served by the cache.
+     *
+     * @return The hit ratio between 0 and 1
+     */
+    @ManagedAttribute(description = "Ratio of the views served by the cache")
+    public double getHitRatio() {
+        return cache.getHitRatio();
+    }
+
+    /**
+     * Normalized request and the epoch its page is read in.
+     */
+    private static final class Key {
+
+        private final long epoch;
+        private final GetAllComputersRequest request;
+
+        /**
+         * Constructor.
+         *
+         * @param epoch   The current write epoch
+         * @param request The dashboard request, copied with a normalized query
+         */
+        private Key(long epoch, GetAllComputersRequest request) {
+            this.epoch = epoch;
+            // Requests bound from the web have a raw query, which the builder normalizes
+            this.request = GetAllComputersRequest.builder()
+                    .query(request.getQuery())
+                    .page(request.getPage())
+                    .pageSize(request.getPageSize())
+                    .column(request.getColumn())
+                    .order(request.getOrder())
+                    .after(request.getAfter())
+                    .before(request.getBefore())
+                    .exactCount(request.isExactCount())
+                    .build();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Key key = (Key) o;
+            return epoch == key.epoch && Objects.equals(request, key.request);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(epoch, request);
+        }
+    }
+}
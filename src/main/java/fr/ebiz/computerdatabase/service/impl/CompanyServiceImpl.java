@@ -1,28 +1,67 @@
 package fr.ebiz.computerdatabase.service.impl;
 
+import fr.ebiz.computerdatabase.dto.CompanySnapshot;
 import fr.ebiz.computerdatabase.dto.paging.Page;
 import fr.ebiz.computerdatabase.dto.paging.Pageable;
 import fr.ebiz.computerdatabase.dto.paging.PagingUtils;
 import fr.ebiz.computerdatabase.model.Company;
+import fr.ebiz.computerdatabase.model.CompanyDeletion;
+import fr.ebiz.computerdatabase.model.CompanyStats;
+import fr.ebiz.computerdatabase.persistence.cache.CompanyCache;
+import fr.ebiz.computerdatabase.persistence.cache.WriteEpoch;
 import fr.ebiz.computerdatabase.persistence.dao.CompanyDao;
+import fr.ebiz.computerdatabase.persistence.dao.CompanyDeletionDao;
+import fr.ebiz.computerdatabase.persistence.dao.CompanyStatsDao;
+import fr.ebiz.computerdatabase.persistence.index.ComputerNameIndex;
 import fr.ebiz.computerdatabase.service.CompanyService;
 import fr.ebiz.computerdatabase.service.ComputerService;
+import fr.ebiz.computerdatabase.utils.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+import static fr.ebiz.computerdatabase.utils.TransactionUtils.afterCommit;
 
 @Transactional(readOnly = true)
 @Service
 public class CompanyServiceImpl implements CompanyService {
 
+    private static final int MAX_SEARCH_LIMIT = 100;
+
     @Autowired
     private CompanyDao companyDao;
     @Autowired
     private ComputerService computerService;
+    @Autowired
+    private ComputerNameIndex nameIndex;
+    @Autowired
+    private CompanyCache companyCache;
+    @Autowired
+    private CompanyDeletionDao companyDeletionDao;
+    @Autowired
+    private CompanyStatsDao companyStatsDao;
+    @Autowired
+    private WriteEpoch writeEpoch;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Value("${companyDeletion.chunkSize:1000}")
+    private int deletionChunkSize;
+    @Value("${companySnapshot.versionCheckInterval:1000}")
+    private long versionCheckInterval;
+
+    private final AtomicReference<CompanySnapshot> snapshot = new AtomicReference<>();
+    // Time of the last check of the snapshot against the database version, 0 to check on the next read
+    private volatile long versionCheckedAt;
 
     /**
      * {@inheritDoc}
@@ -30,7 +69,7 @@ public class CompanyServiceImpl implements CompanyService {
     @Override
     public Optional<Company> get(int id) {
         assertCompanyIdIsGreaterThanZero(id);
-        return companyDao.get(id);
+        return companyCache.get(id, companyDao::get);
     }
 
     /**
@@ -39,7 +78,7 @@ public class CompanyServiceImpl implements CompanyService {
     @Override
     public boolean exists(int id) {
         assertCompanyIdIsGreaterThanZero(id);
-        return companyDao.get(id).isPresent();
+        return get(id).isPresent();
     }
 
     /**
@@ -78,11 +117,198 @@ public class CompanyServiceImpl implements CompanyService {
                 .build();
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Company> search(String prefix, Company after, int limit) {
+        if (limit <= 0 || limit > MAX_SEARCH_LIMIT) {
+            throw new IllegalArgumentException("Limit must be [1-" + MAX_SEARCH_LIMIT + "]");
+        }
+        if (after != null && (after.getId() == null || after.getName() == null)) {
+            throw new IllegalArgumentException("The last company of the previous page must have an id and a name");
+        }
+        return companyDao.search(prefix == null ? "" : prefix.trim(), after, limit);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    @Override
+    public CompanySnapshot getSnapshot() {
+        CompanySnapshot current = snapshot.get();
+        if (current != null && System.currentTimeMillis() - versionCheckedAt < versionCheckInterval) {
+            return current;
+        }
+
+        // A single reader checks the version and rebuilds the snapshot, the other ones wait for it
+        synchronized (snapshot) {
+            current = snapshot.get();
+            long now = System.currentTimeMillis();
+            if (current != null && now - versionCheckedAt < versionCheckInterval) {
+                return current;
+            }
+            // Marked before reading, so that a local change committed meanwhile still triggers the next check
+            versionCheckedAt = now;
+            long version = companyDao.getVersion();
+            if (current != null && current.getVersion() == version) {
+                return current;
+            }
+            // Tagged with the version read before loading, so that a change during the load triggers another rebuild
+            CompanySnapshot rebuilt = new CompanySnapshot(version, companyDao.getAll(Integer.MAX_VALUE, 0));
+            snapshot.set(rebuilt);
+            return rebuilt;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
     @Transactional
     @Override
+    public void rename(Company company) {
+        if (company == null || company.getId() == null || StringUtils.isBlank(company.getName())) {
+            throw new IllegalArgumentException("Company should have an id and a name");
+        }
+        assertCompanyIdIsGreaterThanZero(company.getId());
+        int companyId = company.getId();
+        String name = company.getName().trim();
+        if (!companyDao.rename(companyId, name)) {
+            throw new IllegalArgumentException("Company does not exist");
+        }
+        companyCache.invalidate(companyId);
+        writeEpoch.bump();
+        afterCommit(() -> {
+            // The cached pages show the company name of each computer
+            companyCache.invalidate(companyId);
+            writeEpoch.bump();
+            versionCheckedAt = 0;
+            nameIndex.putCompany(companyId, name);
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @Override
     public void delete(Company company) {
-        computerService.deleteByCompanyId(company.getId());
-        companyDao.delete(company.getId());
+        if (company == null || company.getId() == null) {
+            throw new IllegalArgumentException("Company should have an id");
+        }
+        assertCompanyIdIsGreaterThanZero(company.getId());
+        int companyId = company.getId();
+        // Read without counting the computers, the statistics only have to be close enough to pick the strategy
+        int computers = companyStatsDao.get(companyId).map(CompanyStats::getComputers).orElse(0);
+        if (computers > deletionChunkSize) {
+            deleteIncrementally(company, progress -> {
+            });
+            return;
+        }
+        new TransactionTemplate(transactionManager).execute(status -> {
+            computerService.deleteByCompanyId(companyId);
+            deleteCompany(companyId);
+            return null;
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Optional<CompanyStats> getStats(int companyId) {
+        if (!exists(companyId)) {
+            return Optional.empty();
+        }
+        return Optional.of(companyStatsDao.get(companyId).orElse(CompanyStats.empty(companyId)));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Transactional
+    @Override
+    public boolean reconcileStats(int companyId) {
+        assertCompanyIdIsGreaterThanZero(companyId);
+        return companyStatsDao.reconcile(companyId);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Transactional
+    @Override
+    public int deleteOrphanStats() {
+        return companyStatsDao.deleteOrphans();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @Override
+    public CompanyDeletion deleteIncrementally(Company company, Consumer<CompanyDeletion> listener) {
+        if (company == null || company.getId() == null) {
+            throw new IllegalArgumentException("Company should have an id");
+        }
+        assertCompanyIdIsGreaterThanZero(company.getId());
+        CompanyDeletion deletion = new TransactionTemplate(transactionManager).execute(status -> companyDeletionDao.start(company.getId()));
+        return resume(deletion, listener);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<CompanyDeletion> getPendingDeletions() {
+        return companyDeletionDao.getAll();
+    }
+
+    /**
+     * Delete the remaining computers of a company chunk by chunk, then the company.
+     * Each chunk commits along with the progress, so that an interrupted deletion resumes after the last committed chunk.
+     *
+     * @param deletion The progress to resume from
+     * @param listener The listener notified after each chunk
+     * @return The final progress
+     */
+    private CompanyDeletion resume(CompanyDeletion deletion, Consumer<CompanyDeletion> listener) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        CompanyDeletion progress = deletion;
+        while (!progress.isFinished()) {
+            CompanyDeletion current = progress;
+            progress = transaction.execute(status -> {
+                List<Integer> ids = computerService.deleteByCompanyId(current.getCompanyId(), current.getLastComputerId(), deletionChunkSize);
+                if (ids.isEmpty()) {
+                    // The empty keyset range is locked too, so no computer can be added to the company before it is deleted
+                    deleteCompany(current.getCompanyId());
+                    companyDeletionDao.delete(current.getCompanyId());
+                    return current.finish();
+                }
+                CompanyDeletion next = current.advance(ids.get(ids.size() - 1), ids.size());
+                companyDeletionDao.update(next);
+                return next;
+            });
+            listener.accept(progress);
+        }
+        return progress;
+    }
+
+    /**
+     * Delete a company without computers and evict it from the caches.
+     *
+     * @param companyId The id of the company
+     */
+    private void deleteCompany(int companyId) {
+        companyDao.delete(companyId);
+        companyCache.invalidate(companyId);
+        afterCommit(() -> {
+            // Evict again once committed, a concurrent lookup may have cached the row before the commit
+            companyCache.invalidate(companyId);
+            versionCheckedAt = 0;
+            nameIndex.removeCompany(companyId);
+        });
     }
 
     /**
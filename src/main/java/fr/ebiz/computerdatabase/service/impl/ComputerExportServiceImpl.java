@@ -0,0 +1,94 @@
+package fr.ebiz.computerdatabase.service.impl;
+
+import fr.ebiz.computerdatabase.dto.GetAllComputersRequest;
+import fr.ebiz.computerdatabase.io.ComputerRecord;
+import fr.ebiz.computerdatabase.io.ComputerRecordWriter;
+import fr.ebiz.computerdatabase.io.DataFormat;
+import fr.ebiz.computerdatabase.model.Computer;
+import fr.ebiz.computerdatabase.persistence.dao.ComputerDao;
+import fr.ebiz.computerdatabase.service.ComputerExportService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.OffsetDateTime;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+
+@Transactional(readOnly = true)
+@Service
+public class ComputerExportServiceImpl implements ComputerExportService {
+
+    private static final int PROGRESS_INTERVAL = 500;
+
+    private final ComputerDao computerDao;
+
+    /**
+     * Constructor.
+     *
+     * @param computerDao The computer dao streaming the rows
+     */
+    @Autowired
+    public ComputerExportServiceImpl(ComputerDao computerDao) {
+        this.computerDao = computerDao;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int exportComputers(GetAllComputersRequest request, DataFormat format, OutputStream output, IntConsumer listener) throws IOException {
+        if (request == null || format == null || output == null || listener == null) {
+            throw new IllegalArgumentException("Export request, format, output and listener must not be null");
+        }
+
+        ComputerRecordWriter writer = format.writer(output);
+        AtomicInteger written = new AtomicInteger();
+        int exported;
+        try {
+            exported = computerDao.stream(request.getQuery(), request.getColumn(), request.getOrder(), computer -> {
+                try {
+                    writer.write(toRecord(computer));
+                } catch (IOException e) {
+                    // Aborts the result set iteration, unwrapped below
+                    throw new UncheckedIOException(e);
+                }
+                if (written.incrementAndGet() % PROGRESS_INTERVAL == 0) {
+                    listener.accept(written.get());
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.flush();
+        return exported;
+    }
+
+    /**
+     * Convert a computer to a record.
+     *
+     * @param computer The computer
+     * @return The record
+     */
+    private static ComputerRecord toRecord(Computer computer) {
+        ComputerRecord record = new ComputerRecord();
+        record.setName(computer.getName());
+        record.setIntroduced(toString(computer.getIntroduced()));
+        record.setDiscontinued(toString(computer.getDiscontinued()));
+        record.setCompany(computer.getCompany() != null ? computer.getCompany().getName() : null);
+        return record;
+    }
+
+    /**
+     * Format a date as ISO.
+     *
+     * @param date The date or null
+     * @return The formatted date or null
+     */
+    private static String toString(OffsetDateTime date) {
+        return date == null ? null : date.toLocalDate().toString();
+    }
+}
@@ -0,0 +1,212 @@
+package fr.ebiz.computerdatabase.service.impl;
+
+import fr.ebiz.computerdatabase.dto.ComputerDto;
+import fr.ebiz.computerdatabase.dto.ImportReport;
+import fr.ebiz.computerdatabase.io.ComputerRecord;
+import fr.ebiz.computerdatabase.io.ComputerRecordReader;
+import fr.ebiz.computerdatabase.io.DataFormat;
+import fr.ebiz.computerdatabase.io.RecordFormatException;
+import fr.ebiz.computerdatabase.model.Company;
+import fr.ebiz.computerdatabase.persistence.dao.CompanyDao;
+import fr.ebiz.computerdatabase.service.ComputerImportService;
+import fr.ebiz.computerdatabase.service.ComputerService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.validation.BindingResult;
+import org.springframework.validation.MapBindingResult;
+import org.springframework.validation.ValidationUtils;
+import org.springframework.validation.Validator;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Import computers by batches.
+ * <p>
+ * Records are pulled from the reader one batch at a time and the next batch is only read once the previous one
+ * is inserted: a slow database slows the reading down instead of buffering records.
+ * This service is not transactional itself, each batch being inserted in its own transaction.
+ */
+@Service
+public class ComputerImportServiceImpl implements ComputerImportService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ComputerImportServiceImpl.class);
+
+    private final ComputerService computerService;
+    private final CompanyDao companyDao;
+    private final int batchSize;
+
+    /**
+     * Constructor.
+     *
+     * @param computerService The computer service inserting the batches
+     * @param companyDao      The company dao resolving the company names
+     * @param batchSize       The number of records inserted per transaction
+     */
+    @Autowired
+    public ComputerImportServiceImpl(ComputerService computerService, CompanyDao companyDao,
+                                     @Value("${importBatchSize:1000}") int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Import batch size must be > 0");
+        }
+        this.computerService = computerService;
+        this.companyDao = companyDao;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ImportReport importComputers(InputStream input, DataFormat format, Validator validator, Consumer<ImportReport> listener) throws IOException {
+        if (input == null || format == null || listener == null) {
+            throw new IllegalArgumentException("Import input, format and listener must not be null");
+        }
+
+        ImportReport report = new ImportReport();
+        try (ComputerRecordReader reader = format.reader(input)) {
+            List<ComputerRecord> batch = new ArrayList<>(batchSize);
+            boolean end = false;
+            while (!end) {
+                try {
+                    ComputerRecord record = reader.next();
+                    if (record == null) {
+                        end = true;
+                    } else {
+                        report.recordRead();
+                        batch.add(record);
+                    }
+                } catch (RecordFormatException e) {
+                    report.recordRead();
+                    report.recordRejected(1, e.getLine(), e.getMessage());
+                }
+                if (batch.size() == batchSize || (end && !batch.isEmpty())) {
+                    importBatch(batch, validator, report);
+                    batch.clear();
+                    listener.accept(report);
+                }
+            }
+        }
+        LOGGER.info("Computer import done: {}", report);
+        return report;
+    }
+
+    /**
+     * Resolve, validate and insert a batch of records.
+     *
+     * @param batch     The records to import
+     * @param validator The validator the computers must pass, or null
+     * @param report    The report to fill
+     */
+    private void importBatch(List<ComputerRecord> batch, Validator validator, ImportReport report) {
+        Map<String, Integer> companyIds = resolveCompanies(batch);
+
+        List<ComputerDto> computers = new ArrayList<>(batch.size());
+        long firstLine = -1;
+        for (ComputerRecord record : batch) {
+            String error;
+            try {
+                ComputerDto computer = toDto(record, companyIds);
+                error = validate(computer, validator);
+                if (error == null) {
+                    computers.add(computer);
+                    firstLine = firstLine < 0 ? record.getLine() : firstLine;
+                }
+            } catch (IllegalArgumentException | DateTimeParseException e) {
+                error = e.getMessage();
+            }
+            if (error != null) {
+                report.recordRejected(1, record.getLine(), error);
+            }
+        }
+
+        if (computers.isEmpty()) {
+            return;
+        }
+        try {
+            computerService.insertAll(computers);
+            report.recordInserted(computers.size());
+        } catch (IllegalArgumentException | DataAccessException e) {
+            LOGGER.warn("Computer import batch starting at line {} failed", firstLine, e);
+            report.recordRejected(computers.size(), firstLine, "Batch failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Get the ids of the companies referenced by a batch, with a single query.
+     *
+     * @param batch The records
+     * @return The company ids by lower case name, the lowest id winning when names are duplicated
+     */
+    private Map<String, Integer> resolveCompanies(List<ComputerRecord> batch) {
+        Set<String> names = batch.stream()
+                .map(ComputerRecord::getCompany)
+                .filter(name -> name != null)
+                .collect(Collectors.toCollection(HashSet::new));
+
+        Map<String, Integer> companyIds = new HashMap<>();
+        for (Company company : companyDao.getByNames(names)) {
+            companyIds.putIfAbsent(company.getName().toLowerCase(Locale.ROOT), company.getId());
+        }
+        return companyIds;
+    }
+
+    /**
+     * Convert a record to a computer.
+     *
+     * @param record     The record
+     * @param companyIds The resolved company ids
+     * @return The computer
+     */
+    private static ComputerDto toDto(ComputerRecord record, Map<String, Integer> companyIds) {
+        Integer companyId = null;
+        if (record.getCompany() != null) {
+            companyId = companyIds.get(record.getCompany().toLowerCase(Locale.ROOT));
+            if (companyId == null) {
+                throw new IllegalArgumentException("Unknown company " + record.getCompany());
+            }
+        }
+        return ComputerDto.builder()
+                .name(record.getName())
+                .introduced(record.getIntroduced() == null ? null : LocalDate.parse(record.getIntroduced()))
+                .discontinued(record.getDiscontinued() == null ? null : LocalDate.parse(record.getDiscontinued()))
+                .companyId(companyId)
+                .build();
+    }
+
+    /**
+     * Validate a computer.
+     *
+     * @param computer  The computer
+     * @param validator The validator or null
+     * @return The codes of the failed constraints or null if the computer is valid
+     */
+    private static String validate(ComputerDto computer, Validator validator) {
+        if (validator == null) {
+            return null;
+        }
+        BindingResult result = new MapBindingResult(new HashMap<>(), "computer");
+        ValidationUtils.invokeValidator(validator, computer, result);
+        if (!result.hasErrors()) {
+            return null;
+        }
+        return result.getAllErrors().stream()
+                .map(error -> error.getCode())
+                .collect(Collectors.joining(", "));
+    }
+}
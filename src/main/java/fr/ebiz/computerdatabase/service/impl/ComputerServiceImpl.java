@@ -6,33 +6,67 @@ import fr.ebiz.computerdatabase.dto.paging.Page;
 import fr.ebiz.computerdatabase.dto.paging.PagingUtils;
 import fr.ebiz.computerdatabase.mapper.ComputerMapper;
 import fr.ebiz.computerdatabase.model.Computer;
+import fr.ebiz.computerdatabase.persistence.Count;
+import fr.ebiz.computerdatabase.persistence.Cursor;
+import fr.ebiz.computerdatabase.persistence.PagedResult;
+import fr.ebiz.computerdatabase.persistence.cache.CountCache;
+import fr.ebiz.computerdatabase.persistence.cache.WriteEpoch;
+import fr.ebiz.computerdatabase.persistence.dao.AsyncComputerDao;
 import fr.ebiz.computerdatabase.persistence.dao.ComputerDao;
+import fr.ebiz.computerdatabase.persistence.index.ComputerNameIndex;
 import fr.ebiz.computerdatabase.service.ComputerService;
+import fr.ebiz.computerdatabase.service.cache.PageCache;
+import fr.ebiz.computerdatabase.utils.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static fr.ebiz.computerdatabase.utils.TransactionUtils.afterCommit;
 
 @Transactional(readOnly = true)
 @Service
 public class ComputerServiceImpl implements ComputerService {
 
     private final ComputerDao computerDao;
+    private final AsyncComputerDao asyncComputerDao;
     private final ComputerMapper computerMapper;
+    private final ComputerNameIndex nameIndex;
+    private final WriteEpoch writeEpoch;
+    private final CountCache countCache;
+    private final PageCache pageCache;
+    private final boolean approximateCounts;
 
     /**
      * Constructor.
      *
      * @param computerDao       The computer dao to inject
+     * @param asyncComputerDao  The asynchronous computer dao to inject
      * @param computerMapper    The computer mapper to inject
+     * @param nameIndex         The name index to keep up to date
+     * @param writeEpoch        The write epoch to bump on every write
+     * @param countCache        The cache of the computer counts
+     * @param pageCache         The cache of the dashboard pages
+     * @param approximateCounts Whether large totals are estimated unless the request needs them exact
      */
     @Autowired
-    public ComputerServiceImpl(ComputerDao computerDao, ComputerMapper computerMapper) {
+    public ComputerServiceImpl(ComputerDao computerDao, AsyncComputerDao asyncComputerDao, ComputerMapper computerMapper,
+                               ComputerNameIndex nameIndex, WriteEpoch writeEpoch, CountCache countCache, PageCache pageCache,
+                               @Value("${count.approximate:false}") boolean approximateCounts) {
         this.computerDao = computerDao;
+        this.asyncComputerDao = asyncComputerDao;
         this.computerMapper = computerMapper;
+        this.nameIndex = nameIndex;
+        this.writeEpoch = writeEpoch;
+        this.countCache = countCache;
+        this.pageCache = pageCache;
+        this.approximateCounts = approximateCounts;
     }
 
     /**
@@ -44,7 +78,7 @@ public class ComputerServiceImpl implements ComputerService {
             throw new IllegalArgumentException("ID must be > 0");
         }
 
-        return computerDao.get(id).map(c -> ComputerMapper.getInstance().toDto(c));
+        return computerDao.getDto(id);
 
     }
 
@@ -62,29 +96,160 @@ public class ComputerServiceImpl implements ComputerService {
             throw new IllegalArgumentException("Page size must be > 0");
         }
 
-        Integer numberOfComputers = computerDao.count(request.getQuery());
+        return pageCache.get(request, this::loadPage);
+    }
+
+    /**
+     * Get a page of computers from the database.
+     *
+     * @param request The filtering request
+     * @return The paginated computers
+     */
+    @SuppressWarnings(value = "unchecked")
+    private Page<ComputerDto> loadPage(GetAllComputersRequest request) {
+        if (request.isKeyset()) {
+            return getAllByKeyset(request);
+        }
+
+        if (request.getPage() < 0) {
+            throw new IllegalArgumentException("Page number must be >= 0");
+        }
+
+        // An estimate is counted on the DAO executor while the rows are read. An exact count is either cached,
+        // or comes back with the rows from a single query
+        long epoch = writeEpoch.getEpoch();
+        CompletableFuture<Count> pendingCount = isApproximate(request) ? countAsync(request) : null;
+        Count count = pendingCount == null ? countCache.getIfPresent(request.getQuery()) : null;
+        List<ComputerDto> computers;
+        if (pendingCount != null || count != null) {
+            computers = computerDao.getAllDto(request.getQuery(), request.getPageSize(), request.getOffset(), request.getColumn(), request.getOrder());
+            count = pendingCount != null ? join(pendingCount) : count;
+        } else {
+            PagedResult<ComputerDto> result = computerDao.getDtoPage(request.getQuery(), request.getPageSize(), request.getOffset(), request.getColumn(), request.getOrder());
+            count = Count.exact(result.getTotalElements());
+            computers = result.getElements();
+            countCache.put(request.getQuery(), epoch, count.getValue());
+        }
+        int numberOfComputers = count.getValue();
 
         Integer totalPage = PagingUtils.countPages(request.getPageSize(), numberOfComputers);
 
-        if (request.getPage() < 0 || request.getPage() > totalPage) {
+        // An estimate may be below the real number of pages
+        if (request.getPage() > totalPage && !count.isApproximate()) {
             throw new IllegalArgumentException("Page number must be [0-" + totalPage + "]");
         }
 
-        List<Computer> computers;
-        if (totalPage == 0) {
-            computers = Collections.emptyList();
+        return Page.builder()
+                .currentPage(request.getPage())
+                .totalPages(totalPage)
+                .totalElements(numberOfComputers)
+                .approximate(count.isApproximate())
+                .elements(computers)
+                .previousCursor(request.getPage() > 0 ? cursorOf(computers, 0, request) : null)
+                .nextCursor(request.getPage() < totalPage - 1 ? cursorOf(computers, computers.size() - 1, request) : null)
+                .build();
+    }
+
+    /**
+     * Get a page of computers by seeking from the request cursor, whatever the depth of the page.
+     *
+     * @param request The filtering request holding an after or before cursor
+     * @return The paginated computers
+     */
+    @SuppressWarnings(value = "unchecked")
+    private Page<ComputerDto> getAllByKeyset(GetAllComputersRequest request) {
+        boolean forward = !StringUtils.isBlank(request.getAfter());
+        Cursor cursor = Cursor.decode(forward ? request.getAfter() : request.getBefore());
+        if (!cursor.matches(request.getColumn(), request.getOrder())) {
+            throw new IllegalArgumentException("Cursor does not match the requested sort");
+        }
+
+        // The seek predicate restricts the scanned rows so the total is counted on its own, while the page is read
+        CompletableFuture<Count> pendingCount = countAsync(request);
+
+        // Get one more row to know whether there is a page after this one in the seek direction
+        List<ComputerDto> computers;
+        boolean hasMore;
+        if (forward) {
+            computers = computerDao.getAllDtoAfter(request.getQuery(), request.getPageSize() + 1, cursor);
+            hasMore = computers.size() > request.getPageSize();
+            computers = hasMore ? computers.subList(0, request.getPageSize()) : computers;
         } else {
-            computers = computerDao.getAll(request.getQuery(), request.getPageSize(), request.getOffset(), request.getColumn(), request.getOrder());
+            computers = computerDao.getAllDtoBefore(request.getQuery(), request.getPageSize() + 1, cursor);
+            hasMore = computers.size() > request.getPageSize();
+            computers = hasMore ? computers.subList(1, computers.size()) : computers;
         }
+        Count count = join(pendingCount);
+        int numberOfComputers = count.getValue();
+        int totalPage = PagingUtils.countPages(request.getPageSize(), numberOfComputers);
 
         return Page.builder()
-                .currentPage(request.getPage())
+                .currentPage(Math.max(0, Math.min(request.getPage(), totalPage - 1)))
                 .totalPages(totalPage)
                 .totalElements(numberOfComputers)
-                .elements(ComputerMapper.getInstance().toDto(computers))
+                .approximate(count.isApproximate())
+                .elements(computers)
+                .previousCursor(!forward && !hasMore ? null : cursorOf(computers, 0, request))
+                .nextCursor(forward && !hasMore ? null : cursorOf(computers, computers.size() - 1, request))
                 .build();
     }
 
+    /**
+     * Start counting the computers matching a request on the DAO executor, unless the count is cached.
+     *
+     * @param request The filtering request
+     * @return The number of matching computers, once counted
+     */
+    private CompletableFuture<Count> countAsync(GetAllComputersRequest request) {
+        if (isApproximate(request)) {
+            return countCache.getAsync(request.getQuery(), true, asyncComputerDao::countApproximately);
+        }
+        return countCache.getAsync(request.getQuery(), false, query -> asyncComputerDao.count(query).thenApply(Count::exact));
+    }
+
+    /**
+     * Wait for an asynchronous read, rethrowing its failure as is.
+     *
+     * @param future The pending read
+     * @param <T>    The type of the result
+     * @return The result of the read
+     */
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Check whether the total of a request may be estimated.
+     *
+     * @param request The filtering request
+     * @return true if approximate counts are enabled and the request does not need an exact count
+     */
+    private boolean isApproximate(GetAllComputersRequest request) {
+        return approximateCounts && !request.isExactCount();
+    }
+
+    /**
+     * Get the cursor of a computer of the page.
+     *
+     * @param computers The computers of the page
+     * @param index     The index of the computer
+     * @param request   The filtering request
+     * @return The encoded cursor or null if there is no such computer
+     */
+    private String cursorOf(List<ComputerDto> computers, int index, GetAllComputersRequest request) {
+        if (index < 0 || index >= computers.size()) {
+            return null;
+        }
+        return Cursor.of(computers.get(index), request.getColumn(), request.getOrder()).encode();
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -96,7 +261,35 @@ public class ComputerServiceImpl implements ComputerService {
             throw new IllegalArgumentException("Computer should not have an id");
         }
 
-        computerDao.insert(computerMapper.toEntity(dto));
+        Computer computer = computerMapper.toEntity(dto);
+        computerDao.insert(computer);
+        bumpWriteEpoch();
+        afterCommit(() -> nameIndex.putComputer(computer.getId(), computer.getName(), dto.getCompanyId()));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Transactional
+    @Override
+    public void insertAll(List<ComputerDto> dtos) {
+        if (dtos == null) {
+            throw new IllegalArgumentException("Computer list is null");
+        }
+        for (ComputerDto dto : dtos) {
+            assertComputerIsNotNull(dto);
+            if (dto.getId() != null) {
+                throw new IllegalArgumentException("Computer should not have an id");
+            }
+        }
+
+        List<Computer> computers = computerMapper.toEntity(dtos);
+        computerDao.insertAll(computers);
+        bumpWriteEpoch();
+        for (int i = 0; i < dtos.size(); i++) {
+            dtos.get(i).setId(computers.get(i).getId());
+        }
+        afterCommit(() -> dtos.forEach(dto -> nameIndex.putComputer(dto.getId(), dto.getName(), dto.getCompanyId())));
     }
 
     /**
@@ -109,6 +302,8 @@ public class ComputerServiceImpl implements ComputerService {
         assertComputerIdIsNotNullAndExists(dto);
 
         computerDao.update(computerMapper.toEntity(dto));
+        bumpWriteEpoch();
+        afterCommit(() -> nameIndex.putComputer(dto.getId(), dto.getName(), dto.getCompanyId()));
     }
 
     /**
@@ -121,20 +316,65 @@ public class ComputerServiceImpl implements ComputerService {
         assertComputerIdIsNotNullAndExists(dto);
 
         computerDao.delete(dto.getId());
+        bumpWriteEpoch();
+        afterCommit(() -> nameIndex.removeComputer(dto.getId()));
     }
 
     @Transactional
     @Override
     public void deleteByCompanyId(int companyId) {
         computerDao.deleteByCompanyId(companyId);
+        bumpWriteEpoch();
+        afterCommit(() -> nameIndex.removeComputersOfCompany(companyId));
     }
 
+    /**
+     * {@inheritDoc}
+     */
     @Transactional
     @Override
-    public void deleteComputers(List<Integer> ids) {
+    public List<Integer> deleteByCompanyId(int companyId, int afterId, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be > 0");
+        }
+        // The ids stay locked until the commit, so every one of them is deleted by this chunk
+        List<Integer> ids = computerDao.lockIdsByCompanyId(companyId, afterId, limit);
         if (!ids.isEmpty()) {
             computerDao.deleteComputers(ids);
+            bumpWriteEpoch();
+            afterCommit(() -> nameIndex.removeComputers(ids));
         }
+        return ids;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @Override
+    public int deleteComputers(List<Integer> ids) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        // Without a surrounding transaction each chunk commits on its own, which bounds how long the row locks are held
+        int deleted;
+        try {
+            deleted = computerDao.deleteComputers(ids);
+        } finally {
+            bumpWriteEpoch();
+        }
+        // After a failure the deleted ids stay in the name index, which is harmless as they no longer match any row
+        nameIndex.removeComputers(ids);
+        return deleted;
+    }
+
+    /**
+     * Invalidate the cached results right away and again once committed,
+     * so that no result read before the commit outlives it.
+     */
+    private void bumpWriteEpoch() {
+        writeEpoch.bump();
+        afterCommit(writeEpoch::bump);
     }
 
     /**
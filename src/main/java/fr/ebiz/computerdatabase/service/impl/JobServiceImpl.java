@@ -0,0 +1,398 @@
+package fr.ebiz.computerdatabase.service.impl;
+
+import fr.ebiz.computerdatabase.model.CompanyDeletion;
+import fr.ebiz.computerdatabase.model.Job;
+import fr.ebiz.computerdatabase.model.JobStatus;
+import fr.ebiz.computerdatabase.model.JobType;
+import fr.ebiz.computerdatabase.persistence.dao.JobDao;
+import fr.ebiz.computerdatabase.service.CompanyService;
+import fr.ebiz.computerdatabase.service.JobService;
+import fr.ebiz.computerdatabase.service.job.DeleteCompanyJobHandler;
+import fr.ebiz.computerdatabase.service.job.JobContext;
+import fr.ebiz.computerdatabase.service.job.JobHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * In-process job engine: jobs are persisted, then run by a bounded pool of workers.
+ * <p>
+ * Job rows are written outside of any transaction, so that the status and progress of a running job are visible right away.
+ * Several instances can share the jobs. Each job records the instance queuing or running it, which updates its heartbeat
+ * periodically: the jobs whose heartbeat is older than the timeout belong to a stopped instance and are taken over by another
+ * one. The instances must then share the directory of the job files, and have distinct names.
+ */
+@Service
+public class JobServiceImpl implements JobService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(JobServiceImpl.class);
+
+    private static final String DEFAULT_DIRECTORY = "computer-database-jobs";
+    private static final String CANCELLED_RESULT = "Cancelled";
+    private static final String INTERRUPTED_RESULT = "Interrupted, its instance stopped";
+
+    private final JobDao jobDao;
+    private final CompanyService companyService;
+    private final Map<JobType, JobHandler> handlers = new EnumMap<>(JobType.class);
+    private final Executor executor;
+    private final Path directory;
+    private final String owner;
+    private final long heartbeatInterval;
+    private final long heartbeatTimeout;
+    private final ScheduledExecutorService heartbeat;
+    private final AtomicBoolean recovered = new AtomicBoolean();
+
+    /**
+     * Constructor.
+     *
+     * @param jobDao            The job dao
+     * @param companyService    The company service, whose interrupted deletions resume as jobs
+     * @param handlers          The handlers of every job type
+     * @param executor          The bounded executor running the jobs
+     * @param directory         The directory of the input and output files, empty for a directory in the temporary directory
+     * @param instance          The name of this instance, stable across its restarts, empty for the host name
+     * @param heartbeatInterval The number of milliseconds between two heartbeats of this instance
+     * @param heartbeatTimeout  The number of milliseconds without heartbeat after which an instance is deemed stopped
+     */
+    @Autowired
+    public JobServiceImpl(JobDao jobDao, CompanyService companyService, List<JobHandler> handlers,
+                          @Qualifier("jobExecutor") Executor executor, @Value("${jobs.directory:}") String directory,
+                          @Value("${jobs.instance:}") String instance,
+                          @Value("${jobs.heartbeatInterval:10000}") long heartbeatInterval,
+                          @Value("${jobs.heartbeatTimeout:60000}") long heartbeatTimeout) {
+        if (heartbeatInterval <= 0 || heartbeatTimeout <= heartbeatInterval) {
+            throw new IllegalArgumentException("Job heartbeat interval must be > 0 and below the heartbeat timeout");
+        }
+        this.jobDao = jobDao;
+        this.companyService = companyService;
+        handlers.forEach(handler -> this.handlers.put(handler.getType(), handler));
+        this.executor = executor;
+        this.directory = directory.isEmpty() ? Paths.get(System.getProperty("java.io.tmpdir"), DEFAULT_DIRECTORY) : Paths.get(directory);
+        try {
+            Files.createDirectories(this.directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        this.owner = instance.isEmpty() ? hostName() : instance;
+        this.heartbeatInterval = heartbeatInterval;
+        this.heartbeatTimeout = heartbeatTimeout;
+        this.heartbeat = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "job-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Job submit(JobType type, Map<String, String> parameters) {
+        Job job = create(type, parameters);
+        schedule(job.getId());
+        return jobDao.get(job.getId()).orElse(job);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Job submit(JobType type, Map<String, String> parameters, InputStream input) throws IOException {
+        if (input == null) {
+            throw new IllegalArgumentException("Job input is null");
+        }
+        Job job = create(type, parameters);
+        try {
+            Files.copy(input, inputOf(job.getId()), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            jobDao.updateStatus(job.getId(), JobStatus.PENDING, JobStatus.FAILED, "The input could not be stored");
+            deleteQuietly(inputOf(job.getId()));
+            throw e;
+        }
+        schedule(job.getId());
+        return jobDao.get(job.getId()).orElse(job);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Optional<Job> get(long id) {
+        return jobDao.get(id);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean cancel(long id) {
+        // The worker only starts jobs that are still pending, so a pending job can be cancelled right away
+        return jobDao.updateStatus(id, JobStatus.PENDING, JobStatus.CANCELLED, CANCELLED_RESULT) || jobDao.requestCancel(id);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Optional<Path> getOutput(long id) {
+        return jobDao.get(id)
+                .filter(job -> job.getStatus() == JobStatus.SUCCEEDED)
+                .map(job -> outputOf(job.getId()))
+                .filter(Files::isRegularFile);
+    }
+
+    /**
+     * Recover the jobs of the stopped instances once the application is started, then start the heartbeats.
+     * The jobs this instance left when it stopped are recovered right away, those of the other instances once their
+     * heartbeat is too old. Company deletions interrupted outside of a job, for instance during a synchronous deletion,
+     * resume as new jobs.
+     */
+    @EventListener(ContextRefreshedEvent.class)
+    public void recover() {
+        if (!recovered.compareAndSet(false, true)) {
+            return;
+        }
+        jobDao.release(owner);
+        recoverStaleJobs();
+        resumeCompanyDeletions();
+        heartbeat.scheduleWithFixedDelay(this::beat, heartbeatInterval, heartbeatInterval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stop the heartbeats, the jobs of this instance are then taken over by another one or by its next run.
+     */
+    @PreDestroy
+    public void close() {
+        heartbeat.shutdownNow();
+    }
+
+    /**
+     * Show that this instance is alive, then take over the jobs of the instances that stopped.
+     */
+    private void beat() {
+        try {
+            jobDao.heartbeat(owner);
+            recoverStaleJobs();
+        } catch (DataAccessException e) {
+            // The next beat tries again, the heartbeat timeout is several intervals long
+            LOGGER.warn("Job heartbeat failed", e);
+        }
+    }
+
+    /**
+     * Take over the jobs whose instance stopped.
+     * Interrupted jobs run again if their handler allows it and fail otherwise, pending jobs are scheduled on this instance.
+     */
+    private void recoverStaleJobs() {
+        for (Job job : jobDao.getStale(heartbeatTimeout)) {
+            JobHandler handler = handlers.get(job.getType());
+            if (job.getStatus() == JobStatus.PENDING || (handler != null && handler.isRestartable() && !job.isCancelRequested())) {
+                if (jobDao.takeOver(job.getId(), job.getStatus(), JobStatus.PENDING, null, owner, heartbeatTimeout)) {
+                    LOGGER.info("Job {} of instance {} taken over", job.getId(), job.getOwner());
+                    schedule(job.getId());
+                }
+            } else if (job.isCancelRequested()) {
+                jobDao.takeOver(job.getId(), JobStatus.RUNNING, JobStatus.CANCELLED, CANCELLED_RESULT, owner, heartbeatTimeout);
+            } else {
+                jobDao.takeOver(job.getId(), JobStatus.RUNNING, JobStatus.FAILED, INTERRUPTED_RESULT, owner, heartbeatTimeout);
+            }
+        }
+    }
+
+    /**
+     * Submit a job for each company deletion that was started and has no pending or running job to finish it.
+     */
+    private void resumeCompanyDeletions() {
+        if (!handlers.containsKey(JobType.DELETE_COMPANY)) {
+            return;
+        }
+        Set<String> resumed = Stream.concat(jobDao.getByStatus(JobStatus.PENDING).stream(), jobDao.getByStatus(JobStatus.RUNNING).stream())
+                .filter(job -> job.getType() == JobType.DELETE_COMPANY)
+                .map(job -> job.getParameter(DeleteCompanyJobHandler.COMPANY_ID_PARAMETER))
+                .collect(Collectors.toSet());
+        for (CompanyDeletion deletion : companyService.getPendingDeletions()) {
+            String companyId = String.valueOf(deletion.getCompanyId());
+            if (resumed.add(companyId)) {
+                LOGGER.info("Resuming the deletion of company {}", companyId);
+                submit(JobType.DELETE_COMPANY, Collections.singletonMap(DeleteCompanyJobHandler.COMPANY_ID_PARAMETER, companyId));
+            }
+        }
+    }
+
+    /**
+     * Persist a new pending job.
+     *
+     * @param type       The type of job
+     * @param parameters The parameters of the job
+     * @return The persisted job
+     */
+    private Job create(JobType type, Map<String, String> parameters) {
+        if (type == null || parameters == null) {
+            throw new IllegalArgumentException("Job type and parameters must not be null");
+        }
+        if (!handlers.containsKey(type)) {
+            throw new IllegalArgumentException("No handler for the jobs of type " + type);
+        }
+        Job job = Job.builder().type(type).status(JobStatus.PENDING).parameters(parameters).owner(owner).build();
+        jobDao.insert(job);
+        return job;
+    }
+
+    /**
+     * Queue a pending job on the workers.
+     *
+     * @param id The id of the job
+     */
+    private void schedule(long id) {
+        try {
+            executor.execute(() -> run(id));
+        } catch (RejectedExecutionException e) {
+            LOGGER.warn("Job {} rejected, the job queue is full", id);
+            jobDao.updateStatus(id, JobStatus.PENDING, JobStatus.FAILED, "Too many jobs are queued");
+            deleteQuietly(inputOf(id));
+        }
+    }
+
+    /**
+     * Run a job on the current worker, unless it was cancelled or started by another instance while it was queued.
+     *
+     * @param id The id of the job
+     */
+    private void run(long id) {
+        if (!jobDao.start(id, owner)) {
+            return;
+        }
+        try {
+            Job job = jobDao.get(id).orElseThrow(() -> new IllegalStateException("Job " + id + " disappeared"));
+            String result = handlers.get(job.getType()).run(job, new WorkerContext(id));
+            jobDao.updateStatus(id, JobStatus.RUNNING, JobStatus.SUCCEEDED, result);
+        } catch (CancellationException e) {
+            jobDao.updateStatus(id, JobStatus.RUNNING, JobStatus.CANCELLED, CANCELLED_RESULT);
+            deleteQuietly(outputOf(id));
+        } catch (Exception e) {
+            LOGGER.error("Job {} failed", id, e);
+            jobDao.updateStatus(id, JobStatus.RUNNING, JobStatus.FAILED, e.getMessage() != null ? e.getMessage() : e.getClass().getName());
+            deleteQuietly(outputOf(id));
+        } finally {
+            deleteQuietly(inputOf(id));
+        }
+    }
+
+    /**
+     * Get the input file of a job.
+     *
+     * @param id The id of the job
+     * @return The path of the file
+     */
+    private Path inputOf(long id) {
+        return directory.resolve("job-" + id + ".in");
+    }
+
+    /**
+     * Get the output file of a job.
+     *
+     * @param id The id of the job
+     * @return The path of the file
+     */
+    private Path outputOf(long id) {
+        return directory.resolve("job-" + id + ".out");
+    }
+
+    /**
+     * Get the name of the host, the default name of this instance.
+     *
+     * @return The host name, or the name of the JVM if the host name can't be resolved
+     */
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            return ManagementFactory.getRuntimeMXBean().getName();
+        }
+    }
+
+    /**
+     * Delete a file if it exists, logging the failures.
+     *
+     * @param path The file to delete
+     */
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            LOGGER.warn("Could not delete {}", path, e);
+        }
+    }
+
+    /**
+     * The context of a job run by a worker.
+     */
+    private final class WorkerContext implements JobContext {
+
+        private final long id;
+
+        /**
+         * Constructor.
+         *
+         * @param id The id of the job
+         */
+        private WorkerContext(long id) {
+            this.id = id;
+        }
+
+        @Override
+        public void progress(int progress, Integer total) {
+            jobDao.updateProgress(id, progress, total);
+        }
+
+        @Override
+        public void checkCancelled() {
+            if (jobDao.get(id).map(Job::isCancelRequested).orElse(true)) {
+                throw new CancellationException("Job " + id + " was cancelled");
+            }
+        }
+
+        @Override
+        public Path getInput() {
+            return inputOf(id);
+        }
+
+        @Override
+        public Path getOutput() {
+            return outputOf(id);
+        }
+    }
+}
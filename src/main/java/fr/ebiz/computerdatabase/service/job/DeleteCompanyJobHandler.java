@@ -0,0 +1,63 @@
+package fr.ebiz.computerdatabase.service.job;
+
+import fr.ebiz.computerdatabase.model.Company;
+import fr.ebiz.computerdatabase.model.CompanyDeletion;
+import fr.ebiz.computerdatabase.model.Job;
+import fr.ebiz.computerdatabase.model.JobType;
+import fr.ebiz.computerdatabase.service.CompanyService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Delete a company and its computers incrementally.
+ * A cancelled deletion stops after its last committed chunk and resumes from there when the company is deleted again.
+ */
+@Component
+public class DeleteCompanyJobHandler implements JobHandler {
+
+    /**
+     * The id of the company to delete.
+     */
+    public static final String COMPANY_ID_PARAMETER = "companyId";
+
+    private final CompanyService companyService;
+
+    /**
+     * Constructor.
+     *
+     * @param companyService The company service
+     */
+    @Autowired
+    public DeleteCompanyJobHandler(CompanyService companyService) {
+        this.companyService = companyService;
+    }
+
+    @Override
+    public JobType getType() {
+        return JobType.DELETE_COMPANY;
+    }
+
+    /**
+     * {@inheritDoc}
+     * The deletion resumes after its last committed chunk.
+     */
+    @Override
+    public boolean isRestartable() {
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String run(Job job, JobContext context) {
+        Company company = Company.builder().id(Integer.valueOf(job.getParameter(COMPANY_ID_PARAMETER))).build();
+        CompanyDeletion deletion = companyService.deleteIncrementally(company, progress -> {
+            context.progress(progress.getDeletedComputers(), null);
+            if (!progress.isFinished()) {
+                context.checkCancelled();
+            }
+        });
+        return deletion.getDeletedComputers() + " computer(s) deleted with company " + deletion.getCompanyId();
+    }
+}
@@ -0,0 +1,76 @@
+package fr.ebiz.computerdatabase.service.job;
+
+import fr.ebiz.computerdatabase.model.Job;
+import fr.ebiz.computerdatabase.model.JobType;
+import fr.ebiz.computerdatabase.service.ComputerService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Delete a selection of computers, chunk by chunk.
+ * The comma separated ids of the computers are the input file of the job, since a selection can be too large for a parameter.
+ */
+@Component
+public class DeleteComputersJobHandler implements JobHandler {
+
+    private final ComputerService computerService;
+    private final int chunkSize;
+
+    /**
+     * Constructor.
+     *
+     * @param computerService The computer service
+     * @param chunkSize       The number of computers deleted between two progress updates
+     */
+    @Autowired
+    public DeleteComputersJobHandler(ComputerService computerService, @Value("${deleteBatchSize:1000}") int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Delete batch size must be > 0");
+        }
+        this.computerService = computerService;
+        this.chunkSize = chunkSize;
+    }
+
+    @Override
+    public JobType getType() {
+        return JobType.DELETE_COMPUTERS;
+    }
+
+    /**
+     * {@inheritDoc}
+     * Deleting computers that are already deleted does nothing.
+     */
+    @Override
+    public boolean isRestartable() {
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String run(Job job, JobContext context) throws IOException {
+        String selection = new String(Files.readAllBytes(context.getInput()), StandardCharsets.UTF_8);
+        List<Integer> ids = Arrays.stream(selection.split(","))
+                .map(String::trim)
+                .filter(id -> !id.isEmpty())
+                .map(Integer::valueOf)
+                .collect(Collectors.toList());
+        int deleted = 0;
+        for (int from = 0; from < ids.size(); from += chunkSize) {
+            context.checkCancelled();
+            int to = Math.min(from + chunkSize, ids.size());
+            deleted += computerService.deleteComputers(ids.subList(from, to));
+            context.progress(to, ids.size());
+        }
+        return deleted + " computer(s) deleted";
+    }
+}
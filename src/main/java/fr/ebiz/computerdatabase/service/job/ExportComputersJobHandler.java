@@ -0,0 +1,88 @@
+package fr.ebiz.computerdatabase.service.job;
+
+import fr.ebiz.computerdatabase.dto.GetAllComputersRequest;
+import fr.ebiz.computerdatabase.io.DataFormat;
+import fr.ebiz.computerdatabase.model.Job;
+import fr.ebiz.computerdatabase.model.JobType;
+import fr.ebiz.computerdatabase.persistence.SortOrder;
+import fr.ebiz.computerdatabase.persistence.dao.ComputerDao;
+import fr.ebiz.computerdatabase.service.ComputerExportService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+
+/**
+ * Export the computers matching a search to the output file of the job.
+ * A cancelled export stops within a few hundred rows, its partial output file being deleted.
+ */
+@Component
+public class ExportComputersJobHandler implements JobHandler {
+
+    /**
+     * The search query.
+     */
+    public static final String QUERY_PARAMETER = "query";
+    /**
+     * The sort column, a {@link ComputerDao.SortColumn}.
+     */
+    public static final String COLUMN_PARAMETER = "column";
+    /**
+     * The sort order, a {@link SortOrder}.
+     */
+    public static final String ORDER_PARAMETER = "order";
+    /**
+     * The format of the file, a {@link DataFormat}.
+     */
+    public static final String FORMAT_PARAMETER = "format";
+
+    private final ComputerExportService exportService;
+
+    /**
+     * Constructor.
+     *
+     * @param exportService The computer export service
+     */
+    @Autowired
+    public ExportComputersJobHandler(ComputerExportService exportService) {
+        this.exportService = exportService;
+    }
+
+    @Override
+    public JobType getType() {
+        return JobType.EXPORT_COMPUTERS;
+    }
+
+    /**
+     * {@inheritDoc}
+     * The output file is written again from the start.
+     */
+    @Override
+    public boolean isRestartable() {
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String run(Job job, JobContext context) throws IOException {
+        GetAllComputersRequest request = GetAllComputersRequest.builder()
+                .query(job.getParameter(QUERY_PARAMETER))
+                .column(ComputerDao.SortColumn.valueOf(job.getParameter(COLUMN_PARAMETER)))
+                .order(SortOrder.valueOf(job.getParameter(ORDER_PARAMETER)))
+                .build();
+        int exported;
+        try (OutputStream output = new BufferedOutputStream(Files.newOutputStream(context.getOutput()))) {
+            exported = exportService.exportComputers(request, DataFormat.valueOf(job.getParameter(FORMAT_PARAMETER)), output, progress -> {
+                context.progress(progress, null);
+                context.checkCancelled();
+            });
+        }
+        context.progress(exported, exported);
+        return exported + " computer(s) exported";
+    }
+}
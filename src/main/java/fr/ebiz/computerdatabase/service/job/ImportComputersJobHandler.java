@@ -0,0 +1,74 @@
+package fr.ebiz.computerdatabase.service.job;
+
+import fr.ebiz.computerdatabase.dto.ImportReport;
+import fr.ebiz.computerdatabase.io.DataFormat;
+import fr.ebiz.computerdatabase.model.Job;
+import fr.ebiz.computerdatabase.model.JobType;
+import fr.ebiz.computerdatabase.service.ComputerImportService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.Validator;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+
+/**
+ * Import the computers of the uploaded input file of the job, checked by the same validator as the computer form.
+ * A cancelled import stops after its current batch, the batches inserted so far being kept.
+ */
+@Component
+public class ImportComputersJobHandler implements JobHandler {
+
+    /**
+     * The format of the file, a {@link DataFormat}.
+     */
+    public static final String FORMAT_PARAMETER = "format";
+
+    private final ComputerImportService importService;
+    private final Validator validator;
+
+    /**
+     * Constructor.
+     *
+     * @param importService The computer import service
+     * @param validator     The computer validator
+     */
+    @Autowired
+    public ImportComputersJobHandler(ComputerImportService importService, @Qualifier("computerValidator") Validator validator) {
+        this.importService = importService;
+        this.validator = validator;
+    }
+
+    @Override
+    public JobType getType() {
+        return JobType.IMPORT_COMPUTERS;
+    }
+
+    /**
+     * {@inheritDoc}
+     * The batches committed before the interruption would be inserted twice.
+     */
+    @Override
+    public boolean isRestartable() {
+        return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String run(Job job, JobContext context) throws IOException {
+        ImportReport report;
+        try (InputStream input = new BufferedInputStream(Files.newInputStream(context.getInput()))) {
+            report = importService.importComputers(input, DataFormat.valueOf(job.getParameter(FORMAT_PARAMETER)), validator, progress -> {
+                context.progress(progress.getRead(), null);
+                context.checkCancelled();
+            });
+        }
+        context.progress(report.getRead(), report.getRead());
+        return report.toString();
+    }
+}
@@ -0,0 +1,39 @@
+package fr.ebiz.computerdatabase.service.job;
+
+import java.nio.file.Path;
+import java.util.concurrent.CancellationException;
+
+/**
+ * What a running job can see of the job engine.
+ */
+public interface JobContext {
+
+    /**
+     * Record the progress of the job.
+     *
+     * @param progress The number of items processed so far
+     * @param total    The number of items to process, null if unknown
+     */
+    void progress(int progress, Integer total);
+
+    /**
+     * Stop the job if its cancellation was requested. Jobs call it between two units of work.
+     *
+     * @throws CancellationException if the job must stop
+     */
+    void checkCancelled();
+
+    /**
+     * Get the file submitted along with the job.
+     *
+     * @return The input file
+     */
+    Path getInput();
+
+    /**
+     * Get the file the job writes its output to, served once the job succeeded.
+     *
+     * @return The output file
+     */
+    Path getOutput();
+}
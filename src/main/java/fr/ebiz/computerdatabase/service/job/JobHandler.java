@@ -0,0 +1,35 @@
+package fr.ebiz.computerdatabase.service.job;
+
+import fr.ebiz.computerdatabase.model.Job;
+import fr.ebiz.computerdatabase.model.JobType;
+
+/**
+ * The work of a type of job. Handlers are beans, found by the job engine by their type.
+ */
+public interface JobHandler {
+
+    /**
+     * Get the type of the jobs run by this handler.
+     *
+     * @return The job type
+     */
+    JobType getType();
+
+    /**
+     * Check whether a job interrupted by a restart can run again, which requires the work to be idempotent or resumable.
+     * Jobs that can't are marked as failed instead.
+     *
+     * @return true if the job can run again
+     */
+    boolean isRestartable();
+
+    /**
+     * Run a job.
+     *
+     * @param job     The job with its parameters
+     * @param context The context of the job
+     * @return The result of the job
+     * @throws Exception if the job fails
+     */
+    String run(Job job, JobContext context) throws Exception;
+}
@@ -0,0 +1,62 @@
+package fr.ebiz.computerdatabase.service.job;
+
+import fr.ebiz.computerdatabase.model.Company;
+import fr.ebiz.computerdatabase.model.Job;
+import fr.ebiz.computerdatabase.model.JobType;
+import fr.ebiz.computerdatabase.service.CompanyService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Recompute the statistics of every company from its computers, correcting the ones that drifted.
+ * Each company is reconciled in its own transaction, so that only one statistics row is locked at a time.
+ */
+@Component
+public class ReconcileCompanyStatsJobHandler implements JobHandler {
+
+    private final CompanyService companyService;
+
+    /**
+     * Constructor.
+     *
+     * @param companyService The company service
+     */
+    @Autowired
+    public ReconcileCompanyStatsJobHandler(CompanyService companyService) {
+        this.companyService = companyService;
+    }
+
+    @Override
+    public JobType getType() {
+        return JobType.RECONCILE_COMPANY_STATS;
+    }
+
+    /**
+     * {@inheritDoc}
+     * Reconciling a company twice gives the same statistics.
+     */
+    @Override
+    public boolean isRestartable() {
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String run(Job job, JobContext context) {
+        List<Company> companies = companyService.getSnapshot().getCompanies();
+        int corrected = 0;
+        for (int i = 0; i < companies.size(); i++) {
+            context.checkCancelled();
+            if (companyService.reconcileStats(companies.get(i).getId())) {
+                corrected++;
+            }
+            context.progress(i + 1, companies.size());
+        }
+        int orphans = companyService.deleteOrphanStats();
+        return companies.size() + " company(ies) reconciled, " + corrected + " corrected, " + orphans + " orphan(s) deleted";
+    }
+}
@@ -2,19 +2,30 @@ package fr.ebiz.computerdatabase.ui.cli;
 
 import fr.ebiz.computerdatabase.dto.ComputerDto;
 import fr.ebiz.computerdatabase.dto.GetAllComputersRequest;
+import fr.ebiz.computerdatabase.dto.ImportReport;
 import fr.ebiz.computerdatabase.dto.paging.Page;
-import fr.ebiz.computerdatabase.dto.paging.Pageable;
+import fr.ebiz.computerdatabase.io.DataFormat;
 import fr.ebiz.computerdatabase.model.Company;
+import fr.ebiz.computerdatabase.model.CompanyDeletion;
 import fr.ebiz.computerdatabase.persistence.SortOrder;
 import fr.ebiz.computerdatabase.persistence.dao.ComputerDao;
+import fr.ebiz.computerdatabase.persistence.migration.SchemaMigrator;
 import fr.ebiz.computerdatabase.service.CompanyService;
+import fr.ebiz.computerdatabase.service.ComputerImportService;
 import fr.ebiz.computerdatabase.service.ComputerService;
 import fr.ebiz.computerdatabase.ui.cli.printer.factory.PrettyPrintFactory;
+import fr.ebiz.computerdatabase.ui.web.computer.ComputerValidator;
 import fr.ebiz.computerdatabase.utils.StringUtils;
 import org.springframework.beans.factory.BeanFactory;
 import org.springframework.context.support.ClassPathXmlApplicationContext;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
 import java.util.Scanner;
 
@@ -24,6 +35,8 @@ public class Cli {
     private static final int MAX_ELEMENTS = 20;
     private final ComputerService computerService;
     private final CompanyService companyService;
+    private final ComputerImportService importService;
+    private final SchemaMigrator schemaMigrator;
     private final Scanner scanner;
 
     /**
@@ -34,6 +47,8 @@ public class Cli {
                 new ClassPathXmlApplicationContext("WEB-INF/applicationContext.xml");
         this.computerService = (ComputerService) factory.getBean("computerService");
         this.companyService = (CompanyService) factory.getBean("companyService");
+        this.importService = factory.getBean(ComputerImportService.class);
+        this.schemaMigrator = factory.getBean(SchemaMigrator.class);
         this.scanner = new Scanner(System.in);
     }
 
@@ -54,6 +69,13 @@ public class Cli {
         Command command;
 
         System.out.println("Hello, welcome to the Computer Database CLI application");
+        // The job engine finishes the company deletions a previous run did not get to complete
+        companyService.getPendingDeletions().forEach(deletion -> System.out.println("Company " + deletion.getCompanyId()
+                + ": deletion interrupted after " + deletion.getDeletedComputers() + " computer(s), resuming in the background"));
+        List<String> pending = schemaMigrator.getPending();
+        if (!pending.isEmpty()) {
+            System.out.println(pending.size() + " schema migration(s) pending " + pending + ", use the \"migrate\" command to apply them");
+        }
         help();
 
         do {
@@ -85,7 +107,10 @@ public class Cli {
             case LIST_COMPANIES:
                 System.out.println("Here is the list of companies");
                 System.out.println(PrettyPrintFactory.getInstance()
-                        .make(Company.class).printList(companyService.getAll(Pageable.builder().page(DEFAULT_PAGE).elements(Integer.MAX_VALUE).build()).getElements()));
+                        .make(Company.class).printList(companyService.getSnapshot().getCompanies()));
+                break;
+            case RENAME_COMPANY:
+                renameCompany();
                 break;
             case DELETE_COMPANY:
                 deleteCompany();
@@ -105,6 +130,12 @@ public class Cli {
             case DELETE_COMPUTER:
                 deleteComputer();
                 break;
+            case IMPORT_COMPUTERS:
+                importComputers();
+                break;
+            case MIGRATE:
+                migrate();
+                break;
         }
     }
 
@@ -206,15 +237,35 @@ public class Cli {
         System.out.println(computerToUpdate.toString() + " was updated successfully");
     }
 
+    /**
+     * Handle the RENAME_COMPANY command.
+     */
+    private void renameCompany() {
+        Company company = readCompany(true);
+        String name = PrinterUtils.readString(scanner, "New name of the company* : ", true);
+        companyService.rename(Company.builder().id(company.getId()).name(name).build());
+        System.out.println(company.toString() + " was renamed to " + name);
+    }
+
     /**
      * Handle the DELETE_COMPANY command.
      */
     private void deleteCompany() {
         Company company = readCompany(true);
-        companyService.delete(company);
+        companyService.deleteIncrementally(company, this::printDeletionProgress);
         System.out.println(company.toString() + " was deleted successfully");
     }
 
+    /**
+     * Print the progress of a company deletion.
+     *
+     * @param deletion The progress of the deletion
+     */
+    private void printDeletionProgress(CompanyDeletion deletion) {
+        System.out.println("Company " + deletion.getCompanyId() + ": " + deletion.getDeletedComputers() + " computer(s) deleted"
+                + (deletion.isFinished() ? ", company deleted" : ""));
+    }
+
 
     /**
      * Handle the DELETE_COMPUTER command.
@@ -225,6 +276,33 @@ public class Cli {
         System.out.println(computer.toString() + " was deleted successfully");
     }
 
+    /**
+     * Handle the IMPORT_COMPUTERS command.
+     */
+    private void importComputers() {
+        Path path = Paths.get(PrinterUtils.readString(scanner, "Path of the .csv or .ndjson file* : ", true));
+        try (InputStream input = Files.newInputStream(path)) {
+            ImportReport report = importService.importComputers(input,
+                    DataFormat.fromFileName(path.getFileName().toString()), new ComputerValidator(companyService),
+                    progress -> System.out.println(progress.getRead() + " record(s) read"));
+            System.out.println(report.getInserted() + " computers imported, " + report.getRejected() + " rejected");
+            report.getErrors().forEach(error -> System.out.println("\t" + error));
+        } catch (IOException | IllegalArgumentException e) {
+            System.out.println("Import failed : " + e.getMessage());
+        }
+    }
+
+    /**
+     * Handle the MIGRATE command.
+     */
+    private void migrate() {
+        List<String> applied = schemaMigrator.migrate();
+        if (applied.isEmpty()) {
+            System.out.println("The schema is up to date");
+        }
+        applied.forEach(script -> System.out.println(script + " applied"));
+    }
+
     /**
      * Read a computer from the scanner.
      * This method checks the computer exists in the database
@@ -3,7 +3,7 @@ package fr.ebiz.computerdatabase.ui.cli;
 import fr.ebiz.computerdatabase.utils.StringUtils;
 
 public enum Command {
-    HELP("help", "Show this help"), QUIT("quit", "Exit the application"), LIST_COMPUTERS("list-computers", "List the computers in the database"), LIST_COMPANIES("list-companies", "List the companies in the database"), ADD_COMPUTER("add-computer", "Add a computer"), UPDATE_COMPUTER("update-computer", "Update a computer"), DELETE_COMPANY("delete-company", "Delete a company"), DELETE_COMPUTER("delete-computer", "Delete a computer"), SHOW_COMPUTER("show-computer", "Computer detail");
+    HELP("help", "Show this help"), QUIT("quit", "Exit the application"), LIST_COMPUTERS("list-computers", "List the computers in the database"), LIST_COMPANIES("list-companies", "List the companies in the database"), ADD_COMPUTER("add-computer", "Add a computer"), UPDATE_COMPUTER("update-computer", "Update a computer"), RENAME_COMPANY("rename-company", "Rename a company"), DELETE_COMPANY("delete-company", "Delete a company"), DELETE_COMPUTER("delete-computer", "Delete a computer"), SHOW_COMPUTER("show-computer", "Computer detail"), IMPORT_COMPUTERS("import-computers", "Import computers from a CSV or NDJSON file"), MIGRATE("migrate", "Apply the pending schema migrations");
 
     private final String commandString;
     private final String helpMessage;
@@ -1,11 +1,14 @@
 package fr.ebiz.computerdatabase.ui.web;
 
 import fr.ebiz.computerdatabase.dto.GetAllComputersRequest;
+import fr.ebiz.computerdatabase.io.DataFormat;
 import fr.ebiz.computerdatabase.persistence.SortOrder;
 import fr.ebiz.computerdatabase.persistence.dao.ComputerDao;
+import fr.ebiz.computerdatabase.service.ComputerExportService;
 import fr.ebiz.computerdatabase.service.ComputerService;
 import fr.ebiz.computerdatabase.ui.web.converter.CaseInsensitiveConverter;
 import fr.ebiz.computerdatabase.utils.StringUtils;
+import org.springframework.http.HttpHeaders;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.WebDataBinder;
@@ -17,7 +20,9 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.constraints.Pattern;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -30,16 +35,20 @@ public class DashboardController {
 
     private static final String COMPUTERS_ATTR = "computers";
     private static final String DASHBOARD_VIEW = "dashboard";
+    private static final String DELETED_ATTR = "deleted";
 
     private final ComputerService computerService;
+    private final ComputerExportService exportService;
 
     /**public
      * Constructor.
      *
      * @param computerService The injected computer service
+     * @param exportService   The injected computer export service
      */
-    public DashboardController(ComputerService computerService) {
+    public DashboardController(ComputerService computerService, ComputerExportService exportService) {
         this.computerService = computerService;
+        this.exportService = exportService;
     }
 
     /**
@@ -74,12 +83,29 @@ public class DashboardController {
                 .filter(StringUtils::isNumeric)
                 .mapToInt(Integer::parseInt).forEach(idList::add);
 
-        computerService.deleteComputers(idList);
-
+        redirectAttributes.addFlashAttribute(DELETED_ATTR, computerService.deleteComputers(idList));
         redirectAttributes.addFlashAttribute(request);
         return "redirect:/" + DASHBOARD_VIEW;
     }
 
+    /**
+     * Export the computers matching the dashboard search, streamed straight to the response.
+     *
+     * @param request  The query parameters, pagination is ignored
+     * @param format   The export format, CSV or NDJSON
+     * @param response The HTTP response
+     * @throws IOException if the response can't be written
+     */
+    @GetMapping("/computers/export")
+    public void exportComputers(GetAllComputersRequest request,
+                                @RequestParam(value = "format", defaultValue = "CSV") DataFormat format,
+                                HttpServletResponse response) throws IOException {
+        response.setContentType(format.getContentType() + ";charset=UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"computers." + format.getExtension() + "\"");
+        exportService.exportComputers(request, format, response.getOutputStream(), exported -> {
+        });
+    }
+
     /**
      * Init the bindings for enumerations.
      *
@@ -89,6 +115,7 @@ public class DashboardController {
     public void initBinder(WebDataBinder binder) {
         binder.registerCustomEditor(SortOrder.class, new CaseInsensitiveConverter<>(SortOrder.class));
         binder.registerCustomEditor(ComputerDao.SortColumn.class, new CaseInsensitiveConverter<>(ComputerDao.SortColumn.class));
+        binder.registerCustomEditor(DataFormat.class, new CaseInsensitiveConverter<>(DataFormat.class));
     }
 
 }
@@ -0,0 +1,65 @@
+package fr.ebiz.computerdatabase.ui.web.company;
+
+import fr.ebiz.computerdatabase.model.Company;
+import fr.ebiz.computerdatabase.model.CompanyStats;
+import fr.ebiz.computerdatabase.service.CompanyService;
+import fr.ebiz.computerdatabase.ui.web.exception.ResourceNotFoundException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+import java.util.List;
+
+@Controller
+@RequestMapping("/companies")
+public class CompanyController {
+
+    private final CompanyService companyService;
+
+    /**
+     * Constructor.
+     *
+     * @param companyService The company service
+     */
+    @Autowired
+    public CompanyController(CompanyService companyService) {
+        this.companyService = companyService;
+    }
+
+    /**
+     * Find the companies whose name starts with a prefix, used by the computer forms to lazy-load the companies.
+     * The next page is requested with the name and id of the last company of the previous page.
+     *
+     * @param prefix    The beginning of the name
+     * @param afterName The name of the last company of the previous page
+     * @param afterId   The id of the last company of the previous page
+     * @param limit     The maximum number of companies to get
+     * @return The matching companies sorted by name
+     */
+    @GetMapping(value = "/search", produces = MediaType.APPLICATION_JSON_VALUE)
+    @ResponseBody
+    public List<Company> searchCompanies(@RequestParam(value = "prefix", defaultValue = "") String prefix,
+                                         @RequestParam(value = "afterName", required = false) String afterName,
+                                         @RequestParam(value = "afterId", required = false) Integer afterId,
+                                         @RequestParam(value = "limit", defaultValue = "20") int limit) {
+        Company after = afterId == null ? null : Company.builder().id(afterId).name(afterName).build();
+        return companyService.search(prefix, after, limit);
+    }
+
+    /**
+     * Get the number of computers of a company and the range of their introduced dates.
+     *
+     * @param id The id of the company
+     * @return The statistics of the company
+     */
+    @GetMapping(value = "/{id}/stats", produces = MediaType.APPLICATION_JSON_VALUE)
+    @ResponseBody
+    public CompanyStats getStats(@PathVariable("id") int id) {
+        return companyService.getStats(id).orElseThrow(ResourceNotFoundException::new);
+    }
+}
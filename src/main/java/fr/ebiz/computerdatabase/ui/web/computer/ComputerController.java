@@ -1,13 +1,16 @@
 package fr.ebiz.computerdatabase.ui.web.computer;
 
 import fr.ebiz.computerdatabase.dto.ComputerDto;
-import fr.ebiz.computerdatabase.dto.paging.Pageable;
-import fr.ebiz.computerdatabase.model.Company;
+import fr.ebiz.computerdatabase.dto.ImportReport;
+import fr.ebiz.computerdatabase.io.DataFormat;
 import fr.ebiz.computerdatabase.service.CompanyService;
+import fr.ebiz.computerdatabase.service.ComputerImportService;
 import fr.ebiz.computerdatabase.service.ComputerService;
 import fr.ebiz.computerdatabase.ui.web.converter.LocalDatePropertyEditorSupport;
 import fr.ebiz.computerdatabase.ui.web.exception.ResourceNotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
@@ -17,18 +20,21 @@ import org.springframework.web.bind.annotation.InitBinder;
 import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseBody;
 
 import javax.validation.Valid;
+import java.io.IOException;
+import java.io.InputStream;
 import java.time.LocalDate;
-import java.util.List;
 
 @Controller
 @RequestMapping("/computers")
 public class ComputerController {
 
     private static final String COMPUTER_ATTR = "computer";
-    private static final String COMPANIES_ATTR = "companies";
+    private static final String SELECTED_COMPANY_ATTR = "selectedCompany";
 
     private static final String ADD_COMPUTER_VIEW = "computers/add";
     private static final String EDIT_COMPUTER_VIEW = "computers/edit";
@@ -36,6 +42,7 @@ public class ComputerController {
 
     private final ComputerService computerService;
     private final CompanyService companyService;
+    private final ComputerImportService importService;
     private final ComputerValidator validator;
     private final LocalDatePropertyEditorSupport localDatePropertyEditorSupport;
 
@@ -44,13 +51,15 @@ public class ComputerController {
      *
      * @param computerService                The computer service
      * @param companyService                 The company service
+     * @param importService                  The computer import service
      * @param validator                      The computer validator
      * @param localDatePropertyEditorSupport localDatePropertyEditorSupport
      */
     @Autowired
-    public ComputerController(ComputerService computerService, CompanyService companyService, ComputerValidator validator, LocalDatePropertyEditorSupport localDatePropertyEditorSupport) {
+    public ComputerController(ComputerService computerService, CompanyService companyService, ComputerImportService importService, ComputerValidator validator, LocalDatePropertyEditorSupport localDatePropertyEditorSupport) {
         this.computerService = computerService;
         this.companyService = companyService;
+        this.importService = importService;
         this.validator = validator;
         this.localDatePropertyEditorSupport = localDatePropertyEditorSupport;
     }
@@ -75,7 +84,6 @@ public class ComputerController {
     @GetMapping
     public String addComputer(Model model) {
         model.addAttribute(COMPUTER_ATTR, ComputerDto.builder().build());
-        model.addAttribute(COMPANIES_ATTR, getAllCompanies());
         return ADD_COMPUTER_VIEW;
     }
 
@@ -100,11 +108,13 @@ public class ComputerController {
      *
      * @param computerDto The Computer DTO
      * @param result      The validation results
+     * @param model       The spring model
      * @return The created model
      */
     @PostMapping
-    public String saveComputer(@ModelAttribute("computer") @Valid ComputerDto computerDto, BindingResult result) {
+    public String saveComputer(@ModelAttribute("computer") @Valid ComputerDto computerDto, BindingResult result, Model model) {
         if (result.hasErrors()) {
+            fillSelectedCompany(model, computerDto.getCompanyId());
             if (computerDto.getId() == null) {
                 return ADD_COMPUTER_VIEW;
             } else {
@@ -121,6 +131,21 @@ public class ComputerController {
         return REDIRECT_TO_DASHBOARD_VIEW;
     }
 
+    /**
+     * Import computers from an uploaded CSV or NDJSON body, streamed to the database by batches.
+     *
+     * @param contentType The content type of the body, text/csv or application/x-ndjson
+     * @param body        The request body
+     * @return The report of the import
+     * @throws IOException if the body can't be read
+     */
+    @PostMapping(value = "/import", consumes = {"text/csv", "application/x-ndjson"}, produces = MediaType.APPLICATION_JSON_VALUE)
+    @ResponseBody
+    public ImportReport importComputers(@RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType, InputStream body) throws IOException {
+        return importService.importComputers(body, DataFormat.fromContentType(contentType), validator, progress -> {
+        });
+    }
+
     /**
      * Fill the model to edit a computer.
      *
@@ -130,18 +155,21 @@ public class ComputerController {
      */
     private ComputerDto fillModelToEdit(Model model, ComputerDto computer) {
         model.addAttribute(COMPUTER_ATTR, computer);
-        model.addAttribute(COMPANIES_ATTR, getAllCompanies());
+        fillSelectedCompany(model, computer.getCompanyId());
         return computer;
     }
 
     /**
-     * Get the list of all companies.
+     * Add the selected company to the model, the only company rendered in the form.
+     * The other companies are lazy-loaded by the form from the company search.
      *
-     * @return the list of all companies
+     * @param model     The model to fill
+     * @param companyId The id of the selected company or null
      */
-    private List<Company> getAllCompanies() {
-        return companyService.getAll(Pageable.builder().elements(Integer.MAX_VALUE).page(0).build()).getElements();
+    private void fillSelectedCompany(Model model, Integer companyId) {
+        if (companyId != null && companyId > 0) {
+            companyService.get(companyId).ifPresent(company -> model.addAttribute(SELECTED_COMPANY_ATTR, company));
+        }
     }
 
-
 }
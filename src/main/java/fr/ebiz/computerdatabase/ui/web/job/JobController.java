@@ -0,0 +1,198 @@
+package fr.ebiz.computerdatabase.ui.web.job;
+
+import fr.ebiz.computerdatabase.dto.GetAllComputersRequest;
+import fr.ebiz.computerdatabase.io.DataFormat;
+import fr.ebiz.computerdatabase.model.Job;
+import fr.ebiz.computerdatabase.model.JobType;
+import fr.ebiz.computerdatabase.persistence.SortOrder;
+import fr.ebiz.computerdatabase.persistence.dao.ComputerDao;
+import fr.ebiz.computerdatabase.service.JobService;
+import fr.ebiz.computerdatabase.service.job.DeleteCompanyJobHandler;
+import fr.ebiz.computerdatabase.service.job.ExportComputersJobHandler;
+import fr.ebiz.computerdatabase.service.job.ImportComputersJobHandler;
+import fr.ebiz.computerdatabase.ui.web.converter.CaseInsensitiveConverter;
+import fr.ebiz.computerdatabase.ui.web.exception.ResourceNotFoundException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.WebDataBinder;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.InitBinder;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+import javax.servlet.http.HttpServletResponse;
+import javax.validation.constraints.Pattern;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Submit the long-running operations as background jobs and follow them.
+ * Submissions answer 202 Accepted with the job, whose status is then polled.
+ */
+@Controller
+@RequestMapping("/jobs")
+public class JobController {
+
+    private static final String IDS_REGEX = "\\d+(,\\d+)*";
+
+    private final JobService jobService;
+
+    /**
+     * Constructor.
+     *
+     * @param jobService The job service
+     */
+    @Autowired
+    public JobController(JobService jobService) {
+        this.jobService = jobService;
+    }
+
+    /**
+     * Get the status and progress of a job.
+     *
+     * @param id The id of the job
+     * @return The job
+     */
+    @GetMapping(value = "/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
+    @ResponseBody
+    public Job getJob(@PathVariable("id") long id) {
+        return jobService.get(id).orElseThrow(ResourceNotFoundException::new);
+    }
+
+    /**
+     * Cancel a job.
+     *
+     * @param id The id of the job
+     * @return The job
+     */
+    @PostMapping(value = "/{id}/cancel", produces = MediaType.APPLICATION_JSON_VALUE)
+    @ResponseBody
+    public Job cancelJob(@PathVariable("id") long id) {
+        jobService.cancel(id);
+        return getJob(id);
+    }
+
+    /**
+     * Download the output file of a succeeded job.
+     *
+     * @param id       The id of the job
+     * @param response The HTTP response
+     * @throws IOException if the response can't be written
+     */
+    @GetMapping("/{id}/output")
+    public void getOutput(@PathVariable("id") long id, HttpServletResponse response) throws IOException {
+        Job job = getJob(id);
+        Path output = jobService.getOutput(id).orElseThrow(ResourceNotFoundException::new);
+        String format = job.getParameters().get(ExportComputersJobHandler.FORMAT_PARAMETER);
+        if (format != null) {
+            DataFormat dataFormat = DataFormat.valueOf(format);
+            response.setContentType(dataFormat.getContentType() + ";charset=UTF-8");
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"computers." + dataFormat.getExtension() + "\"");
+        }
+        Files.copy(output, response.getOutputStream());
+    }
+
+    /**
+     * Delete a selection of computers in the background.
+     *
+     * @param ids The comma separated ids of the computers
+     * @return The submitted job
+     * @throws IOException if the selection can't be stored
+     */
+    @PostMapping(value = "/computers/delete", produces = MediaType.APPLICATION_JSON_VALUE)
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    @ResponseBody
+    public Job deleteComputers(@RequestParam("selection") @Pattern(regexp = IDS_REGEX) String ids) throws IOException {
+        return jobService.submit(JobType.DELETE_COMPUTERS, Collections.emptyMap(), new ByteArrayInputStream(ids.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Delete a company and its computers in the background.
+     *
+     * @param companyId The id of the company
+     * @return The submitted job
+     */
+    @PostMapping(value = "/companies/{companyId}/delete", produces = MediaType.APPLICATION_JSON_VALUE)
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    @ResponseBody
+    public Job deleteCompany(@PathVariable("companyId") int companyId) {
+        return jobService.submit(JobType.DELETE_COMPANY,
+                Collections.singletonMap(DeleteCompanyJobHandler.COMPANY_ID_PARAMETER, String.valueOf(companyId)));
+    }
+
+    /**
+     * Recompute the statistics of every company in the background.
+     *
+     * @return The submitted job
+     */
+    @PostMapping(value = "/companies/stats/reconcile", produces = MediaType.APPLICATION_JSON_VALUE)
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    @ResponseBody
+    public Job reconcileCompanyStats() {
+        return jobService.submit(JobType.RECONCILE_COMPANY_STATS, Collections.emptyMap());
+    }
+
+    /**
+     * Export the computers matching a search in the background, downloaded from the output of the job.
+     *
+     * @param request The query parameters, pagination is ignored
+     * @param format  The export format, CSV or NDJSON
+     * @return The submitted job
+     */
+    @PostMapping(value = "/computers/export", produces = MediaType.APPLICATION_JSON_VALUE)
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    @ResponseBody
+    public Job exportComputers(GetAllComputersRequest request, @RequestParam(value = "format", defaultValue = "CSV") DataFormat format) {
+        Map<String, String> parameters = new HashMap<>();
+        parameters.put(ExportComputersJobHandler.QUERY_PARAMETER, request.getQuery() == null ? "" : request.getQuery());
+        parameters.put(ExportComputersJobHandler.COLUMN_PARAMETER, request.getColumn().name());
+        parameters.put(ExportComputersJobHandler.ORDER_PARAMETER, request.getOrder().name());
+        parameters.put(ExportComputersJobHandler.FORMAT_PARAMETER, format.name());
+        return jobService.submit(JobType.EXPORT_COMPUTERS, parameters);
+    }
+
+    /**
+     * Import computers from an uploaded CSV or NDJSON body in the background.
+     * The body is stored before the response, the report is the result of the job.
+     *
+     * @param contentType The content type of the body, text/csv or application/x-ndjson
+     * @param body        The request body
+     * @return The submitted job
+     * @throws IOException if the body can't be stored
+     */
+    @PostMapping(value = "/computers/import", consumes = {"text/csv", "application/x-ndjson"}, produces = MediaType.APPLICATION_JSON_VALUE)
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    @ResponseBody
+    public Job importComputers(@RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType, InputStream body) throws IOException {
+        DataFormat format = DataFormat.fromContentType(contentType);
+        return jobService.submit(JobType.IMPORT_COMPUTERS,
+                Collections.singletonMap(ImportComputersJobHandler.FORMAT_PARAMETER, format.name()), body);
+    }
+
+    /**
+     * Init the bindings for enumerations.
+     *
+     * @param binder The web binder
+     */
+    @InitBinder
+    public void initBinder(WebDataBinder binder) {
+        binder.registerCustomEditor(SortOrder.class, new CaseInsensitiveConverter<>(SortOrder.class));
+        binder.registerCustomEditor(ComputerDao.SortColumn.class, new CaseInsensitiveConverter<>(ComputerDao.SortColumn.class));
+        binder.registerCustomEditor(DataFormat.class, new CaseInsensitiveConverter<>(DataFormat.class));
+    }
+}
@@ -0,0 +1,4 @@
+-- Fill the copy for the existing computers, the DAOs keep it up to date from then on.
+update computer computer
+  join company company on computer.company_id = company.id
+  set computer.company_name = company.name;
@@ -0,0 +1,15 @@
+-- Aggregates of the computers of each company, kept up to date by the computer writes.
+-- A computer is active while it has no discontinued date.
+create table if not exists company_stats (
+  company_id                bigint not null,
+  computers                 int not null default 0,
+  active_computers          int not null default 0,
+  first_introduced          timestamp NULL,
+  last_introduced           timestamp NULL,
+  constraint pk_company_stats primary key (company_id))
+;
+
+-- Resolves the MIN and MAX introduced date of a company with one index dive each
+alter table computer
+  add index ix_computer_company_introduced (company_id, introduced),
+  algorithm = inplace, lock = none;
@@ -0,0 +1,11 @@
+-- Compute the aggregates of the existing computers, the writes and the reconcile job maintain them from then on.
+insert into company_stats (company_id, computers, active_computers, first_introduced, last_introduced)
+  select company_id, count(*), sum(discontinued is null), min(introduced), max(introduced)
+  from computer
+  where company_id is not null
+  group by company_id
+on duplicate key update
+  computers = values(computers),
+  active_computers = values(active_computers),
+  first_introduced = values(first_introduced),
+  last_introduced = values(last_introduced);
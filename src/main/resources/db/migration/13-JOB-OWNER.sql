@@ -0,0 +1,5 @@
+-- The instance queuing or running each job, and the last time it showed it was alive.
+-- Jobs whose heartbeat is too old belong to a stopped instance and are taken over by another one.
+alter table job
+  add column owner varchar(255) default NULL,
+  add column heartbeat timestamp NULL default NULL;
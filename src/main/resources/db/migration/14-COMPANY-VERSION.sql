@@ -0,0 +1,9 @@
+-- Version of the company table, bumped by each company rename or deletion in its transaction,
+-- so that every instance can tell whether its list of the companies is still current.
+create table if not exists company_version (
+  id                        tinyint not null,
+  version                   bigint not null default 0,
+  constraint pk_company_version primary key (id))
+;
+
+insert ignore into company_version (id, version) values (1, 0);
@@ -0,0 +1,15 @@
+-- Word searches on the computer and company names, for searchMode=FULLTEXT.
+-- The deployments that ran this script by hand before it became a migration already have the indexes.
+set @ddl = (select if(count(*) = 0, 'create fulltext index ft_computer_name on computer (name)', 'do 0')
+  from information_schema.statistics
+  where table_schema = database() and table_name = 'computer' and index_name = 'ft_computer_name');
+prepare ddl_statement from @ddl;
+execute ddl_statement;
+deallocate prepare ddl_statement;
+
+set @ddl = (select if(count(*) = 0, 'create fulltext index ft_company_name on company (name)', 'do 0')
+  from information_schema.statistics
+  where table_schema = database() and table_name = 'company' and index_name = 'ft_company_name');
+prepare ddl_statement from @ddl;
+execute ddl_statement;
+deallocate prepare ddl_statement;
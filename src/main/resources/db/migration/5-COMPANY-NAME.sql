@@ -0,0 +1,8 @@
+-- Company name prefix searches, paged by keyset on (name, id).
+-- The deployments that ran this script by hand before it became a migration already have the index.
+set @ddl = (select if(count(*) = 0, 'create index ix_company_name on company (name, id)', 'do 0')
+  from information_schema.statistics
+  where table_schema = database() and table_name = 'company' and index_name = 'ix_company_name');
+prepare ddl_statement from @ddl;
+execute ddl_statement;
+deallocate prepare ddl_statement;
@@ -0,0 +1,8 @@
+-- Progress of the incremental company deletions, so that an interrupted deletion resumes after its last chunk.
+create table if not exists company_deletion (
+  company_id                bigint not null,
+  last_computer_id          bigint not null default 0,
+  deleted_computers         int not null default 0,
+  started                   timestamp not null default current_timestamp,
+  constraint pk_company_deletion primary key (company_id))
+;
@@ -0,0 +1,15 @@
+-- Background jobs, persisted so that their status survives restarts.
+create table if not exists job (
+  id                        bigint not null auto_increment,
+  type                      varchar(32) not null,
+  status                    varchar(16) not null,
+  parameters                text,
+  progress                  int not null default 0,
+  total                     int default NULL,
+  cancel_requested          boolean not null default false,
+  result                    text,
+  created                   timestamp not null default current_timestamp,
+  updated                   timestamp not null default current_timestamp on update current_timestamp,
+  constraint pk_job primary key (id),
+  index ix_job_status (status))
+;
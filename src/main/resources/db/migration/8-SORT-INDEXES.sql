@@ -0,0 +1,11 @@
+-- One index per ComputerDao.SortColumn ordering read from the computer table, computer.id being the tie-breaker,
+-- so that the sorted pages and the keyset seeks read an index range instead of sorting the table.
+-- SortColumn.COMPANY sorts by the joined company name, which no computer index holds: it is served by
+-- ix_computer_company_sort on the copied company_name, see 9-COMPUTER-COMPANY-NAME.
+-- ix_computer_company_1 stays: InnoDB appends the primary key to it, so its (company_id, id) order serves the foreign key,
+-- the keyset chunks of the incremental company deletion and the company name updates of the computers.
+alter table computer
+  add index ix_computer_name (name, id),
+  add index ix_computer_introduced (introduced, name, id),
+  add index ix_computer_discontinued (discontinued, name, id),
+  algorithm = inplace, lock = none;
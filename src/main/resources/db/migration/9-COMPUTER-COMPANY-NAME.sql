@@ -0,0 +1,6 @@
+-- Copy of company.name on each computer, so that company sorts and filters read the computer table alone.
+-- ix_computer_company_sort is the ComputerDao.SortColumn.COMPANY ordering, computer.id being the tie-breaker.
+alter table computer
+  add column company_name varchar(255) default NULL,
+  add index ix_computer_company_sort (company_name, name, id),
+  algorithm = inplace, lock = none;
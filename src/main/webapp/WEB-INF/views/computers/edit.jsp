@@ -93,13 +93,26 @@
                                 <form:label path="companyId" cssClass="form-control-label"><spring:message
                                         code="computers.field.company"/></form:label>
 
+                                <spring:message code="computers.field.companySearch" var="fieldCompanySearch"/>
+                                <input
+                                        id="companySearch"
+                                        type="search"
+                                        autocomplete="off"
+                                        class="form-control"
+                                        placeholder="${fieldCompanySearch}"
+                                        data-url="${contextPath}/companies/search"
+                                />
                                 <form:select
                                         id="companyId"
                                         path="companyId"
                                         cssClass="form-control ${status.error ? 'form-control-danger' : 'form-control-success'}">
                                     <form:option value="" label="--"/>
-                                    <form:options items="${companies}" itemValue="id" itemLabel="name"/>
+                                    <c:if test="${not empty selectedCompany}">
+                                        <form:option value="${selectedCompany.id}" label="${selectedCompany.name}"/>
+                                    </c:if>
                                 </form:select>
+                                <button type="button" id="moreCompanies" class="btn btn-link hidden"><spring:message
+                                        code="actions.more"/></button>
 
                                 <div class="form-control-error">
                                     <form:errors path="companyId"/>
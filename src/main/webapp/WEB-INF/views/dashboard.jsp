@@ -21,8 +21,14 @@
 <section id="main">
     <div class="container">
         <h1 id="homeTitle">
+            <c:if test="${computers.approximate}"><spring:message code="paging.about"/></c:if>
             <c:out value="${computers.totalElements}"/> <spring:message code="computers.found"/>
         </h1>
+        <c:if test="${not empty deleted}">
+            <div id="deleted" class="alert alert-success">
+                <spring:message code="computers.deleted" arguments="${deleted}"/>
+            </div>
+        </c:if>
         <div id="actions" class="form-horizontal">
             <div class="pull-left">
                 <form id="searchForm" action="#" method="GET" class="form-inline">
@@ -39,6 +45,9 @@
                         code="computers.actions.add"/></a>
                 <a class="btn btn-default" id="editComputer" href="#" onclick="$.fn.toggleEditMode();"><spring:message
                         code="actions.edit"/></a>
+                <a class="btn btn-default" id="exportComputers"
+                   href="${contextPath}/computers/export?query=${request.query}&column=${request.column}&order=${request.order}"><spring:message
+                        code="computers.actions.export"/></a>
             </div>
         </div>
     </div>
@@ -126,8 +135,11 @@
         <tags:pager
                 page="${computers.currentPage}"
                 totalPages="${computers.totalPages}"
+                approximate="${computers.approximate}"
                 pageSize="${request.pageSize}"
-                url="?query=${request.query}&column=${request.column}"/>
+                previousCursor="${computers.previousCursor}"
+                nextCursor="${computers.nextCursor}"
+                url="?query=${request.query}&column=${request.column}&order=${request.order}"/>
     </div>
 </footer>
 
@@ -49,6 +49,63 @@ $(function () {
         return true;
     }
 
+    // Lazy-load the companies matching the search, a page at a time
+    const companyPageSize = 20;
+    const companySearchDelay = 250;
+    const $companySearch = $('#companySearch');
+    const $companyId = $('#companyId');
+    const $moreCompanies = $('#moreCompanies');
+    var companySearchTimeout;
+    var companyRequest;
+    var lastCompany;
+
+    function appendCompanies(companies) {
+        var selected = $companyId.val();
+        companies.forEach(function (company) {
+            if (String(company.id) !== selected) {
+                $companyId.append($('<option>').val(company.id).text(company.name));
+            }
+        });
+        lastCompany = companies.length ? companies[companies.length - 1] : lastCompany;
+        $moreCompanies.toggleClass('hidden', companies.length < companyPageSize);
+    }
+
+    function searchCompanies(append) {
+        var parameters = {prefix: $companySearch.val(), limit: companyPageSize};
+        if (append && lastCompany) {
+            parameters.afterName = lastCompany.name;
+            parameters.afterId = lastCompany.id;
+        }
+        if (companyRequest) {
+            companyRequest.abort();
+        }
+        companyRequest = $.getJSON($companySearch.data('url'), parameters, function (companies) {
+            if (!append) {
+                // Keep the empty option and the selected company
+                $companyId.find('option').filter(function () {
+                    return this.value && !this.selected;
+                }).remove();
+                lastCompany = undefined;
+            }
+            appendCompanies(companies);
+        });
+    }
+
+    $companySearch.on('input', function () {
+        clearTimeout(companySearchTimeout);
+        companySearchTimeout = setTimeout(function () {
+            searchCompanies(false);
+        }, companySearchDelay);
+    });
+    $companyId.one('focus', function () {
+        if (!lastCompany) {
+            searchCompanies(false);
+        }
+    });
+    $moreCompanies.on('click', function () {
+        searchCompanies(true);
+    });
+
     $("#computer-form").on('submit', function () {
         var valid = true;
 
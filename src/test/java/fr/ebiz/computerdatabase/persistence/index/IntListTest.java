@@ -0,0 +1,78 @@
+package fr.ebiz.computerdatabase.persistence.index;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+public class IntListTest {
+
+    @Test
+    public void testAddKeepsSortedDistinctValues() {
+        IntList list = new IntList();
+        for (int value : new int[]{5, 1, 9, 5, 3, 12, 1}) {
+            list.add(value);
+        }
+        Assert.assertArrayEquals(new int[]{1, 3, 5, 9, 12}, list.toArray());
+        Assert.assertEquals(5, list.size());
+        Assert.assertTrue(list.contains(9));
+        Assert.assertFalse(list.contains(4));
+    }
+
+    @Test
+    public void testRemovedValuesAreSkippedAndCanBeAddedBack() {
+        IntList list = new IntList();
+        for (int value = 1; value <= 10; value++) {
+            list.add(value);
+        }
+        Assert.assertTrue(list.remove(4));
+        Assert.assertFalse(list.remove(4));
+        Assert.assertFalse(list.contains(4));
+        Assert.assertEquals(9, list.size());
+
+        list.add(4);
+        Assert.assertTrue(list.contains(4));
+        list.remove(2);
+        // Inserting in the middle applies the pending removals first
+        list.add(0);
+        list.add(11);
+        List<Integer> values = new ArrayList<>();
+        list.forEach(values::add);
+        Assert.assertEquals(Arrays.asList(0, 1, 3, 4, 5, 6, 7, 8, 9, 10, 11), values);
+    }
+
+    @Test
+    public void testRemovingEveryValueEmptiesTheList() {
+        IntList list = new IntList();
+        for (int value = 0; value < 1000; value++) {
+            list.add(value);
+        }
+        for (int value = 999; value >= 0; value--) {
+            Assert.assertTrue(list.remove(value));
+        }
+        Assert.assertTrue(list.isEmpty());
+        Assert.assertEquals(0, list.toArray().length);
+    }
+
+    @Test
+    public void testMatchesSortedSetUnderRandomOperations() {
+        Random random = new Random(42);
+        IntList list = new IntList();
+        TreeSet<Integer> expected = new TreeSet<>();
+        for (int i = 0; i < 20000; i++) {
+            int value = random.nextInt(500);
+            if (random.nextInt(3) == 0) {
+                Assert.assertEquals(expected.remove(value), list.remove(value));
+            } else {
+                expected.add(value);
+                list.add(value);
+            }
+            Assert.assertEquals(expected.size(), list.size());
+        }
+        Assert.assertArrayEquals(expected.stream().mapToInt(Integer::intValue).toArray(), list.toArray());
+    }
+}
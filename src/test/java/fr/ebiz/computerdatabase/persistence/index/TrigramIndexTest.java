@@ -0,0 +1,56 @@
+package fr.ebiz.computerdatabase.persistence.index;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TrigramIndexTest {
+
+    @Test
+    public void testSearchFindsSubstringsIgnoringCaseAndAccents() {
+        TrigramIndex index = new TrigramIndex();
+        index.put(1, "MacBook Pro");
+        index.put(2, "Élan Vital");
+        index.put(3, "Macintosh");
+        index.put(4, null);
+
+        Assert.assertArrayEquals(new int[]{1}, index.search("book"));
+        Assert.assertArrayEquals(new int[]{1, 3}, index.search("MAC"));
+        Assert.assertArrayEquals(new int[]{2}, index.search("elan"));
+        Assert.assertArrayEquals(new int[]{2}, index.search("VITÂL"));
+        Assert.assertEquals(3, index.size());
+    }
+
+    @Test
+    public void testCandidatesWithAllTrigramsButNotTheSubstringAreDropped() {
+        TrigramIndex index = new TrigramIndex();
+        // Holds the trigrams of "abcab" without containing it
+        index.put(1, "abc cab bca");
+        index.put(2, "xabcabx");
+
+        Assert.assertArrayEquals(new int[]{2}, index.search("abcab"));
+    }
+
+    @Test
+    public void testShortQueriesScanTheTexts() {
+        TrigramIndex index = new TrigramIndex();
+        index.put(1, "HP");
+        index.put(2, "Amiga");
+
+        Assert.assertArrayEquals(new int[]{1}, index.search("p"));
+        Assert.assertArrayEquals(new int[]{2}, index.search("Am"));
+    }
+
+    @Test
+    public void testPutReplacesAndRemoveForgets() {
+        TrigramIndex index = new TrigramIndex();
+        index.put(1, "Amiga 500");
+        index.put(1, "Atari ST");
+        Assert.assertEquals(0, index.search("amiga").length);
+        Assert.assertArrayEquals(new int[]{1}, index.search("atari"));
+
+        index.remove(1);
+        index.remove(7);
+        Assert.assertEquals(0, index.search("atari").length);
+        Assert.assertEquals(0, index.size());
+    }
+}
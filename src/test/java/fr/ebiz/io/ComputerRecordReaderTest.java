@@ -0,0 +1,114 @@
+package fr.ebiz.io;
+
+import fr.ebiz.computerdatabase.io.ComputerRecord;
+import fr.ebiz.computerdatabase.io.ComputerRecordReader;
+import fr.ebiz.computerdatabase.io.DataFormat;
+import fr.ebiz.computerdatabase.io.RecordFormatException;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+public class ComputerRecordReaderTest {
+
+    @Test
+    public void testCsvReadsQuotedFieldsInHeaderOrder() throws IOException {
+        ComputerRecordReader reader = reader(DataFormat.CSV,
+                "company,name,ignored,introduced\r\n"
+                        + "\"Apple, Inc.\",\"Mac \"\"Classic\"\"\",x,1990-10-15\r\n"
+                        + "\r\n"
+                        + ",\"Multi\nline\",,\n");
+
+        ComputerRecord first = reader.next();
+        Assert.assertEquals("Mac \"Classic\"", first.getName());
+        Assert.assertEquals("Apple, Inc.", first.getCompany());
+        Assert.assertEquals("1990-10-15", first.getIntroduced());
+        Assert.assertNull(first.getDiscontinued());
+        Assert.assertEquals(2, first.getLine());
+
+        ComputerRecord second = reader.next();
+        Assert.assertEquals("Multi\nline", second.getName());
+        Assert.assertNull(second.getCompany());
+        Assert.assertEquals(4, second.getLine());
+        Assert.assertNull(reader.next());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCsvWithoutNameColumn() throws IOException {
+        reader(DataFormat.CSV, "introduced,company\n");
+    }
+
+    @Test
+    public void testCsvUnterminatedQuoteDoesNotSwallowTheInput() throws IOException {
+        char[] filler = new char[20 * 1024];
+        Arrays.fill(filler, 'a');
+        ComputerRecordReader reader = reader(DataFormat.CSV,
+                "name\n\"" + new String(filler) + "\nAmiga\n");
+
+        try {
+            reader.next();
+            Assert.fail("The unterminated field must be rejected");
+        } catch (RecordFormatException e) {
+            Assert.assertEquals(2, e.getLine());
+        }
+        ComputerRecord next = reader.next();
+        Assert.assertEquals("Amiga", next.getName());
+        Assert.assertEquals(3, next.getLine());
+        Assert.assertNull(reader.next());
+    }
+
+    @Test(expected = RecordFormatException.class)
+    public void testCsvUnterminatedQuoteAtEndOfInput() throws IOException {
+        reader(DataFormat.CSV, "name\n\"Amiga\n").next();
+    }
+
+    @Test
+    public void testNdjsonRejectsMalformedAndTooLongLines() throws IOException {
+        char[] filler = new char[20 * 1024];
+        Arrays.fill(filler, 'a');
+        ComputerRecordReader reader = reader(DataFormat.NDJSON,
+                "{\"name\":\"" + new String(filler) + "\"}\n"
+                        + "{\"name\":\n"
+                        + "\n"
+                        + "{\"name\":\"Amiga\",\"company\":\"Commodore\",\"other\":1}\n");
+
+        assertRejectedAt(reader, 1);
+        assertRejectedAt(reader, 2);
+        ComputerRecord record = reader.next();
+        Assert.assertEquals("Amiga", record.getName());
+        Assert.assertEquals("Commodore", record.getCompany());
+        Assert.assertEquals(4, record.getLine());
+        Assert.assertNull(reader.next());
+    }
+
+    /**
+     * Check the next record is rejected.
+     *
+     * @param reader The reader
+     * @param line   The expected line of the error
+     * @throws IOException if the input can't be read
+     */
+    private static void assertRejectedAt(ComputerRecordReader reader, long line) throws IOException {
+        try {
+            reader.next();
+            Assert.fail("The record at line " + line + " must be rejected");
+        } catch (RecordFormatException e) {
+            Assert.assertEquals(line, e.getLine());
+        }
+    }
+
+    /**
+     * Create a reader of a string.
+     *
+     * @param format The format of the string
+     * @param input  The string to read
+     * @return The reader
+     * @throws IOException if the input can't be read
+     */
+    private static ComputerRecordReader reader(DataFormat format, String input) throws IOException {
+        return format.reader(new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)));
+    }
+}
@@ -0,0 +1,65 @@
+package fr.ebiz.io;
+
+import fr.ebiz.computerdatabase.io.ComputerRecord;
+import fr.ebiz.computerdatabase.io.ComputerRecordWriter;
+import fr.ebiz.computerdatabase.io.DataFormat;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+public class ComputerRecordWriterTest {
+
+    @Test
+    public void testCsvWritesHeaderOnceAndQuotesSpecialCharacters() throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ComputerRecordWriter writer = DataFormat.CSV.writer(output);
+        writer.write(record("Mac \"Classic\"", "1990-10-15", null, "Apple, Inc."));
+        writer.write(record("Multi\nline", null, "1999-01-01", null));
+        writer.flush();
+
+        Assert.assertEquals("name,introduced,discontinued,company\r\n"
+                + "\"Mac \"\"Classic\"\"\",1990-10-15,,\"Apple, Inc.\"\r\n"
+                + "\"Multi\nline\",,1999-01-01,\r\n", output.toString(StandardCharsets.UTF_8.name()));
+    }
+
+    @Test
+    public void testCsvWithoutRecordIsEmpty() throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        DataFormat.CSV.writer(output).flush();
+        Assert.assertEquals(0, output.size());
+    }
+
+    @Test
+    public void testNdjsonWritesOneObjectPerLineWithNulls() throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ComputerRecordWriter writer = DataFormat.NDJSON.writer(output);
+        writer.write(record("Amiga \"500\"", "1987-04-01", null, "Commodore"));
+        writer.write(record("C64", null, null, null));
+        writer.flush();
+
+        Assert.assertEquals("{\"name\":\"Amiga \\\"500\\\"\",\"introduced\":\"1987-04-01\",\"discontinued\":null,\"company\":\"Commodore\"}\n"
+                + "{\"name\":\"C64\",\"introduced\":null,\"discontinued\":null,\"company\":null}\n",
+                output.toString(StandardCharsets.UTF_8.name()));
+    }
+
+    /**
+     * Create a record.
+     *
+     * @param name         The name
+     * @param introduced   The introduced date
+     * @param discontinued The discontinued date
+     * @param company      The company name
+     * @return The record
+     */
+    private static ComputerRecord record(String name, String introduced, String discontinued, String company) {
+        ComputerRecord record = new ComputerRecord();
+        record.setName(name);
+        record.setIntroduced(introduced);
+        record.setDiscontinued(discontinued);
+        record.setCompany(company);
+        return record;
+    }
+}
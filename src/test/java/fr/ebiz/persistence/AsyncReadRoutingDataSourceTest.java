@@ -0,0 +1,52 @@
+package fr.ebiz.persistence;
+
+import fr.ebiz.computerdatabase.persistence.routing.AsyncReadRoutingDataSource;
+import fr.ebiz.computerdatabase.persistence.routing.RoutingContext;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import static org.mockito.Mockito.when;
+
+public class AsyncReadRoutingDataSourceTest {
+
+    @Mock
+    private DataSource requestDataSource;
+    @Mock
+    private DataSource asyncReadDataSource;
+    @Mock
+    private Connection requestConnection;
+    @Mock
+    private Connection asyncReadConnection;
+
+    private AsyncReadRoutingDataSource dataSource;
+
+    @Before
+    public void setup() throws Exception {
+        MockitoAnnotations.initMocks(this);
+        when(requestDataSource.getConnection()).thenReturn(requestConnection);
+        when(asyncReadDataSource.getConnection()).thenReturn(asyncReadConnection);
+        dataSource = new AsyncReadRoutingDataSource(requestDataSource, asyncReadDataSource);
+    }
+
+    @After
+    public void tearDown() {
+        RoutingContext.clear();
+    }
+
+    @Test
+    public void testAsyncReadsUseTheirOwnPool() throws SQLException {
+        Assert.assertSame(requestConnection, dataSource.getConnection());
+        RoutingContext.setAsyncRead(true);
+        Assert.assertSame(asyncReadConnection, dataSource.getConnection());
+        RoutingContext.setAsyncRead(false);
+        Assert.assertSame(requestConnection, dataSource.getConnection());
+    }
+}
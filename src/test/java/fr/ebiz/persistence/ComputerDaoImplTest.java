@@ -0,0 +1,118 @@
+package fr.ebiz.persistence;
+
+import fr.ebiz.computerdatabase.model.Computer;
+import fr.ebiz.computerdatabase.persistence.PagedResult;
+import fr.ebiz.computerdatabase.persistence.SortOrder;
+import fr.ebiz.computerdatabase.persistence.dao.CompanyStatsDao;
+import fr.ebiz.computerdatabase.persistence.dao.ComputerDao.SearchMode;
+import fr.ebiz.computerdatabase.persistence.dao.ComputerDao.SortColumn;
+import fr.ebiz.computerdatabase.persistence.dao.impl.ComputerDaoImpl;
+import fr.ebiz.computerdatabase.persistence.dao.impl.ComputerQueryRegistry;
+import fr.ebiz.computerdatabase.persistence.index.ComputerNameIndex;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ComputerDaoImplTest {
+
+    private static final int TOTAL = 42;
+    private static final int NAME_INDEX_MAX_IDS = 5000;
+
+    @Mock
+    private DataSource dataSource;
+    @Mock
+    private Connection connection;
+    @Mock
+    private CompanyStatsDao companyStatsDao;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final List<String> statements = new ArrayList<>();
+    private ComputerDaoImpl computerDao;
+
+    @Before
+    public void setup() throws Exception {
+        MockitoAnnotations.initMocks(this);
+        when(dataSource.getConnection()).thenReturn(connection);
+        // The counts return a single row, the reads and their window count none
+        when(connection.prepareStatement(anyString())).thenAnswer(invocation -> {
+            String sql = invocation.getArgument(0);
+            statements.add(sql);
+            ResultSet resultSet = mock(ResultSet.class);
+            if (sql.startsWith("SELECT COUNT(*)")) {
+                ResultSetMetaData metaData = mock(ResultSetMetaData.class);
+                when(metaData.getColumnCount()).thenReturn(1);
+                when(resultSet.getMetaData()).thenReturn(metaData);
+                when(resultSet.next()).thenReturn(true, false);
+                when(resultSet.getInt(anyInt())).thenReturn(TOTAL);
+            }
+            PreparedStatement statement = mock(PreparedStatement.class);
+            when(statement.executeQuery()).thenReturn(resultSet);
+            return statement;
+        });
+        computerDao = new ComputerDaoImpl(dataSource, new ComputerQueryRegistry(false), SearchMode.LIKE,
+                new ComputerNameIndex(dataSource, false, 0), NAME_INDEX_MAX_IDS, 1000, 1000, 100000, 20000, companyStatsDao, transactionManager);
+    }
+
+    @Test
+    public void testUnfilteredPageIsCountedWithoutTheJoin() {
+        PagedResult<Computer> page = computerDao.getPage("", 10, 0, SortColumn.NAME, SortOrder.ASC);
+
+        Assert.assertEquals(TOTAL, page.getTotalElements());
+        Assert.assertEquals(2, statements.size());
+        Assert.assertFalse(statements.get(0).contains("OVER ()"));
+        Assert.assertEquals("SELECT COUNT(*) FROM computer computer", statements.get(1));
+    }
+
+    @Test
+    public void testFilteredPageIsCountedByTheWindow() {
+        computerDao.getPage("apple", 10, 0, SortColumn.NAME, SortOrder.ASC);
+
+        Assert.assertEquals(1, statements.size());
+        Assert.assertTrue(statements.get(0).contains("COUNT(*) OVER ()"));
+    }
+
+    @Test
+    public void testCountFollowsTheFilterAboveTheNameIndexMaxIds() {
+        // The index matches substrings, FULLTEXT word prefixes: its total is not the number of rows the page reads
+        ComputerNameIndex nameIndex = mock(ComputerNameIndex.class);
+        when(nameIndex.canSearch("apple")).thenReturn(true);
+        when(nameIndex.search("apple")).thenReturn(IntStream.rangeClosed(1, NAME_INDEX_MAX_IDS + 1).toArray());
+        computerDao = new ComputerDaoImpl(dataSource, new ComputerQueryRegistry(false), SearchMode.FULLTEXT,
+                nameIndex, NAME_INDEX_MAX_IDS, 1000, 1000, 100000, 20000, companyStatsDao, transactionManager);
+
+        Assert.assertEquals(TOTAL, computerDao.count("apple"));
+        Assert.assertEquals(1, statements.size());
+        Assert.assertTrue(statements.get(0).startsWith("SELECT COUNT(*)"));
+        Assert.assertTrue(statements.get(0).contains("MATCH(name) AGAINST"));
+    }
+
+    @Test
+    public void testCountUsesTheNameIndexWhenItDrivesTheFilter() {
+        ComputerNameIndex nameIndex = mock(ComputerNameIndex.class);
+        when(nameIndex.canSearch("apple")).thenReturn(true);
+        when(nameIndex.search("apple")).thenReturn(new int[]{1, 2, 3});
+        computerDao = new ComputerDaoImpl(dataSource, new ComputerQueryRegistry(false), SearchMode.FULLTEXT,
+                nameIndex, NAME_INDEX_MAX_IDS, 1000, 1000, 100000, 20000, companyStatsDao, transactionManager);
+
+        Assert.assertEquals(3, computerDao.count("apple"));
+        Assert.assertTrue(statements.isEmpty());
+    }
+}
@@ -0,0 +1,29 @@
+package fr.ebiz.persistence;
+
+import fr.ebiz.computerdatabase.persistence.dao.DaoUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+public class DaoUtilsTest {
+
+    @Test
+    public void testToLocalDateMatchesOffsetDateTimeConversion() {
+        long[] times = {0, -1, 1, TimeUnit.DAYS.toMillis(1) - 1, -TimeUnit.DAYS.toMillis(1), 410227200000L, -2208988800000L, 1497398400123L};
+        for (long time : times) {
+            Timestamp timestamp = new Timestamp(time);
+            Assert.assertEquals(DaoUtils.toDate(timestamp).toLocalDate(), DaoUtils.toLocalDate(timestamp));
+        }
+        Assert.assertNull(DaoUtils.toLocalDate(null));
+    }
+
+    @Test
+    public void testToTimestampIsMidnightUtc() {
+        LocalDate date = LocalDate.of(1983, 1, 24);
+        Assert.assertEquals(date, DaoUtils.toLocalDate(DaoUtils.toTimestamp(date)));
+        Assert.assertEquals(DaoUtils.toTimestamp(DaoUtils.toDate(DaoUtils.toTimestamp(date))), DaoUtils.toTimestamp(date));
+    }
+}
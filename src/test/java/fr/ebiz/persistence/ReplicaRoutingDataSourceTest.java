@@ -0,0 +1,113 @@
+package fr.ebiz.persistence;
+
+import fr.ebiz.computerdatabase.persistence.routing.ReplicaRoutingDataSource;
+import fr.ebiz.computerdatabase.persistence.routing.RoutingContext;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Arrays;
+
+import static org.mockito.Mockito.when;
+
+public class ReplicaRoutingDataSourceTest {
+
+    private static final long READ_YOUR_WRITES_WINDOW = 60000;
+    private static final long HEALTH_CHECK_INTERVAL = 60000;
+
+    @Mock
+    private DataSource primary;
+    @Mock
+    private DataSource firstReplica;
+    @Mock
+    private DataSource secondReplica;
+    @Mock
+    private Connection primaryConnection;
+    @Mock
+    private Connection firstReplicaConnection;
+    @Mock
+    private Connection secondReplicaConnection;
+
+    private ReplicaRoutingDataSource dataSource;
+
+    @Before
+    public void setup() throws Exception {
+        MockitoAnnotations.initMocks(this);
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        when(firstReplica.getConnection()).thenReturn(firstReplicaConnection);
+        when(secondReplica.getConnection()).thenReturn(secondReplicaConnection);
+        dataSource = new ReplicaRoutingDataSource(primary, Arrays.asList(firstReplica, secondReplica), READ_YOUR_WRITES_WINDOW, HEALTH_CHECK_INTERVAL);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        TransactionSynchronizationManager.setActualTransactionActive(false);
+        RoutingContext.clear();
+        dataSource.close();
+    }
+
+    @Test
+    public void testWriteTransactionGoesToPrimary() throws SQLException {
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        Assert.assertSame(primaryConnection, dataSource.getConnection());
+    }
+
+    @Test
+    public void testReadOnlyTransactionsAreBalancedOverReplicas() throws SQLException {
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        Assert.assertSame(firstReplicaConnection, dataSource.getConnection());
+        Assert.assertSame(secondReplicaConnection, dataSource.getConnection());
+        Assert.assertSame(firstReplicaConnection, dataSource.getConnection());
+    }
+
+    @Test
+    public void testFailingReplicaIsSkipped() throws SQLException {
+        when(firstReplica.getConnection()).thenThrow(new SQLException("down"));
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        Assert.assertSame(secondReplicaConnection, dataSource.getConnection());
+        Assert.assertSame(secondReplicaConnection, dataSource.getConnection());
+    }
+
+    @Test
+    public void testReadsFailOverToPrimaryWithoutHealthyReplica() throws SQLException {
+        when(firstReplica.getConnection()).thenThrow(new SQLException("down"));
+        when(secondReplica.getConnection()).thenThrow(new SQLException("down"));
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        Assert.assertSame(primaryConnection, dataSource.getConnection());
+    }
+
+    @Test
+    public void testReadAfterWriteGoesToPrimary() throws SQLException {
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        dataSource.getConnection();
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        Assert.assertSame(primaryConnection, dataSource.getConnection());
+
+        RoutingContext.setLastWrite(System.currentTimeMillis() - READ_YOUR_WRITES_WINDOW);
+        Assert.assertSame(firstReplicaConnection, dataSource.getConnection());
+    }
+
+    @Test
+    public void testCredentialsArePassedToTheTarget() throws SQLException {
+        when(primary.getConnection("user", "secret")).thenReturn(primaryConnection);
+        when(secondReplica.getConnection("user", "secret")).thenReturn(secondReplicaConnection);
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        Assert.assertSame(primaryConnection, dataSource.getConnection("user", "secret"));
+
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        RoutingContext.clear();
+        dataSource.getConnection();
+        Assert.assertSame(secondReplicaConnection, dataSource.getConnection("user", "secret"));
+    }
+}
@@ -1,18 +1,27 @@
 package fr.ebiz.service;
 
 import fr.ebiz.computerdatabase.config.ServiceConfiguration;
+import fr.ebiz.computerdatabase.dto.CompanySnapshot;
 import fr.ebiz.computerdatabase.dto.paging.Page;
 import fr.ebiz.computerdatabase.dto.paging.Pageable;
 import fr.ebiz.computerdatabase.model.Company;
+import fr.ebiz.computerdatabase.model.CompanyDeletion;
+import fr.ebiz.computerdatabase.model.CompanyStats;
+import fr.ebiz.computerdatabase.persistence.cache.CompanyCache;
 import fr.ebiz.computerdatabase.persistence.dao.CompanyDao;
+import fr.ebiz.computerdatabase.persistence.dao.CompanyDeletionDao;
+import fr.ebiz.computerdatabase.persistence.dao.CompanyStatsDao;
 import fr.ebiz.computerdatabase.service.CompanyService;
+import fr.ebiz.computerdatabase.service.ComputerService;
 import fr.ebiz.util.SpringUtils;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.test.context.ContextConfiguration;
@@ -20,11 +29,17 @@ import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 import org.springframework.test.context.support.AnnotationConfigContextLoader;
 import org.springframework.test.util.ReflectionTestUtils;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @RunWith(SpringJUnit4ClassRunner.class)
@@ -34,16 +49,29 @@ public class CompanyServiceTest {
     private static final int ELEMENTS_PER_PAGE = 10;
     @Mock
     private CompanyDao companyDao;
+    @Mock
+    private CompanyDeletionDao companyDeletionDao;
+    @Mock
+    private CompanyStatsDao companyStatsDao;
+    @Mock
+    private ComputerService computerService;
 
     @Autowired
     @InjectMocks
     private CompanyService service;
+    @Autowired
+    private CompanyCache companyCache;
 
     @Before
     public void setup() throws Exception {
         MockitoAnnotations.initMocks(this);
         CompanyService companyService = (CompanyService) SpringUtils.unwrapProxy(service);
         ReflectionTestUtils.setField(companyService, "companyDao", companyDao);
+        ReflectionTestUtils.setField(companyService, "companyDeletionDao", companyDeletionDao);
+        ReflectionTestUtils.setField(companyService, "companyStatsDao", companyStatsDao);
+        ReflectionTestUtils.setField(companyService, "computerService", computerService);
+        companyCache.clear();
+        ((AtomicReference<?>) ReflectionTestUtils.getField(companyService, "snapshot")).set(null);
     }
 
     @Test
@@ -61,6 +89,79 @@ public class CompanyServiceTest {
         Assert.assertEquals(service.get(1), Optional.empty());
     }
 
+    @Test
+    public void testGetIsCached() {
+        Company company = Company.builder().id(1).name("Test").build();
+        when(companyDao.get(company.getId())).thenReturn(Optional.of(company));
+
+        Assert.assertEquals(company, service.get(company.getId()).get());
+        Assert.assertTrue(service.exists(company.getId()));
+        verify(companyDao, times(1)).get(company.getId());
+    }
+
+    @Test
+    public void testInvalidatedCompanyIsReloaded() {
+        Company company = Company.builder().id(1).name("Test").build();
+        when(companyDao.get(company.getId())).thenReturn(Optional.of(company));
+
+        service.get(company.getId());
+        companyCache.invalidate(company.getId());
+        when(companyDao.get(company.getId())).thenReturn(Optional.empty());
+        Assert.assertFalse(service.exists(company.getId()));
+    }
+
+    @Test
+    public void testRenamedCompanyIsReloaded() {
+        Company company = Company.builder().id(1).name("Test").build();
+        when(companyDao.get(company.getId())).thenReturn(Optional.of(company));
+        service.get(company.getId());
+
+        Company renamed = Company.builder().id(1).name("Renamed").build();
+        when(companyDao.rename(1, "Renamed")).thenReturn(true);
+        when(companyDao.get(company.getId())).thenReturn(Optional.of(renamed));
+        service.rename(renamed);
+
+        verify(companyDao).rename(1, "Renamed");
+        Assert.assertEquals("Renamed", service.get(company.getId()).get().getName());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRenameMissingCompanyFails() {
+        when(companyDao.rename(1, "Renamed")).thenReturn(false);
+
+        service.rename(Company.builder().id(1).name("Renamed").build());
+    }
+
+    @Test
+    public void testSnapshotIsShared() {
+        List<Company> companies = IntStream.range(0, ELEMENTS_PER_PAGE)
+                .mapToObj(index -> Company.builder().id(index + 1).name("company" + index).build())
+                .collect(Collectors.toList());
+        when(companyDao.getAll(Integer.MAX_VALUE, 0)).thenReturn(companies);
+
+        CompanySnapshot snapshot = service.getSnapshot();
+        Assert.assertEquals(companies, snapshot.getCompanies());
+        Assert.assertSame(snapshot, service.getSnapshot());
+        verify(companyDao, times(1)).getAll(Integer.MAX_VALUE, 0);
+    }
+
+    @Test
+    public void testSnapshotFollowsTheDatabaseVersion() throws Exception {
+        ReflectionTestUtils.setField(SpringUtils.unwrapProxy(service), "versionCheckInterval", 0L);
+        List<Company> companies = Collections.singletonList(Company.builder().id(1).name("company").build());
+        List<Company> renamed = Collections.singletonList(Company.builder().id(1).name("Renamed").build());
+        when(companyDao.getAll(Integer.MAX_VALUE, 0)).thenReturn(companies, renamed);
+        when(companyDao.getVersion()).thenReturn(1L);
+
+        CompanySnapshot snapshot = service.getSnapshot();
+        Assert.assertSame(snapshot, service.getSnapshot());
+
+        // Renamed by another process
+        when(companyDao.getVersion()).thenReturn(2L);
+        Assert.assertEquals(renamed, service.getSnapshot().getCompanies());
+        verify(companyDao, times(2)).getAll(Integer.MAX_VALUE, 0);
+    }
+
     @Test(expected = IllegalArgumentException.class)
     public void testGetThrowsIAEWhenIdEqualsZero() {
         service.get(0);
@@ -123,4 +224,73 @@ public class CompanyServiceTest {
         }
     }
 
+    @Test(expected = IllegalArgumentException.class)
+    public void testSearchWithTooBigLimit() {
+        service.search("A", null, 101);
+    }
+
+    @Test
+    public void testSearchTrimsPrefixAndPassesKeyset() {
+        Company after = Company.builder().id(3).name("Amiga").build();
+        List<Company> companies = Collections.singletonList(Company.builder().id(4).name("Amiga Corporation").build());
+        when(companyDao.search("Ami", after, ELEMENTS_PER_PAGE)).thenReturn(companies);
+
+        Assert.assertEquals(companies, service.search(" Ami ", after, ELEMENTS_PER_PAGE));
+    }
+
+    @Test
+    public void testDeleteIncrementallyResumesAndDeletesCompanyLast() throws Exception {
+        ReflectionTestUtils.setField(SpringUtils.unwrapProxy(service), "deletionChunkSize", 2);
+        when(companyDeletionDao.start(1)).thenReturn(new CompanyDeletion(1, 4, 2, false));
+        when(computerService.deleteByCompanyId(1, 4, 2)).thenReturn(Arrays.asList(5, 7));
+        when(computerService.deleteByCompanyId(1, 7, 2)).thenReturn(Collections.emptyList());
+
+        List<CompanyDeletion> progress = new ArrayList<>();
+        CompanyDeletion deletion = service.deleteIncrementally(Company.builder().id(1).build(), progress::add);
+
+        Assert.assertTrue(deletion.isFinished());
+        Assert.assertEquals(4, deletion.getDeletedComputers());
+        Assert.assertEquals(2, progress.size());
+        Assert.assertEquals(7, progress.get(0).getLastComputerId());
+        InOrder order = Mockito.inOrder(computerService, companyDao, companyDeletionDao);
+        order.verify(computerService).deleteByCompanyId(1, 7, 2);
+        order.verify(companyDao).delete(1);
+        order.verify(companyDeletionDao).delete(1);
+    }
+
+    @Test
+    public void testDeleteLargeCompanyIsIncremental() throws Exception {
+        ReflectionTestUtils.setField(SpringUtils.unwrapProxy(service), "deletionChunkSize", 2);
+        when(companyStatsDao.get(1)).thenReturn(Optional.of(new CompanyStats(1, 3, 3, null, null)));
+        when(companyDeletionDao.start(1)).thenReturn(new CompanyDeletion(1, 0, 0, false));
+        when(computerService.deleteByCompanyId(1, 0, 2)).thenReturn(Arrays.asList(5, 7));
+        when(computerService.deleteByCompanyId(1, 7, 2)).thenReturn(Collections.singletonList(9));
+        when(computerService.deleteByCompanyId(1, 9, 2)).thenReturn(Collections.emptyList());
+
+        service.delete(Company.builder().id(1).build());
+
+        verify(computerService, times(0)).deleteByCompanyId(1);
+        verify(companyDao).delete(1);
+        verify(companyDeletionDao).delete(1);
+    }
+
+    @Test
+    public void testDeleteSmallCompanyIsInline() throws Exception {
+        ReflectionTestUtils.setField(SpringUtils.unwrapProxy(service), "deletionChunkSize", 2);
+        when(companyStatsDao.get(1)).thenReturn(Optional.of(new CompanyStats(1, 2, 1, null, null)));
+
+        service.delete(Company.builder().id(1).build());
+
+        verify(computerService).deleteByCompanyId(1);
+        verify(companyDao).delete(1);
+        verify(companyDeletionDao, times(0)).start(1);
+    }
+
+    @Test
+    public void testStatsOfCompanyWithoutComputerAreEmpty() {
+        when(companyDao.get(1)).thenReturn(Optional.of(Company.builder().id(1).name("Apple").build()));
+        when(companyStatsDao.get(1)).thenReturn(Optional.empty());
+
+        Assert.assertEquals(Optional.of(CompanyStats.empty(1)), service.getStats(1));
+    }
 }
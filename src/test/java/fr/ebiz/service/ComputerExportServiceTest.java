@@ -0,0 +1,134 @@
+package fr.ebiz.service;
+
+import fr.ebiz.computerdatabase.dto.GetAllComputersRequest;
+import fr.ebiz.computerdatabase.io.DataFormat;
+import fr.ebiz.computerdatabase.model.Company;
+import fr.ebiz.computerdatabase.model.Computer;
+import fr.ebiz.computerdatabase.persistence.SortOrder;
+import fr.ebiz.computerdatabase.persistence.dao.ComputerDao;
+import fr.ebiz.computerdatabase.persistence.dao.ComputerDao.SortColumn;
+import fr.ebiz.computerdatabase.service.impl.ComputerExportServiceImpl;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.function.Consumer;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+public class ComputerExportServiceTest {
+
+    private static final int ROWS = 100000;
+
+    @Mock
+    private ComputerDao computerDao;
+
+    private ComputerExportServiceImpl service;
+    private GetAllComputersRequest request;
+
+    @Before
+    public void setup() {
+        MockitoAnnotations.initMocks(this);
+        service = new ComputerExportServiceImpl(computerDao);
+        request = GetAllComputersRequest.builder().query("ami").column(SortColumn.INTRODUCED).order(SortOrder.DESC).build();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testExportWritesStreamedRows() throws IOException {
+        Company commodore = Company.builder().id(1).name("Commodore").build();
+        when(computerDao.stream(eq("ami"), eq(SortColumn.INTRODUCED), eq(SortOrder.DESC), any())).thenAnswer(invocation -> {
+            Consumer<Computer> consumer = invocation.getArgument(3);
+            consumer.accept(Computer.builder().id(1).name("Amiga 500").company(commodore)
+                    .introduced(OffsetDateTime.of(1987, 4, 1, 0, 0, 0, 0, ZoneOffset.UTC)).build());
+            consumer.accept(Computer.builder().id(2).name("Amiga, prototype").build());
+            return 2;
+        });
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        Assert.assertEquals(2, service.exportComputers(request, DataFormat.CSV, output, exported -> Assert.fail("Too few rows to notify")));
+
+        Assert.assertEquals("name,introduced,discontinued,company\r\n"
+                + "Amiga 500,1987-04-01,,Commodore\r\n"
+                + "\"Amiga, prototype\",,,\r\n", output.toString(StandardCharsets.UTF_8.name()));
+        // Only the streaming read is used, no page or list of the rows is loaded
+        verify(computerDao).stream(eq("ami"), eq(SortColumn.INTRODUCED), eq(SortOrder.DESC), any());
+        verifyNoMoreInteractions(computerDao);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testExportUnwrapsWriteFailure() {
+        IOException failure = new IOException("Connection reset");
+        when(computerDao.stream(any(), any(), any(), any())).thenAnswer(invocation -> {
+            Consumer<Computer> consumer = invocation.getArgument(3);
+            // Enough rows to fill the write buffer, the failure then aborts the iteration
+            for (int i = 0; i < ROWS; i++) {
+                consumer.accept(Computer.builder().id(i + 1).name("Computer " + i).build());
+            }
+            Assert.fail("The write failure must abort the iteration");
+            return ROWS;
+        });
+        OutputStream output = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw failure;
+            }
+        };
+
+        try {
+            service.exportComputers(request, DataFormat.NDJSON, output, exported -> {
+            });
+            Assert.fail("The write failure must be thrown");
+        } catch (IOException e) {
+            Assert.assertSame(failure, e);
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testExportNotifiesProgressAndStopsWhenTheListenerThrows() throws IOException {
+        when(computerDao.stream(any(), any(), any(), any())).thenAnswer(invocation -> {
+            Consumer<Computer> consumer = invocation.getArgument(3);
+            for (int i = 0; i < ROWS; i++) {
+                consumer.accept(Computer.builder().id(i + 1).name("Computer " + i).build());
+            }
+            return ROWS;
+        });
+        List<Integer> progress = new ArrayList<>();
+
+        try {
+            service.exportComputers(request, DataFormat.CSV, new ByteArrayOutputStream(), exported -> {
+                progress.add(exported);
+                if (progress.size() == 2) {
+                    throw new CancellationException();
+                }
+            });
+            Assert.fail("The listener must stop the export");
+        } catch (CancellationException e) {
+            Assert.assertEquals(2, progress.size());
+            Assert.assertEquals(2 * progress.get(0), (int) progress.get(1));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testExportWithoutOutput() throws IOException {
+        service.exportComputers(request, DataFormat.CSV, null, exported -> {
+        });
+    }
+}
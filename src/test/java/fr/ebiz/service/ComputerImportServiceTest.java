@@ -0,0 +1,90 @@
+package fr.ebiz.service;
+
+import fr.ebiz.computerdatabase.dto.ComputerDto;
+import fr.ebiz.computerdatabase.dto.ImportReport;
+import fr.ebiz.computerdatabase.io.DataFormat;
+import fr.ebiz.computerdatabase.model.Company;
+import fr.ebiz.computerdatabase.persistence.dao.CompanyDao;
+import fr.ebiz.computerdatabase.service.ComputerService;
+import fr.ebiz.computerdatabase.service.impl.ComputerImportServiceImpl;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ComputerImportServiceTest {
+
+    private static final int BATCH_SIZE = 2;
+
+    @Mock
+    private ComputerService computerService;
+    @Mock
+    private CompanyDao companyDao;
+
+    private ComputerImportServiceImpl service;
+
+    @Before
+    public void setup() {
+        MockitoAnnotations.initMocks(this);
+        when(companyDao.getByNames(anyCollection()))
+                .thenReturn(Collections.singletonList(Company.builder().id(1).name("Commodore").build()));
+        service = new ComputerImportServiceImpl(computerService, companyDao, BATCH_SIZE);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testImportInsertsByBatchesAndReportsRejectedRecords() throws IOException {
+        AtomicBoolean closed = new AtomicBoolean();
+        InputStream input = new ByteArrayInputStream(("name,introduced,company\n"
+                + "Amiga 500,1987-04-01,commodore\n"
+                + "Amiga 600,,Commodore\n"
+                + "Unknown,,Atari\n"
+                + "Bad date,1987-13-01,\n"
+                + "C64,,\n"
+                + "\"Unterminated\n").getBytes(StandardCharsets.UTF_8)) {
+            @Override
+            public void close() throws IOException {
+                closed.set(true);
+                super.close();
+            }
+        };
+
+        List<Integer> progress = new ArrayList<>();
+        ImportReport report = service.importComputers(input, DataFormat.CSV, null, batch -> progress.add(batch.getRead()));
+
+        ArgumentCaptor<List<ComputerDto>> batches = ArgumentCaptor.forClass(List.class);
+        verify(computerService, times(2)).insertAll(batches.capture());
+        Assert.assertEquals(2, batches.getAllValues().get(0).size());
+        Assert.assertEquals(Integer.valueOf(1), batches.getAllValues().get(0).get(1).getCompanyId());
+        Assert.assertEquals(6, report.getRead());
+        Assert.assertEquals(3, report.getInserted());
+        Assert.assertEquals(3, report.getRejected());
+        Assert.assertEquals(4, report.getErrors().get(0).getLine());
+        Assert.assertTrue(closed.get());
+        // Notified after each batch, with the records read so far
+        Assert.assertEquals(Arrays.asList(2, 4, 6), progress);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testImportWithoutFormat() throws IOException {
+        service.importComputers(new ByteArrayInputStream(new byte[0]), null, null, batch -> {
+        });
+    }
+}
@@ -8,10 +8,16 @@ import fr.ebiz.computerdatabase.dto.paging.Pageable;
 import fr.ebiz.computerdatabase.mapper.ComputerMapper;
 import fr.ebiz.computerdatabase.model.Company;
 import fr.ebiz.computerdatabase.model.Computer;
+import fr.ebiz.computerdatabase.persistence.Count;
+import fr.ebiz.computerdatabase.persistence.Cursor;
+import fr.ebiz.computerdatabase.persistence.PagedResult;
 import fr.ebiz.computerdatabase.persistence.SortOrder;
+import fr.ebiz.computerdatabase.persistence.cache.CountCache;
+import fr.ebiz.computerdatabase.persistence.dao.AsyncComputerDao;
 import fr.ebiz.computerdatabase.persistence.dao.ComputerDao;
 import fr.ebiz.computerdatabase.service.CompanyService;
 import fr.ebiz.computerdatabase.service.ComputerService;
+import fr.ebiz.computerdatabase.service.cache.PageCache;
 import fr.ebiz.util.SpringUtils;
 import org.junit.Assert;
 import org.junit.Before;
@@ -28,8 +34,12 @@ import org.springframework.test.context.support.AnnotationConfigContextLoader;
 import org.springframework.test.util.ReflectionTestUtils;
 
 import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
@@ -53,25 +63,34 @@ public class ComputerServiceTest {
     private ComputerService service;
     @Autowired
     private ComputerMapper computerMapper;
+    @Autowired
+    private AsyncComputerDao asyncComputerDao;
+    @Autowired
+    private CountCache countCache;
+    @Autowired
+    private PageCache pageCache;
 
     @Before
     public void setup() throws Exception {
         MockitoAnnotations.initMocks(this);
         ComputerService computerService = (ComputerService) SpringUtils.unwrapProxy(service);
         ReflectionTestUtils.setField(computerService, "computerDao", computerDao);
+        ReflectionTestUtils.setField(SpringUtils.unwrapProxy(asyncComputerDao), "computerDao", computerDao);
+        ReflectionTestUtils.setField(computerService, "approximateCounts", false);
+        countCache.clear();
+        pageCache.clear();
     }
 
     @Test
     public void testGetWorksWithExistingId() {
         Computer computer = Computer.builder().id(1).name("Test").build();
-        when(computerDao.get(computer.getId())).thenReturn(Optional.of(computer));
-        when(mockComputerMapper.toDto(computer)).thenReturn(computerMapper.toDto(computer));
+        when(computerDao.getDto(computer.getId())).thenReturn(Optional.of(computerMapper.toDto(computer)));
         Assert.assertEquals(computer.getId(), service.get(1).get().getId());
     }
 
     @Test
     public void testGetHandlesMissingId() {
-        when(computerDao.get(1)).thenReturn(Optional.empty());
+        when(computerDao.getDto(1)).thenReturn(Optional.empty());
 
         Assert.assertFalse(service.get(1).isPresent());
     }
@@ -103,14 +122,18 @@ public class ComputerServiceTest {
 
     @Test(expected = IllegalArgumentException.class)
     public void testGetAllWithTooBigPageNumberWithFullLastPage() {
-        when(computerDao.count("")).thenReturn(100);
-        service.getAll(GetAllComputersRequest.builder().pageSize(PAGE_SIZE).page(11).build());
+        GetAllComputersRequest request = GetAllComputersRequest.builder().pageSize(PAGE_SIZE).page(11).build();
+        when(computerDao.getDtoPage(request.getQuery(), request.getPageSize(), request.getOffset(), request.getColumn(), request.getOrder()))
+                .thenReturn(new PagedResult<>(Collections.emptyList(), 100));
+        service.getAll(request);
     }
 
     @Test(expected = IllegalArgumentException.class)
     public void testGetAllWithTooBigPageNumberWithoutFullLastPage() {
-        when(computerDao.count("")).thenReturn(101);
-        service.getAll(GetAllComputersRequest.builder().pageSize(PAGE_SIZE).page(12).build());
+        GetAllComputersRequest request = GetAllComputersRequest.builder().pageSize(PAGE_SIZE).page(12).build();
+        when(computerDao.getDtoPage(request.getQuery(), request.getPageSize(), request.getOffset(), request.getColumn(), request.getOrder()))
+                .thenReturn(new PagedResult<>(Collections.emptyList(), 101));
+        service.getAll(request);
     }
 
     @Test
@@ -120,11 +143,11 @@ public class ComputerServiceTest {
                 .mapToObj(index -> Computer.builder().id(index).name("computer" + index).build())
                 .collect(Collectors.toList());
 
-        when(computerDao.count("")).thenReturn(elements);
         Pageable pageable = Pageable.builder().elements(PAGE_SIZE).page(0).build();
         List<Computer> pagedComputers = computers.subList(0, elements);
         GetAllComputersRequest request = GetAllComputersRequest.builder().pageSize(pageable.getElements()).page(pageable.getPage()).query("").column(ComputerDao.SortColumn.NAME).order(SortOrder.ASC).build();
-        when(computerDao.getAll(request.getQuery(), request.getPageSize(), request.getOffset(), request.getColumn(), request.getOrder())).thenReturn(pagedComputers);
+        when(computerDao.getDtoPage(request.getQuery(), request.getPageSize(), request.getOffset(), request.getColumn(), request.getOrder()))
+                .thenReturn(new PagedResult<>(computerMapper.toDto(pagedComputers), elements));
 
         for (int i = 0; i < pagedComputers.size(); i++) {
             when(mockComputerMapper.toDto(pagedComputers)).thenReturn(computerMapper.toDto(pagedComputers));
@@ -133,9 +156,130 @@ public class ComputerServiceTest {
         Page<ComputerDto> page = service.getAll(request);
         Assert.assertEquals(0, page.getCurrentPage());
         Assert.assertEquals(1, page.getTotalPages());
+        Assert.assertEquals(elements, page.getTotalElements());
         for (int i = 0; i < pagedComputers.size(); i++) {
             Assert.assertEquals(pagedComputers.get(i).getId(), page.getElements().get(i).getId());
         }
+        Mockito.verify(computerDao, Mockito.never()).count(Mockito.anyString());
+    }
+
+    @Test
+    public void testGetAllReusesCountUntilNextWrite() {
+        List<Computer> computers = Collections.singletonList(Computer.builder().id(1).name("computer").build());
+        GetAllComputersRequest request = GetAllComputersRequest.builder().pageSize(PAGE_SIZE).query("Computer ").build();
+        when(computerDao.getDtoPage(request.getQuery(), request.getPageSize(), request.getOffset(), request.getColumn(), request.getOrder()))
+                .thenReturn(new PagedResult<>(computerMapper.toDto(computers), 1));
+        when(computerDao.getAllDto(request.getQuery(), request.getPageSize(), request.getOffset(), request.getColumn(), request.getOrder()))
+                .thenReturn(computerMapper.toDto(computers));
+
+        Assert.assertEquals(1, service.getAll(request).getTotalElements());
+        Assert.assertEquals(1, service.getAll(request).getTotalElements());
+        Mockito.verify(computerDao, Mockito.times(1)).getDtoPage(request.getQuery(), request.getPageSize(), request.getOffset(), request.getColumn(), request.getOrder());
+
+        service.deleteComputers(Collections.singletonList(1));
+        service.getAll(request);
+        Mockito.verify(computerDao, Mockito.times(2)).getDtoPage(request.getQuery(), request.getPageSize(), request.getOffset(), request.getColumn(), request.getOrder());
+    }
+
+    @Test
+    public void testGetAllServesSameViewFromCache() {
+        List<Computer> computers = Collections.singletonList(Computer.builder().id(1).name("computer").build());
+        GetAllComputersRequest request = GetAllComputersRequest.builder().pageSize(PAGE_SIZE).query("computer").build();
+        when(computerDao.getDtoPage(request.getQuery(), request.getPageSize(), request.getOffset(), request.getColumn(), request.getOrder()))
+                .thenReturn(new PagedResult<>(computerMapper.toDto(computers), 1));
+
+        GetAllComputersRequest sameView = new GetAllComputersRequest();
+        sameView.setPageSize(PAGE_SIZE);
+        sameView.setQuery(" Computer");
+        Page<ComputerDto> page = service.getAll(request);
+        Assert.assertSame(page, service.getAll(sameView));
+        Mockito.verify(computerDao, Mockito.never()).getAllDto(Mockito.anyString(), Mockito.anyInt(), Mockito.anyInt(), Mockito.any(), Mockito.any());
+    }
+
+    @Test
+    public void testGetAllWithApproximateCountSkipsExactCount() throws Exception {
+        ReflectionTestUtils.setField(SpringUtils.unwrapProxy(service), "approximateCounts", true);
+        List<Computer> computers = Collections.singletonList(Computer.builder().id(1).name("computer").build());
+        GetAllComputersRequest request = GetAllComputersRequest.builder().pageSize(PAGE_SIZE).page(42).build();
+        when(computerDao.countApproximately(request.getQuery())).thenReturn(Count.approximate(1000000));
+        when(computerDao.getAllDto(request.getQuery(), request.getPageSize(), request.getOffset(), request.getColumn(), request.getOrder()))
+                .thenReturn(computerMapper.toDto(computers));
+
+        Page<ComputerDto> page = service.getAll(request);
+        Assert.assertTrue(page.isApproximate());
+        Assert.assertEquals(1000000, page.getTotalElements());
+        Mockito.verify(computerDao, Mockito.never()).getDtoPage(Mockito.anyString(), Mockito.anyInt(), Mockito.anyInt(), Mockito.any(), Mockito.any());
+        Mockito.verify(computerDao, Mockito.never()).count(Mockito.anyString());
+    }
+
+    @Test
+    public void testGetAllWithCursorSeeksAfterIt() {
+        List<Computer> computers = IntStream.range(0, PAGE_SIZE + 1)
+                .mapToObj(index -> Computer.builder().id(index + 1).name("computer" + index).build())
+                .collect(Collectors.toList());
+        Cursor cursor = Cursor.of(Computer.builder().id(42).name("computer").build(), ComputerDao.SortColumn.NAME, SortOrder.ASC);
+        GetAllComputersRequest request = GetAllComputersRequest.builder().pageSize(PAGE_SIZE).page(4).after(cursor.encode()).build();
+
+        when(computerDao.count("")).thenReturn(100);
+        when(computerDao.getAllDtoAfter("", PAGE_SIZE + 1, cursor)).thenReturn(computerMapper.toDto(computers));
+
+        Page<ComputerDto> page = service.getAll(request);
+        Assert.assertEquals(4, page.getCurrentPage());
+        Assert.assertEquals(PAGE_SIZE, page.getElements().size());
+        Assert.assertEquals(Cursor.of(computers.get(0), ComputerDao.SortColumn.NAME, SortOrder.ASC), Cursor.decode(page.getPreviousCursor()));
+        Assert.assertEquals(Cursor.of(computers.get(PAGE_SIZE - 1), ComputerDao.SortColumn.NAME, SortOrder.ASC), Cursor.decode(page.getNextCursor()));
+        Mockito.verify(computerDao, Mockito.never()).getAllDto(Mockito.anyString(), Mockito.anyInt(), Mockito.anyInt(), Mockito.any(), Mockito.any());
+    }
+
+    @Test
+    public void testGetAllWithCursorHasNoNextCursorOnLastPage() {
+        List<Computer> computers = IntStream.range(0, 3)
+                .mapToObj(index -> Computer.builder().id(index + 1).name("computer" + index).build())
+                .collect(Collectors.toList());
+        Cursor cursor = Cursor.of(Computer.builder().id(42).name("computer").build(), ComputerDao.SortColumn.NAME, SortOrder.ASC);
+        GetAllComputersRequest request = GetAllComputersRequest.builder().pageSize(PAGE_SIZE).after(cursor.encode()).build();
+
+        when(computerDao.count("")).thenReturn(13);
+        when(computerDao.getAllDtoAfter("", PAGE_SIZE + 1, cursor)).thenReturn(computerMapper.toDto(computers));
+
+        Page<ComputerDto> page = service.getAll(request);
+        Assert.assertEquals(3, page.getElements().size());
+        Assert.assertNotNull(page.getPreviousCursor());
+        Assert.assertNull(page.getNextCursor());
+    }
+
+    @Test
+    public void testGetAllWithCursorCountsWhileSeeking() {
+        List<Computer> computers = Collections.singletonList(Computer.builder().id(1).name("computer").build());
+        Cursor cursor = Cursor.of(Computer.builder().id(42).name("computer").build(), ComputerDao.SortColumn.NAME, SortOrder.ASC);
+        GetAllComputersRequest request = GetAllComputersRequest.builder().pageSize(PAGE_SIZE).after(cursor.encode()).build();
+        CountDownLatch seeking = new CountDownLatch(1);
+
+        // The count only completes once the page is being read, which times out if both run one after the other
+        when(computerDao.count("")).thenAnswer(invocation -> seeking.await(5, TimeUnit.SECONDS) ? 11 : -1);
+        when(computerDao.getAllDtoAfter("", PAGE_SIZE + 1, cursor)).thenAnswer(invocation -> {
+            seeking.countDown();
+            return computerMapper.toDto(computers);
+        });
+
+        Assert.assertEquals(11, service.getAll(request).getTotalElements());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testGetAllWithCursorOfAnotherSort() {
+        Cursor cursor = Cursor.of(Computer.builder().id(42).name("computer").build(), ComputerDao.SortColumn.NAME, SortOrder.DESC);
+
+        service.getAll(GetAllComputersRequest.builder().pageSize(PAGE_SIZE).after(cursor.encode()).build());
+    }
+
+    @Test
+    public void testDeleteComputersReportsDeletedCount() {
+        List<Integer> ids = Arrays.asList(3, 1, 2);
+        when(computerDao.deleteComputers(ids)).thenReturn(2);
+
+        Assert.assertEquals(2, service.deleteComputers(ids));
+        Assert.assertEquals(0, service.deleteComputers(Collections.emptyList()));
+        Mockito.verify(computerDao, Mockito.times(1)).deleteComputers(Mockito.anyList());
     }
 
     @Test(expected = IllegalArgumentException.class)
@@ -174,6 +318,30 @@ public class ComputerServiceTest {
         service.insert(computer);
     }
 
+    @Test(expected = IllegalArgumentException.class)
+    public void testInsertAllHandleComputerWithId() {
+        service.insertAll(Arrays.asList(ComputerDto.builder().name("test").build(), ComputerDto.builder().id(1).build()));
+    }
+
+    @Test
+    public void testInsertAllSetsGeneratedIds() {
+        List<ComputerDto> computers = IntStream.range(0, 3)
+                .mapToObj(index -> ComputerDto.builder().name("computer" + index).build())
+                .collect(Collectors.toList());
+        when(computerDao.insertAll(Mockito.anyList())).thenAnswer(invocation -> {
+            List<Computer> entities = invocation.getArgument(0);
+            for (int i = 0; i < entities.size(); i++) {
+                entities.get(i).setId(100 + i);
+            }
+            return entities.size();
+        });
+
+        service.insertAll(computers);
+        for (int i = 0; i < computers.size(); i++) {
+            Assert.assertEquals(Integer.valueOf(100 + i), computers.get(i).getId());
+        }
+    }
+
     @Test(expected = IllegalArgumentException.class)
     public void testUpdateHandleNull() {
         service.update(null);
@@ -0,0 +1,169 @@
+package fr.ebiz.service;
+
+import fr.ebiz.computerdatabase.model.CompanyDeletion;
+import fr.ebiz.computerdatabase.model.Job;
+import fr.ebiz.computerdatabase.model.JobStatus;
+import fr.ebiz.computerdatabase.model.JobType;
+import fr.ebiz.computerdatabase.persistence.dao.JobDao;
+import fr.ebiz.computerdatabase.service.CompanyService;
+import fr.ebiz.computerdatabase.service.JobService;
+import fr.ebiz.computerdatabase.service.impl.JobServiceImpl;
+import fr.ebiz.computerdatabase.service.job.JobContext;
+import fr.ebiz.computerdatabase.service.job.JobHandler;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class JobServiceTest {
+
+    private static final long JOB_ID = 42L;
+    private static final String INSTANCE = "instance-1";
+    private static final long HEARTBEAT_INTERVAL = 60000;
+    private static final long HEARTBEAT_TIMEOUT = 120000;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Mock
+    private JobDao jobDao;
+
+    @Mock
+    private CompanyService companyService;
+
+    @Mock
+    private JobHandler handler;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        when(handler.getType()).thenReturn(JobType.DELETE_COMPUTERS);
+        doAnswer(invocation -> {
+            invocation.<Job>getArgument(0).setId(JOB_ID);
+            return true;
+        }).when(jobDao).insert(any(Job.class));
+        when(jobDao.get(JOB_ID)).thenReturn(Optional.of(Job.builder().id(JOB_ID).type(JobType.DELETE_COMPUTERS)
+                .status(JobStatus.RUNNING).parameters(Collections.singletonMap("ids", "1,2")).build()));
+        when(jobDao.updateStatus(anyLong(), any(JobStatus.class), any(JobStatus.class), any())).thenReturn(true);
+        when(jobDao.start(anyLong(), anyString())).thenReturn(true);
+    }
+
+    @Test
+    public void testSubmitRunsTheJobAndStoresItsResult() throws Exception {
+        when(handler.run(any(Job.class), any(JobContext.class))).thenReturn("2 computers deleted");
+
+        newService(Runnable::run).submit(JobType.DELETE_COMPUTERS, Collections.singletonMap("ids", "1,2"));
+
+        verify(jobDao).start(JOB_ID, INSTANCE);
+        verify(jobDao).updateStatus(JOB_ID, JobStatus.RUNNING, JobStatus.SUCCEEDED, "2 computers deleted");
+    }
+
+    @Test
+    public void testCancelledJobEndsCancelled() throws Exception {
+        when(handler.run(any(Job.class), any(JobContext.class))).thenThrow(new CancellationException());
+
+        newService(Runnable::run).submit(JobType.DELETE_COMPUTERS, Collections.singletonMap("ids", "1,2"));
+
+        verify(jobDao).updateStatus(eq(JOB_ID), eq(JobStatus.RUNNING), eq(JobStatus.CANCELLED), anyString());
+        verify(jobDao, never()).updateStatus(eq(JOB_ID), eq(JobStatus.RUNNING), eq(JobStatus.SUCCEEDED), any());
+    }
+
+    @Test
+    public void testRejectedJobFails() throws Exception {
+        newService(command -> {
+            throw new RejectedExecutionException();
+        }).submit(JobType.DELETE_COMPUTERS, Collections.singletonMap("ids", "1,2"));
+
+        verify(jobDao).updateStatus(eq(JOB_ID), eq(JobStatus.PENDING), eq(JobStatus.FAILED), anyString());
+        verify(handler, never()).run(any(Job.class), any(JobContext.class));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSubmitWithoutHandlerFails() throws Exception {
+        newService(Runnable::run).submit(JobType.EXPORT_COMPUTERS, Collections.emptyMap());
+    }
+
+    @Test
+    public void testJobCancelledWhileQueuedDoesNotRun() throws Exception {
+        when(jobDao.start(JOB_ID, INSTANCE)).thenReturn(false);
+
+        newService(Runnable::run).submit(JobType.DELETE_COMPUTERS, Collections.singletonMap("ids", "1,2"));
+
+        verify(handler, never()).run(any(Job.class), any(JobContext.class));
+        verify(jobDao, never()).updateStatus(anyLong(), eq(JobStatus.RUNNING), any(JobStatus.class), isNull());
+    }
+
+    @Test
+    public void testRecoverResumesInterruptedCompanyDeletions() throws Exception {
+        JobHandler deleteCompanyHandler = mock(JobHandler.class);
+        when(deleteCompanyHandler.getType()).thenReturn(JobType.DELETE_COMPANY);
+        when(jobDao.getByStatus(JobStatus.PENDING)).thenReturn(Collections.singletonList(Job.builder().id(JOB_ID)
+                .type(JobType.DELETE_COMPANY).status(JobStatus.PENDING).parameters(Collections.singletonMap("companyId", "1")).build()));
+        when(companyService.getPendingDeletions()).thenReturn(Arrays.asList(
+                new CompanyDeletion(1, 10, 10, false), new CompanyDeletion(2, 20, 20, false)));
+
+        JobServiceImpl service = new JobServiceImpl(jobDao, companyService, Arrays.asList(handler, deleteCompanyHandler),
+                command -> {
+                }, folder.newFolder().getPath(), INSTANCE, HEARTBEAT_INTERVAL, HEARTBEAT_TIMEOUT);
+        service.recover();
+        service.close();
+
+        // Company 1 already has a pending job
+        verify(jobDao, times(1)).insert(any(Job.class));
+        verify(jobDao).insert(argThat(job -> job.getType() == JobType.DELETE_COMPANY && "2".equals(job.getParameter("companyId"))));
+    }
+
+    @Test
+    public void testRecoverTakesOverStaleJobs() throws Exception {
+        when(handler.isRestartable()).thenReturn(true);
+        when(jobDao.getStale(HEARTBEAT_TIMEOUT)).thenReturn(Arrays.asList(
+                Job.builder().id(JOB_ID).type(JobType.DELETE_COMPUTERS).status(JobStatus.RUNNING).owner("instance-2").build(),
+                Job.builder().id(JOB_ID + 1).type(JobType.DELETE_COMPUTERS).status(JobStatus.RUNNING).owner("instance-2").cancelRequested(true).build()));
+        when(jobDao.takeOver(anyLong(), any(JobStatus.class), any(JobStatus.class), any(), anyString(), anyLong())).thenReturn(true);
+
+        JobServiceImpl service = (JobServiceImpl) newService(Runnable::run);
+        service.recover();
+        service.close();
+
+        // The jobs this instance left are stale right away, the restartable job runs again here, the cancelled one ends
+        verify(jobDao).release(INSTANCE);
+        verify(jobDao).takeOver(JOB_ID, JobStatus.RUNNING, JobStatus.PENDING, null, INSTANCE, HEARTBEAT_TIMEOUT);
+        verify(jobDao).start(JOB_ID, INSTANCE);
+        verify(jobDao).takeOver(eq(JOB_ID + 1), eq(JobStatus.RUNNING), eq(JobStatus.CANCELLED), anyString(), eq(INSTANCE), eq(HEARTBEAT_TIMEOUT));
+    }
+
+    /**
+     * Create the service with the mocked handler.
+     *
+     * @param executor The executor running the jobs
+     * @return The service
+     * @throws Exception if the job directory can't be created
+     */
+    private JobService newService(Executor executor) throws Exception {
+        return new JobServiceImpl(jobDao, companyService, Collections.singletonList(handler), executor, folder.newFolder().getPath(),
+                INSTANCE, HEARTBEAT_INTERVAL, HEARTBEAT_TIMEOUT);
+    }
+}
@@ -0,0 +1,70 @@
+package fr.ebiz.service;
+
+import fr.ebiz.computerdatabase.dto.ComputerDto;
+import fr.ebiz.computerdatabase.dto.GetAllComputersRequest;
+import fr.ebiz.computerdatabase.dto.paging.Page;
+import fr.ebiz.computerdatabase.persistence.cache.WriteEpoch;
+import fr.ebiz.computerdatabase.persistence.routing.ReplicaRoutingDataSource;
+import fr.ebiz.computerdatabase.service.cache.PageCache;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.mockito.Mockito.when;
+
+public class PageCacheTest {
+
+    private static final int MAX_PAGE_SIZE = 100;
+
+    @Mock
+    private ReplicaRoutingDataSource routingDataSource;
+
+    private PageCache pageCache;
+    private AtomicInteger loads;
+    private Function<GetAllComputersRequest, Page<ComputerDto>> loader;
+
+    @Before
+    public void setup() {
+        MockitoAnnotations.initMocks(this);
+        pageCache = new PageCache(new WriteEpoch(), routingDataSource, 10, MAX_PAGE_SIZE, 60000);
+        loads = new AtomicInteger();
+        loader = request -> {
+            loads.incrementAndGet();
+            return Page.<ComputerDto>builder().build();
+        };
+    }
+
+    @Test
+    public void testPageIsCached() {
+        GetAllComputersRequest request = GetAllComputersRequest.builder().pageSize(10).build();
+        Page<ComputerDto> page = pageCache.get(request, loader);
+        Assert.assertSame(page, pageCache.get(request, loader));
+        Assert.assertEquals(1, loads.get());
+    }
+
+    @Test
+    public void testLargePageIsNotCached() {
+        GetAllComputersRequest request = GetAllComputersRequest.builder().pageSize(MAX_PAGE_SIZE + 1).build();
+        pageCache.get(request, loader);
+        pageCache.get(request, loader);
+        Assert.assertEquals(2, loads.get());
+        Assert.assertEquals(0, pageCache.getSize());
+    }
+
+    @Test
+    public void testWriterBypassesTheCache() {
+        GetAllComputersRequest request = GetAllComputersRequest.builder().pageSize(10).build();
+        Page<ComputerDto> cached = pageCache.get(request, loader);
+
+        // The writer must not see the page read by another user from a lagging replica, nor cache its own page
+        when(routingDataSource.isReadingYourWrites()).thenReturn(true);
+        Assert.assertNotSame(cached, pageCache.get(request, loader));
+        Assert.assertEquals(1, pageCache.getSize());
+        Assert.assertEquals(2, loads.get());
+    }
+}
@@ -74,7 +74,7 @@ public class ComputerManagerTest {
 
         Assert.assertTrue(driver.getCurrentUrl().matches(baseUrl + "/computers/\\d+"));
 
-        new Select(driver.findElement(By.id("companyId"))).selectByVisibleText("BBN Technologies");
+        selectCompany("BBN Technologies");
         SeleniumUtils.input(driver, COMPUTER_NAME_BY, "Ordinateur edite");
         driver.findElement(By.cssSelector("button.btn.btn-primary")).click();
     }
@@ -88,13 +88,20 @@ public class ComputerManagerTest {
         SeleniumUtils.input(driver, COMPUTER_NAME_BY, "Nouvel ordinateur");
         SeleniumUtils.input(driver, INTRODUCED_BY, "04/07/2013");
         SeleniumUtils.input(driver, DISCONTINUED_BY, "04/07/2012");
-        new Select(driver.findElement(By.id("companyId"))).selectByVisibleText("Amiga Corporation");
+        selectCompany("Amiga Corporation");
 
         driver.findElement(By.cssSelector("button.btn.btn-primary")).click();
         SeleniumUtils.input(driver, DISCONTINUED_BY, "04/07/2015");
         driver.findElement(By.cssSelector("button.btn.btn-primary")).click();
     }
 
+    private void selectCompany(String name) {
+        SeleniumUtils.input(driver, By.id("companySearch"), name);
+        new WebDriverWait(driver, 10).until(ExpectedConditions.presenceOfElementLocated(
+                By.xpath("//select[@id='companyId']/option[text()='" + name + "']")));
+        new Select(driver.findElement(By.id("companyId"))).selectByVisibleText(name);
+    }
+
     @After
     public void tearDown() throws Exception {
         driver.quit();